@@ -0,0 +1,349 @@
+package ch.cyberduck.core.azure;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Cache;
+import ch.cyberduck.core.ConnectionCallback;
+import ch.cyberduck.core.DefaultIOExceptionMappingService;
+import ch.cyberduck.core.Local;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.PathContainerService;
+import ch.cyberduck.core.exception.AccessDeniedException;
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.exception.ConnectionCanceledException;
+import ch.cyberduck.core.exception.NotfoundException;
+import ch.cyberduck.core.features.Upload;
+import ch.cyberduck.core.features.Write;
+import ch.cyberduck.core.io.BandwidthThrottle;
+import ch.cyberduck.core.io.StreamListener;
+import ch.cyberduck.core.io.ThrottledInputStream;
+import ch.cyberduck.core.threading.BackgroundExceptionCallable;
+import ch.cyberduck.core.threading.DefaultRetryCallable;
+import ch.cyberduck.core.threading.PartScheduler;
+import ch.cyberduck.core.transfer.TransferStatus;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.ProxyInputStream;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.HttpHeaders;
+import org.apache.log4j.Logger;
+import org.bouncycastle.util.encoders.Base64;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.microsoft.azure.storage.AccessCondition;
+import com.microsoft.azure.storage.OperationContext;
+import com.microsoft.azure.storage.StorageException;
+import com.microsoft.azure.storage.blob.BlobRequestOptions;
+import com.microsoft.azure.storage.blob.BlockEntry;
+import com.microsoft.azure.storage.blob.BlockListingFilter;
+import com.microsoft.azure.storage.blob.CloudAppendBlob;
+import com.microsoft.azure.storage.blob.CloudBlob;
+import com.microsoft.azure.storage.blob.CloudBlobContainer;
+import com.microsoft.azure.storage.blob.CloudBlockBlob;
+import com.microsoft.azure.storage.blob.DeleteSnapshotsOption;
+
+/**
+ * Upload as block blob staging blocks concurrently with Put Block and committing them with Put Block List.
+ * Uncommitted blocks of a previous attempt with matching identifier and size are not uploaded again.
+ */
+public class AzureLargeUploadService implements Upload<Void> {
+    private static final Logger log = Logger.getLogger(AzureLargeUploadService.class);
+
+    /**
+     * The maximum number of blocks in a block blob
+     */
+    public static final int MAXIMUM_UPLOAD_PARTS = 50000;
+
+    private final PathContainerService containerService
+        = new AzurePathContainerService();
+
+    private final AzureSession session;
+    private final OperationContext context;
+
+    private final Long partSize;
+    private final Integer concurrency;
+
+    private Write<Void> writer;
+
+    public AzureLargeUploadService(final AzureSession session, final OperationContext context, final Write<Void> writer,
+                                   final Long partSize, final Integer concurrency) {
+        this.session = session;
+        this.context = context;
+        this.writer = writer;
+        this.partSize = partSize;
+        this.concurrency = concurrency;
+    }
+
+    @Override
+    public Write.Append append(final Path file, final Long length, final Cache<Path> cache) throws BackgroundException {
+        return writer.append(file, length, cache);
+    }
+
+    @Override
+    public Void upload(final Path file, final Local local, final BandwidthThrottle throttle, final StreamListener listener,
+                       final TransferStatus status, final ConnectionCallback callback) throws BackgroundException {
+        final PartScheduler.Batch<BlockEntry> parts = PartScheduler.get().batch(concurrency);
+        try {
+            final CloudBlobContainer container = session.getClient().getContainerReference(containerService.getContainer(file).getName());
+            final CloudBlockBlob blob = container.getBlockBlobReference(containerService.getKey(file));
+            final BlobRequestOptions options = new BlobRequestOptions();
+            options.setConcurrentRequestCount(1);
+            options.setStoreBlobContentMD5(false);
+            // Uncommitted blocks from previous attempt by identifier
+            final Map<String, BlockEntry> uncommitted = new HashMap<>();
+            if(status.isRetry()) {
+                try {
+                    for(BlockEntry block : blob.downloadBlockList(BlockListingFilter.UNCOMMITTED,
+                        AccessCondition.generateEmptyCondition(), options, context)) {
+                        uncommitted.put(block.getId(), block);
+                    }
+                }
+                catch(StorageException e) {
+                    if(e.getHttpStatusCode() != 404) {
+                        throw e;
+                    }
+                }
+            }
+            else {
+                this.reset(container, file, options);
+            }
+            final long size = status.getLength();
+            final long length = Math.max(size / MAXIMUM_UPLOAD_PARTS + 1, partSize);
+            long remaining = size;
+            long offset = 0;
+            for(int partNumber = 1; remaining > 0; partNumber++) {
+                final long len = Math.min(length, remaining);
+                final String id = this.id(partNumber);
+                final BlockEntry existing = uncommitted.get(id);
+                if(existing != null && existing.getSize() == len) {
+                    if(log.isInfoEnabled()) {
+                        log.info(String.format("Skip uncommitted block %d of %s", partNumber, file));
+                    }
+                    status.progress(len);
+                    parts.submit(0L, () -> existing);
+                }
+                else {
+                    this.submit(parts, blob, options, file, local, throttle, listener, status, id, offset, len);
+                }
+                remaining -= len;
+                offset += len;
+            }
+            final List<BlockEntry> blocks;
+            try {
+                blocks = parts.await();
+            }
+            catch(ConnectionCanceledException e) {
+                status.setCanceled();
+                throw e;
+            }
+            if(StringUtils.isNotBlank(status.getMime())) {
+                blob.getProperties().setContentType(status.getMime());
+            }
+            final HashMap<String, String> headers = new HashMap<>(status.getMetadata());
+            // Remove additional headers not allowed in metadata and move to properties
+            if(headers.containsKey(HttpHeaders.CACHE_CONTROL)) {
+                blob.getProperties().setCacheControl(headers.remove(HttpHeaders.CACHE_CONTROL));
+            }
+            if(headers.containsKey(HttpHeaders.CONTENT_TYPE)) {
+                blob.getProperties().setContentType(headers.remove(HttpHeaders.CONTENT_TYPE));
+            }
+            blob.setMetadata(headers);
+            blob.commitBlockList(blocks, AccessCondition.generateEmptyCondition(), options, context);
+            if(log.isInfoEnabled()) {
+                log.info(String.format("Committed block blob %s with %d blocks", file, blocks.size()));
+            }
+            // Mark parent status as complete
+            status.setComplete();
+            return null;
+        }
+        catch(StorageException e) {
+            throw new AzureExceptionMappingService().map("Upload {0} failed", e, file);
+        }
+        catch(URISyntaxException e) {
+            throw new NotfoundException(e.getMessage(), e);
+        }
+        finally {
+            // Cancel future tasks
+            parts.cancel();
+        }
+    }
+
+    /**
+     * Delete existing append blob which cannot be replaced by staging blocks
+     */
+    private void reset(final CloudBlobContainer container, final Path file, final BlobRequestOptions options) throws StorageException, URISyntaxException {
+        final CloudBlob existing;
+        try {
+            existing = container.getBlobReferenceFromServer(containerService.getKey(file), null, AccessCondition.generateEmptyCondition(), options, context);
+        }
+        catch(StorageException e) {
+            if(e.getHttpStatusCode() == 404) {
+                return;
+            }
+            throw e;
+        }
+        if(existing instanceof CloudAppendBlob) {
+            if(log.isInfoEnabled()) {
+                log.info(String.format("Delete append blob %s to replace with block blob", file));
+            }
+            existing.delete(DeleteSnapshotsOption.NONE, AccessCondition.generateEmptyCondition(), options, context);
+        }
+    }
+
+    /**
+     * @return Block identifiers must be of the same length for all blocks of a blob
+     */
+    private String id(final int partNumber) {
+        return Base64.toBase64String(String.format("%06d", partNumber).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void submit(final PartScheduler.Batch<BlockEntry> parts, final CloudBlockBlob blob, final BlobRequestOptions options,
+                        final Path file, final Local local, final BandwidthThrottle throttle, final StreamListener listener,
+                        final TransferStatus overall, final String id, final long offset, final long length) throws ConnectionCanceledException {
+        if(log.isInfoEnabled()) {
+            log.info(String.format("Submit block %s of %s to queue with offset %d and length %d", id, file, offset, length));
+        }
+        parts.submit(length, new DefaultRetryCallable<BlockEntry>(new BackgroundExceptionCallable<BlockEntry>() {
+            @Override
+            public BlockEntry call() throws BackgroundException {
+                if(overall.isCanceled()) {
+                    throw new ConnectionCanceledException();
+                }
+                // Stream block from file without buffering in memory
+                try (InputStream in = new ProxyInputStream(new ThrottledInputStream(new BlockInputStream(local, offset, length), throttle)) {
+                    @Override
+                    protected void afterRead(final int n) {
+                        if(n > 0) {
+                            listener.sent(n);
+                            overall.progress(n);
+                        }
+                    }
+                }) {
+                    blob.uploadBlock(id, in, length, AccessCondition.generateEmptyCondition(), options, context);
+                    return new BlockEntry(id);
+                }
+                catch(StorageException e) {
+                    throw new AzureExceptionMappingService().map("Upload {0} failed", e, file);
+                }
+                catch(IOException e) {
+                    throw new DefaultIOExceptionMappingService().map("Upload {0} failed", e, file);
+                }
+            }
+        }, overall));
+    }
+
+    /**
+     * Read block from file. Supports reset as required by the client to retry a request without buffering the
+     * block by opening the file again.
+     */
+    private static final class BlockInputStream extends InputStream {
+        private final Local local;
+        private final long offset;
+        private final long length;
+
+        private InputStream in;
+        /**
+         * Number of bytes read from start of block
+         */
+        private long position;
+        private long mark;
+
+        public BlockInputStream(final Local local, final long offset, final long length) {
+            this.local = local;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        private InputStream open() throws IOException {
+            if(null == in) {
+                try {
+                    in = local.getInputStream();
+                }
+                catch(AccessDeniedException e) {
+                    throw new IOException(e.getDetail(), e);
+                }
+                IOUtils.skipFully(in, offset + position);
+            }
+            return in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if(position >= length) {
+                return IOUtils.EOF;
+            }
+            final int b = this.open().read();
+            if(b != IOUtils.EOF) {
+                position++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if(position >= length) {
+                return IOUtils.EOF;
+            }
+            final int n = this.open().read(b, off, (int) Math.min(len, length - position));
+            if(n > 0) {
+                position += n;
+            }
+            return n;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return true;
+        }
+
+        @Override
+        public synchronized void mark(final int readlimit) {
+            mark = position;
+        }
+
+        @Override
+        public synchronized void reset() throws IOException {
+            this.close();
+            position = mark;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if(null != in) {
+                try {
+                    in.close();
+                }
+                finally {
+                    in = null;
+                }
+            }
+        }
+    }
+
+    @Override
+    public Upload<Void> withWriter(final Write<Void> writer) {
+        this.writer = writer;
+        return this;
+    }
+}
@@ -28,14 +28,13 @@ import ch.cyberduck.core.features.Write;
 import ch.cyberduck.core.http.HttpUploadFeature;
 import ch.cyberduck.core.io.BandwidthThrottle;
 import ch.cyberduck.core.io.Checksum;
+import ch.cyberduck.core.io.ChecksumIndex;
 import ch.cyberduck.core.io.StreamListener;
 import ch.cyberduck.core.io.StreamProgress;
 import ch.cyberduck.core.threading.BackgroundExceptionCallable;
 import ch.cyberduck.core.threading.DefaultRetryCallable;
-import ch.cyberduck.core.threading.DefaultThreadPool;
-import ch.cyberduck.core.threading.ThreadPool;
+import ch.cyberduck.core.threading.PartScheduler;
 import ch.cyberduck.core.transfer.TransferStatus;
-import ch.cyberduck.core.worker.DefaultExceptionMappingService;
 
 import org.apache.log4j.Logger;
 
@@ -46,8 +45,6 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
 
 import synapticloop.b2.exception.B2ApiException;
 import synapticloop.b2.response.B2FileInfoResponse;
@@ -94,7 +91,7 @@ public class B2LargeUploadService extends HttpUploadFeature<BaseB2Response, Mess
                                  final StreamListener listener,
                                  final TransferStatus status,
                                  final ConnectionCallback callback) throws BackgroundException {
-        final DefaultThreadPool pool = new DefaultThreadPool("largeupload", concurrency);
+        final PartScheduler.Batch<B2UploadPartResponse> parts = PartScheduler.get().batch(concurrency);
         try {
             final String fileid;
             // Get the results of the uploads in the order they were submitted
@@ -133,7 +130,6 @@ public class B2LargeUploadService extends HttpUploadFeature<BaseB2Response, Mess
             // Full size of file
             final long size = status.getLength() + status.getOffset();
             // Submit file segments for concurrent upload
-            final List<Future<B2UploadPartResponse>> parts = new ArrayList<Future<B2UploadPartResponse>>();
             long remaining = status.getLength();
             long offset = 0;
             for(int partNumber = 1; remaining > 0; partNumber++) {
@@ -156,7 +152,7 @@ public class B2LargeUploadService extends HttpUploadFeature<BaseB2Response, Mess
                 if(!skip) {
                     final Long length = Math.min(Math.max((size / B2LargeUploadService.MAXIMUM_UPLOAD_PARTS), partSize), remaining);
                     // Submit to queue
-                    parts.add(this.submit(pool, file, local, throttle, listener, status, partNumber, offset, length, callback));
+                    this.submit(parts, file, local, throttle, listener, status, partNumber, offset, length, callback);
                     if(log.isDebugEnabled()) {
                         log.debug(String.format("Part %s submitted with size %d and offset %d", partNumber, length, offset));
                     }
@@ -165,24 +161,11 @@ public class B2LargeUploadService extends HttpUploadFeature<BaseB2Response, Mess
                 }
             }
             try {
-                for(Future<B2UploadPartResponse> f : parts) {
-                    completed.add(f.get());
-                }
+                completed.addAll(parts.await());
             }
-            catch(InterruptedException e) {
-                log.error("Part upload failed with interrupt failure");
+            catch(ConnectionCanceledException e) {
                 status.setCanceled();
-                throw new ConnectionCanceledException(e);
-            }
-            catch(ExecutionException e) {
-                log.warn(String.format("Part upload failed with execution failure %s", e.getMessage()));
-                if(e.getCause() instanceof BackgroundException) {
-                    throw (BackgroundException) e.getCause();
-                }
-                throw new DefaultExceptionMappingService().map(e.getCause());
-            }
-            finally {
-                pool.shutdown(false);
+                throw e;
             }
             completed.sort(new Comparator<B2UploadPartResponse>() {
                 @Override
@@ -208,17 +191,21 @@ public class B2LargeUploadService extends HttpUploadFeature<BaseB2Response, Mess
         catch(IOException e) {
             throw new DefaultIOExceptionMappingService().map("Upload {0} failed", e, file);
         }
+        finally {
+            // Cancel future tasks
+            parts.cancel();
+        }
     }
 
-    private Future<B2UploadPartResponse> submit(final ThreadPool pool, final Path file, final Local local,
+    private void submit(final PartScheduler.Batch<B2UploadPartResponse> parts, final Path file, final Local local,
                                                 final BandwidthThrottle throttle, final StreamListener listener,
                                                 final TransferStatus overall,
                                                 final int partNumber,
-                                                final Long offset, final Long length, final ConnectionCallback callback) {
+                                                final Long offset, final Long length, final ConnectionCallback callback) throws ConnectionCanceledException {
         if(log.isInfoEnabled()) {
             log.info(String.format("Submit part %d of %s to queue with offset %d and length %d", partNumber, file, offset, length));
         }
-        return pool.execute(new DefaultRetryCallable<B2UploadPartResponse>(new BackgroundExceptionCallable<B2UploadPartResponse>() {
+        parts.submit(length, new DefaultRetryCallable<B2UploadPartResponse>(new BackgroundExceptionCallable<B2UploadPartResponse>() {
             @Override
             public B2UploadPartResponse call() throws BackgroundException {
                 if(overall.isCanceled()) {
@@ -229,7 +216,7 @@ public class B2LargeUploadService extends HttpUploadFeature<BaseB2Response, Mess
                     .skip(offset);
                 status.setHeader(overall.getHeader());
                 status.setNonces(overall.getNonces());
-                status.setChecksum(writer.checksum(file).compute(local.getInputStream(), status));
+                status.setChecksum(ChecksumIndex.get().compute(local, writer.checksum(file), status));
                 status.setSegment(true);
                 status.setPart(partNumber);
                 return (B2UploadPartResponse) B2LargeUploadService.super.upload(file, local, throttle, listener, status, overall, new StreamProgress() {
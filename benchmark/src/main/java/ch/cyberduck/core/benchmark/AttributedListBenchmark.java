@@ -0,0 +1,103 @@
+package ch.cyberduck.core.benchmark;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.AttributedList;
+import ch.cyberduck.core.NullFilter;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.ui.browser.RegexFilter;
+import ch.cyberduck.ui.comparator.FilenameComparator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.EnumSet;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Build, sort, filter and search directory listings
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AttributedListBenchmark {
+
+    @Param({"1000", "100000"})
+    private int size;
+
+    private Path[] files;
+    private AttributedList<Path> list;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final Path directory = new Path("/d", EnumSet.of(Path.Type.directory));
+        final Random random = new Random(0L);
+        files = new Path[size];
+        for(int i = 0; i < size; i++) {
+            // Include hidden files matched by filter
+            files[i] = new Path(directory, String.format(random.nextInt(10) == 0 ? ".f-%d" : "f-%d", random.nextInt()),
+                EnumSet.of(Path.Type.file));
+        }
+        list = this.create();
+    }
+
+    private AttributedList<Path> create() {
+        final AttributedList<Path> list = new AttributedList<Path>();
+        for(Path file : files) {
+            list.add(file);
+        }
+        return list;
+    }
+
+    @Benchmark
+    public AttributedList<Path> add() {
+        return this.create();
+    }
+
+    @Benchmark
+    public AttributedList<Path> sort() {
+        return new AttributedList<Path>(list).filter(new FilenameComparator(true), new NullFilter<Path>());
+    }
+
+    @Benchmark
+    public AttributedList<Path> filter() {
+        return new AttributedList<Path>(list).filter(new FilenameComparator(true), new RegexFilter());
+    }
+
+    @Benchmark
+    public boolean contains() {
+        return list.contains(files[size / 2]);
+    }
+
+    @Benchmark
+    public int indexOf() {
+        return list.indexOf(files[size / 2]);
+    }
+}
@@ -0,0 +1,98 @@
+package ch.cyberduck.core.benchmark;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.cryptomator.CryptoInputStream;
+import ch.cyberduck.core.cryptomator.CryptoOutputStream;
+import ch.cyberduck.core.cryptomator.random.FastSecureRandomProvider;
+import ch.cyberduck.core.cryptomator.random.RandomNonceGenerator;
+import ch.cyberduck.core.io.VoidStatusOutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.cryptomator.cryptolib.api.Cryptor;
+import org.cryptomator.cryptolib.api.FileHeader;
+import org.cryptomator.cryptolib.v1.Version1CryptorModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encrypt and decrypt file content chunks in memory
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CryptoStreamBenchmark {
+
+    @Param({"32768", "4194304"})
+    private int size;
+
+    private byte[] cleartext;
+    private byte[] ciphertext;
+
+    private Cryptor cryptor;
+    private FileHeader header;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        cryptor = new Version1CryptorModule().provideCryptorProvider(
+            FastSecureRandomProvider.get().provide()).createNew();
+        header = cryptor.fileHeaderCryptor().create();
+        cleartext = new byte[size];
+        new Random(0L).nextBytes(cleartext);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OutputStream stream = new CryptoOutputStream<Void>(new VoidStatusOutputStream(out), cryptor, header, new RandomNonceGenerator(), 0)) {
+            stream.write(cleartext);
+        }
+        ciphertext = out.toByteArray();
+    }
+
+    @Benchmark
+    public void encrypt() throws IOException {
+        try (OutputStream stream = new CryptoOutputStream<Void>(new VoidStatusOutputStream(NullOutputStream.NULL_OUTPUT_STREAM),
+            cryptor, header, new RandomNonceGenerator(), 0)) {
+            stream.write(cleartext);
+        }
+    }
+
+    @Benchmark
+    public long decrypt() throws IOException {
+        try (InputStream stream = new CryptoInputStream(new ByteArrayInputStream(ciphertext), cryptor, header, 0)) {
+            return IOUtils.copyLarge(stream, NullOutputStream.NULL_OUTPUT_STREAM);
+        }
+    }
+}
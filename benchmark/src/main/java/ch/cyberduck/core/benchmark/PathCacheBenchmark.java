@@ -0,0 +1,99 @@
+package ch.cyberduck.core.benchmark;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.AttributedList;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.PathCache;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.EnumSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookup of cached directory listings from concurrent threads
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@Threads(4)
+public class PathCacheBenchmark {
+
+    @Param({"1000"})
+    private int directories;
+
+    @Param({"100"})
+    private int children;
+
+    private PathCache cache;
+    private Path[] parents;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        cache = new PathCache(Integer.MAX_VALUE);
+        parents = new Path[directories];
+        final Path root = new Path("/", EnumSet.of(Path.Type.directory, Path.Type.volume));
+        for(int i = 0; i < directories; i++) {
+            final Path directory = new Path(root, String.format("d-%d", i), EnumSet.of(Path.Type.directory));
+            final AttributedList<Path> list = new AttributedList<Path>();
+            for(int j = 0; j < children; j++) {
+                list.add(new Path(directory, String.format("f-%d", j), EnumSet.of(Path.Type.file)));
+            }
+            cache.put(directory, list);
+            parents[i] = directory;
+        }
+    }
+
+    @Benchmark
+    public AttributedList<Path> get() {
+        return cache.get(parents[ThreadLocalRandom.current().nextInt(directories)]);
+    }
+
+    @Benchmark
+    public boolean isValid() {
+        return cache.isValid(parents[ThreadLocalRandom.current().nextInt(directories)]);
+    }
+
+    @Benchmark
+    public Path lookup() {
+        final Path directory = parents[ThreadLocalRandom.current().nextInt(directories)];
+        return cache.lookup(cache.key(new Path(directory, String.format("f-%d",
+            ThreadLocalRandom.current().nextInt(children)), EnumSet.of(Path.Type.file))));
+    }
+
+    @Benchmark
+    public AttributedList<Path> put() {
+        final Path directory = parents[ThreadLocalRandom.current().nextInt(directories)];
+        return cache.put(directory, cache.get(directory));
+    }
+}
@@ -0,0 +1,111 @@
+package ch.cyberduck.core.benchmark;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.io.StreamCopier;
+import ch.cyberduck.core.transfer.TransferStatus;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.apache.commons.io.output.NullOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Copy from memory to a null stream and to a socket connected on the loopback interface
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StreamCopierBenchmark {
+
+    @Param({"1024", "1048576"})
+    private int size;
+
+    private byte[] data;
+
+    private ServerSocket server;
+    private Socket client;
+    private Thread reader;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        data = new byte[size];
+        new Random(0L).nextBytes(data);
+        server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try (Socket socket = server.accept(); InputStream in = socket.getInputStream()) {
+                    IOUtils.copy(in, NullOutputStream.NULL_OUTPUT_STREAM);
+                }
+                catch(IOException e) {
+                    // Closed
+                }
+            }
+        });
+        reader.start();
+        client = new Socket(InetAddress.getLoopbackAddress(), server.getLocalPort());
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() throws Exception {
+        client.close();
+        server.close();
+        reader.join();
+    }
+
+    @Benchmark
+    public TransferStatus memory() throws BackgroundException {
+        final TransferStatus status = new TransferStatus();
+        new StreamCopier(status, status).transfer(new ByteArrayInputStream(data), NullOutputStream.NULL_OUTPUT_STREAM);
+        return status;
+    }
+
+    @Benchmark
+    public TransferStatus loopback() throws BackgroundException, IOException {
+        final TransferStatus status = new TransferStatus();
+        // Keep connection open for next invocation
+        final OutputStream out = new CloseShieldOutputStream(client.getOutputStream());
+        new StreamCopier(status, status).transfer(new ByteArrayInputStream(data), out);
+        return status;
+    }
+}
@@ -0,0 +1,78 @@
+package ch.cyberduck.core.benchmark;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.io.BandwidthThrottle;
+import ch.cyberduck.core.io.ThrottledInputStream;
+import ch.cyberduck.core.io.ThrottledOutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of throttled streams with a rate not limiting throughput in memory
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ThrottledStreamBenchmark {
+
+    /**
+     * Bytes per second
+     */
+    @Param({"-1", "1.0E12"})
+    private float rate;
+
+    private byte[] data;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        data = new byte[1024 * 1024];
+        new Random(0L).nextBytes(data);
+    }
+
+    @Benchmark
+    public long read() throws IOException {
+        return IOUtils.copyLarge(new ThrottledInputStream(new ByteArrayInputStream(data), new BandwidthThrottle(rate)),
+            NullOutputStream.NULL_OUTPUT_STREAM);
+    }
+
+    @Benchmark
+    public long write() throws IOException {
+        return IOUtils.copyLarge(new ByteArrayInputStream(data),
+            new ThrottledOutputStream(NullOutputStream.NULL_OUTPUT_STREAM, new BandwidthThrottle(rate)));
+    }
+}
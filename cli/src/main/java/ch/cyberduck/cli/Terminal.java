@@ -32,6 +32,7 @@ import ch.cyberduck.core.ftp.FTPTLSProtocol;
 import ch.cyberduck.core.googledrive.DriveProtocol;
 import ch.cyberduck.core.googlestorage.GoogleStorageProtocol;
 import ch.cyberduck.core.hubic.HubicProtocol;
+import ch.cyberduck.core.io.ChecksumIndex;
 import ch.cyberduck.core.io.DisabledStreamListener;
 import ch.cyberduck.core.irods.IRODSProtocol;
 import ch.cyberduck.core.local.Application;
@@ -136,7 +137,7 @@ public class Terminal {
             log.info(String.format("Parsed options %s from input %s", options, input));
         }
         this.input = input;
-        this.cache = new PathCache(preferences.getInteger("browser.cache.size"));
+        this.cache = new PathCache(preferences.getInteger("browser.cache.size"), preferences.getLong("browser.cache.weight"));
         this.progress = input.hasOption(TerminalOptionsBuilder.Params.quiet.name())
             ? new DisabledListProgressListener() : new TerminalProgressListener();
         this.transcript = input.hasOption(TerminalOptionsBuilder.Params.verbose.name())
@@ -284,6 +285,8 @@ public class Terminal {
         finally {
             this.disconnect(source);
             this.disconnect(destination);
+            // Write pending records of checksum index
+            ChecksumIndex.get().shutdown();
         }
         return Exit.failure;
     }
@@ -40,6 +40,8 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
 
 public class FinderLocal extends Local {
     private static final Logger log = Logger.getLogger(FinderLocal.class);
@@ -168,6 +170,35 @@ public class FinderLocal extends Local {
         }
     }
 
+    @Override
+    public OutputStream getOutputStream(final long position) throws AccessDeniedException {
+        final NSURL resolved;
+        try {
+            resolved = this.lock(false);
+        }
+        catch(LocalAccessDeniedException e) {
+            return super.getOutputStream(position);
+        }
+        try {
+            final RandomAccessFile file = new RandomAccessFile(new File(resolved.path()), "rw");
+            file.seek(position);
+            return new ProxyOutputStream(Channels.newOutputStream(file.getChannel())) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    }
+                    finally {
+                        release(resolved);
+                    }
+                }
+            };
+        }
+        catch(IOException e) {
+            throw new LocalAccessDeniedException(e.getMessage(), e);
+        }
+    }
+
     /**
      * @param interactive Prompt to resolve bookmark of file outside of sandbox with choose panel
      */
@@ -18,31 +18,76 @@ package ch.cyberduck.core;
  *  dkocher@cyberduck.ch
  */
 
-import org.apache.commons.collections4.map.LRUMap;
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.worker.DefaultExceptionMappingService;
+
 import org.apache.log4j.Logger;
 
-import java.util.Collections;
-import java.util.LinkedHashMap;
-import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.Weigher;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 
 public abstract class AbstractCache<T extends Referenceable> implements Cache<T> {
     private static final Logger log = Logger.getLogger(AbstractCache.class);
 
-    private final Map<T, AttributedList<T>> impl;
+    private final com.google.common.cache.Cache<T, AttributedList<T>> impl;
 
-    public AbstractCache(int size) {
-        if(size == Integer.MAX_VALUE) {
-            // Unlimited
-            impl = Collections.synchronizedMap(new LinkedHashMap<T, AttributedList<T>>());
+    /**
+     * @param size Maximum number of directory listings
+     */
+    public AbstractCache(final int size) {
+        this(size, -1L);
+    }
+
+    /**
+     * The cache is bounded either by number of directory listings or by number of files. The weight takes
+     * precedence and the size is only regarded to disable caching with 0 when both are given.
+     *
+     * @param size   Maximum number of directory listings. Ignored unless 0 if weight is not negative.
+     * @param weight Maximum number of files in all directory listings. Evict least recently used
+     *               directory listings when exceeded. Bounded by size instead if negative.
+     */
+    public AbstractCache(final int size, final long weight) {
+        final CacheBuilder<T, AttributedList<T>> builder = CacheBuilder.newBuilder()
+            // The maximum weight is split across segments and a listing heavier than the share of its segment
+            // would be evicted immediately
+            .concurrencyLevel(weight >= 0 ? 1 : Runtime.getRuntime().availableProcessors())
+            .removalListener(notification -> {
+                if(notification.getCause() == RemovalCause.SIZE) {
+                    this.evicted(notification.getKey(), notification.getValue());
+                }
+            });
+        if(size == 0) {
+            builder.maximumSize(0L);
         }
-        else if(size == 0) {
-            impl = Collections.emptyMap();
+        else if(weight >= 0) {
+            // Weighted by number of children
+            builder.maximumWeight(weight).weigher(new Weigher<T, AttributedList<T>>() {
+                @Override
+                public int weigh(final T key, final AttributedList<T> value) {
+                    return value.size() + 1;
+                }
+            });
         }
-        else {
-            // Will inflate to the given size
-            impl = Collections.synchronizedMap(new LRUMap<T, AttributedList<T>>(size));
+        else if(size != Integer.MAX_VALUE) {
+            builder.maximumSize(size);
         }
+        impl = builder.build();
+    }
+
+    /**
+     * Called after a directory listing has been evicted because the cache exceeded its size. Invoked on the
+     * thread modifying the cache but outside of any lock held by the cache.
+     *
+     * @param reference Reference to the path in cache.
+     * @param children  Evicted directory listing
+     */
+    protected void evicted(final T reference, final AttributedList<T> children) {
+        //
     }
 
     @Override
@@ -51,11 +96,11 @@ public abstract class AbstractCache<T extends Referenceable> implements Cache<T>
     }
 
     public boolean isEmpty() {
-        return impl.isEmpty();
+        return impl.asMap().isEmpty();
     }
 
     public Set<T> keySet() {
-        return impl.keySet();
+        return impl.asMap().keySet();
     }
 
     /**
@@ -63,7 +108,10 @@ public abstract class AbstractCache<T extends Referenceable> implements Cache<T>
      * @return True if the directory listing of this path is cached
      */
     public boolean containsKey(final T reference) {
-        return impl.containsKey(reference);
+        if(null == reference) {
+            return false;
+        }
+        return impl.asMap().containsKey(reference);
     }
 
     /**
@@ -73,7 +121,10 @@ public abstract class AbstractCache<T extends Referenceable> implements Cache<T>
      * @return The previously cached directory listing
      */
     public AttributedList<T> remove(final T reference) {
-        final AttributedList<T> removed = impl.remove(reference);
+        if(null == reference) {
+            return AttributedList.emptyList();
+        }
+        final AttributedList<T> removed = impl.asMap().remove(reference);
         if(null == removed) {
             // Not previously in cache
             return AttributedList.emptyList();
@@ -84,11 +135,12 @@ public abstract class AbstractCache<T extends Referenceable> implements Cache<T>
     /**
      * @param reference Absolute path
      * @return An empty list if no cached file listing is available
-     * @throws java.util.ConcurrentModificationException If the caller is iterating of the cache himself
-     *                                                   and requests a new filter here.
      */
     public AttributedList<T> get(final T reference) {
-        AttributedList<T> children = impl.get(reference);
+        if(null == reference) {
+            return AttributedList.emptyList();
+        }
+        final AttributedList<T> children = impl.getIfPresent(reference);
         if(null == children) {
             if(log.isDebugEnabled()) {
                 log.debug(String.format("No cache for %s", reference));
@@ -99,6 +151,8 @@ public abstract class AbstractCache<T extends Referenceable> implements Cache<T>
     }
 
     /**
+     * Listings modified after being cached must be put again to update their weight.
+     *
      * @param reference Reference to the path in cache.
      * @param children  Cached directory listing
      * @return Previous cached version
@@ -107,7 +161,32 @@ public abstract class AbstractCache<T extends Referenceable> implements Cache<T>
         if(log.isDebugEnabled()) {
             log.debug(String.format("Caching %s", reference));
         }
-        return impl.put(reference, children);
+        return impl.asMap().put(reference, children);
+    }
+
+    /**
+     * Concurrent callers for the same directory wait for a single listing to complete
+     *
+     * @param reference Reference to the path in cache.
+     * @param loader    Directory listing service
+     * @return Cached or loaded directory listing
+     */
+    @Override
+    public AttributedList<T> compute(final T reference, final Loader<T> loader) throws BackgroundException {
+        final AttributedList<T> cached = impl.getIfPresent(reference);
+        if(cached != null && cached.attributes().isInvalid()) {
+            // Remove only if not replaced in the meantime
+            impl.asMap().remove(reference, cached);
+        }
+        try {
+            return impl.get(reference, loader::load);
+        }
+        catch(ExecutionException | UncheckedExecutionException e) {
+            if(e.getCause() instanceof BackgroundException) {
+                throw (BackgroundException) e.getCause();
+            }
+            throw new DefaultExceptionMappingService().map(e.getCause());
+        }
     }
 
     /**
@@ -118,10 +197,14 @@ public abstract class AbstractCache<T extends Referenceable> implements Cache<T>
     }
 
     public boolean isValid(final T reference) {
-        if(this.isCached(reference)) {
-            return !this.get(reference).attributes().isInvalid();
+        if(null == reference) {
+            return false;
+        }
+        final AttributedList<T> children = impl.getIfPresent(reference);
+        if(null == children) {
+            return false;
         }
-        return false;
+        return !children.attributes().isInvalid();
     }
 
     /**
@@ -131,8 +214,12 @@ public abstract class AbstractCache<T extends Referenceable> implements Cache<T>
         if(log.isInfoEnabled()) {
             log.info(String.format("Invalidate %s", reference));
         }
-        if(this.containsKey(reference)) {
-            this.get(reference).attributes().setInvalid(true);
+        if(null == reference) {
+            return;
+        }
+        final AttributedList<T> children = impl.getIfPresent(reference);
+        if(children != null) {
+            children.attributes().setInvalid(true);
         }
         else {
             if(log.isDebugEnabled()) {
@@ -148,7 +235,7 @@ public abstract class AbstractCache<T extends Referenceable> implements Cache<T>
         if(log.isInfoEnabled()) {
             log.info(String.format("Clear cache %s", this));
         }
-        impl.clear();
+        impl.invalidateAll();
     }
 
     @Override
@@ -20,13 +20,16 @@ package ch.cyberduck.core;
 
 import org.apache.log4j.Logger;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
 import java.util.function.Predicate;
 
 /**
@@ -52,8 +55,25 @@ public class AttributedList<E extends Referenceable> implements Iterable<E> {
         }
     };
 
+    /**
+     * Key function to lookup elements by equality
+     */
+    private static final Function<Referenceable, Object> IDENTITY = e -> e;
+
+    /**
+     * Minimum number of elements to build an index for lookups instead of scanning the list
+     */
+    private static final int INDEX_THRESHOLD = 64;
+
     private final List<E> impl
-        = new CopyOnWriteArrayList<>();
+        = new SnapshotArrayList<>();
+
+    /**
+     * Elements by key for lookup with key function. Built on first lookup in lists with more elements than
+     * the threshold and dropped on any modification other than append.
+     */
+    private final Map<Function<E, ?>, Map<Object, List<E>>> indexes
+        = new HashMap<>();
 
     /**
      * Metadata of file listing
@@ -92,11 +112,19 @@ public class AttributedList<E extends Referenceable> implements Iterable<E> {
     }
 
     public boolean add(final E e) {
-        return impl.add(e);
+        synchronized(indexes) {
+            for(Map.Entry<Function<E, ?>, Map<Object, List<E>>> index : indexes.entrySet()) {
+                index.getValue().computeIfAbsent(index.getKey().apply(e), key -> new ArrayList<>(1)).add(e);
+            }
+            return impl.add(e);
+        }
     }
 
     public void add(final int index, final E e) {
-        impl.add(index, e);
+        synchronized(indexes) {
+            indexes.clear();
+            impl.add(index, e);
+        }
     }
 
     public boolean addAll(final Iterable<? extends E> c) {
@@ -110,16 +138,20 @@ public class AttributedList<E extends Referenceable> implements Iterable<E> {
         return impl.get(index);
     }
 
+    /**
+     * @param reference Element equal to the one to find
+     * @return Element in list equal to reference or null
+     */
+    @SuppressWarnings("unchecked")
     public E get(final E reference) {
-        final int index = impl.indexOf(reference);
-        if(-1 == index) {
-            return null;
-        }
-        return impl.get(index);
+        return this.find((Function<E, ?>) (Function) IDENTITY, reference, e -> true);
     }
 
     public void set(final int i, final E e) {
-        impl.set(i, e);
+        synchronized(indexes) {
+            indexes.clear();
+            impl.set(i, e);
+        }
     }
 
     @Override
@@ -128,13 +160,9 @@ public class AttributedList<E extends Referenceable> implements Iterable<E> {
     }
 
     /**
-     * The CopyOnWriteArrayList iterator does not support remove but the sort implementation
-     * makes use of it. Provide our own implementation here to circumvent.
-     *
      * @param copy       The list copy to sort
      * @param comparator The comparator to use
      * @see java.util.Collections#sort(java.util.List, java.util.Comparator)
-     * @see java.util.concurrent.CopyOnWriteArrayList#iterator()
      */
     private void doSort(final List<E> copy, final Comparator<E> comparator) {
         if(null == comparator) {
@@ -164,29 +192,32 @@ public class AttributedList<E extends Referenceable> implements Iterable<E> {
      * @return Filtered list sorted with comparator
      */
     public AttributedList<E> filter(final Comparator<E> comparator, final Filter<E> filter) {
-        final AttributedList<E> filtered = new AttributedList<>(impl);
+        final List<E> copy = new ArrayList<>(impl);
         if(null != comparator) {
-            this.doSort(filtered.impl, comparator);
+            this.doSort(copy, comparator);
         }
         if(null != filter) {
             if(log.isDebugEnabled()) {
                 log.debug(String.format("Filter list %s with filter %s", this, filter));
             }
-            filtered.impl.removeIf(new Predicate<E>() {
+            copy.removeIf(new Predicate<E>() {
                 @Override
                 public boolean test(final E e) {
                     return !filter.accept(e);
                 }
             });
         }
-        return filtered;
+        return new AttributedList<>(copy);
     }
 
     /**
      * Clear the list and all references.
      */
     public void clear() {
-        impl.clear();
+        synchronized(indexes) {
+            indexes.clear();
+            impl.clear();
+        }
     }
 
     public boolean isEmpty() {
@@ -206,13 +237,57 @@ public class AttributedList<E extends Referenceable> implements Iterable<E> {
         return optional.orElse(null);
     }
 
+    /**
+     * Lookup with index on key of elements instead of scanning the list. The index is built on first use for the
+     * key function which should therefore be a shared constant.
+     *
+     * @param key       Function to compute key of element
+     * @param value     Key of element to find
+     * @param predicate Predicate to match on elements with same key
+     * @return First element with key matching predicate or null
+     */
+    public E find(final Function<E, ?> key, final Object value, final Predicate<E> predicate) {
+        synchronized(indexes) {
+            Map<Object, List<E>> index = indexes.get(key);
+            if(null == index) {
+                if(impl.size() < INDEX_THRESHOLD) {
+                    // Not worth the memory of an index for small lists
+                    for(E e : impl) {
+                        if(Objects.equals(key.apply(e), value) && predicate.test(e)) {
+                            return e;
+                        }
+                    }
+                    return null;
+                }
+                index = new HashMap<>();
+                for(E e : impl) {
+                    index.computeIfAbsent(key.apply(e), k -> new ArrayList<>(1)).add(e);
+                }
+                indexes.put(key, index);
+            }
+            final List<E> candidates = index.get(value);
+            if(null == candidates) {
+                return null;
+            }
+            for(E e : candidates) {
+                if(predicate.test(e)) {
+                    return e;
+                }
+            }
+        }
+        return null;
+    }
+
     @SuppressWarnings("unchecked")
     public E[] toArray() {
         return (E[]) impl.toArray(new Referenceable[impl.size()]);
     }
 
+    /**
+     * @return Unmodifiable view of the list
+     */
     public List<E> toList() {
-        return impl;
+        return Collections.unmodifiableList(impl);
     }
 
     public int indexOf(final E e) {
@@ -220,15 +295,24 @@ public class AttributedList<E extends Referenceable> implements Iterable<E> {
     }
 
     public void remove(final int index) {
-        impl.remove(index);
+        synchronized(indexes) {
+            indexes.clear();
+            impl.remove(index);
+        }
     }
 
     public boolean remove(final E e) {
-        return impl.remove(e);
+        synchronized(indexes) {
+            indexes.clear();
+            return impl.remove(e);
+        }
     }
 
     public boolean removeAll(final java.util.Collection<E> e) {
-        return impl.removeAll(e);
+        synchronized(indexes) {
+            indexes.clear();
+            return impl.removeAll(e);
+        }
     }
 
     @Override
@@ -15,6 +15,8 @@ package ch.cyberduck.core;
  * GNU General Public License for more details.
  */
 
+import ch.cyberduck.core.exception.BackgroundException;
+
 import java.util.Set;
 
 public interface Cache<T extends Referenceable> {
@@ -80,4 +82,24 @@ public interface Cache<T extends Referenceable> {
     void clear();
 
     T lookup(CacheReference<T> reference);
+
+    /**
+     * Retrieve cached directory listing or load and cache if missing or invalid
+     *
+     * @param parent Directory
+     * @param loader Directory listing service
+     * @return Cached or loaded directory listing
+     */
+    default AttributedList<T> compute(final T parent, final Loader<T> loader) throws BackgroundException {
+        if(this.isValid(parent)) {
+            return this.get(parent);
+        }
+        final AttributedList<T> list = loader.load();
+        this.put(parent, list);
+        return list;
+    }
+
+    interface Loader<T extends Referenceable> {
+        AttributedList<T> load() throws BackgroundException;
+    }
 }
@@ -25,23 +25,81 @@ import org.apache.commons.lang3.StringUtils;
  */
 public class DefaultPathPredicate implements CacheReference<Path> {
 
-    private final String reference;
+    /**
+     * Properties the reference is computed from
+     */
+    private final Path.Type type;
+    private final String path;
+    private final String region;
+    private final String version;
+
+    /**
+     * Region is part of the reference for containers
+     */
+    private final boolean container;
+    /**
+     * Version is part of the reference for files
+     */
+    private final boolean versioned;
+
+    /**
+     * Hash code of the reference string. The string is not kept to not duplicate the path retained with
+     * every file.
+     */
+    private final int hash;
 
     public DefaultPathPredicate(final Path file) {
-        final Path.Type type = file.isSymbolicLink() ? Path.Type.symboliclink : file.isFile() ? Path.Type.file : Path.Type.directory;
+        type = file.isSymbolicLink() ? Path.Type.symboliclink : file.isFile() ? Path.Type.file : Path.Type.directory;
+        path = file.getAbsolute();
+        region = file.attributes().getRegion();
+        version = file.attributes().getVersionId();
+        container = StringUtils.isNotBlank(region) && new PathContainerService().isContainer(file);
+        versioned = file.isFile() && StringUtils.isNotBlank(version);
+        int h = hash(0, "[");
+        h = hash(h, type.toString());
+        h = hash(h, "]-");
+        if(container) {
+            h = hash(h, region);
+        }
+        if(versioned) {
+            h = hash(h, version);
+        }
+        hash = hash(h, path);
+    }
+
+    /**
+     * @return Hash code of the concatenation of the string with the value
+     * @see String#hashCode()
+     */
+    private static int hash(int h, final String value) {
+        for(int i = 0; i < value.length(); i++) {
+            h = 31 * h + value.charAt(i);
+        }
+        return h;
+    }
+
+    private String qualifier() {
         String qualifier = StringUtils.EMPTY;
-        if(StringUtils.isNotBlank(file.attributes().getRegion())) {
-            if(new PathContainerService().isContainer(file)) {
-                qualifier += file.attributes().getRegion();
-            }
+        if(container) {
+            qualifier += region;
         }
-        if(file.isFile()) {
-            if(StringUtils.isNotBlank(file.attributes().getVersionId())) {
-                qualifier += file.attributes().getVersionId();
-            }
+        if(versioned) {
+            qualifier += version;
         }
-        final String path = file.getAbsolute();
-        reference = "[" + type + "]" + "-" + qualifier + path;
+        return qualifier;
+    }
+
+    /**
+     * @param file File this reference was created for
+     * @return False if type, path, region or version of the file have changed since the reference was computed
+     */
+    protected boolean isCurrent(final Path file) {
+        final Path.Type type = file.isSymbolicLink() ? Path.Type.symboliclink : file.isFile() ? Path.Type.file : Path.Type.directory;
+        // Compare by identity as any setter replaces the value
+        return this.type == type
+            && this.path == file.getAbsolute()
+            && this.region == file.attributes().getRegion()
+            && this.version == file.attributes().getVersionId();
     }
 
     /**
@@ -51,7 +109,7 @@ public class DefaultPathPredicate implements CacheReference<Path> {
      */
     @Override
     public String toString() {
-        return reference;
+        return "[" + type + "]" + "-" + this.qualifier() + path;
     }
 
     @Override
@@ -67,11 +125,11 @@ public class DefaultPathPredicate implements CacheReference<Path> {
 
     @Override
     public int hashCode() {
-        return reference.hashCode();
+        return hash;
     }
 
     @Override
     public boolean test(final Path test) {
-        return this.hashCode() == new DefaultPathPredicate(test).hashCode();
+        return this.hashCode() == test.getReference().hashCode();
     }
 }
@@ -437,6 +437,23 @@ public class Local extends AbstractPath implements Referenceable, Serializable {
         }
     }
 
+    /**
+     * Open file for writing at the given position without truncating or appending. Used to write
+     * segments of a file concurrently.
+     *
+     * @param position Offset in file to start writing
+     */
+    public OutputStream getOutputStream(final long position) throws AccessDeniedException {
+        try {
+            final FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+            channel.position(position);
+            return Channels.newOutputStream(channel);
+        }
+        catch(IOException e) {
+            throw new LocalAccessDeniedException(e.getMessage(), e);
+        }
+    }
+
     public Object lock(final boolean interactive) throws AccessDeniedException {
         return null;
     }
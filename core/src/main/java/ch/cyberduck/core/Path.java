@@ -18,11 +18,15 @@ package ch.cyberduck.core;
  *  dkocher@cyberduck.ch
  */
 
+import ch.cyberduck.core.preferences.PreferencesFactory;
 import ch.cyberduck.core.serializer.Serializer;
 
 import java.util.EnumSet;
 import java.util.Objects;
 
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
 public class Path extends AbstractPath implements Referenceable, Serializable {
 
     /**
@@ -52,12 +56,18 @@ public class Path extends AbstractPath implements Referenceable, Serializable {
      */
     private PathAttributes attributes;
 
+    /**
+     * Cached identity used for equality and hash code
+     */
+    private volatile DefaultPathPredicate reference;
+
     public Path(final Path copy) {
         this.parent = copy.parent;
         this.path = copy.path;
         this.symlink = copy.symlink;
         this.type = EnumSet.copyOf(copy.type);
         this.attributes = new PathAttributes(copy.attributes);
+        this.reference = copy.reference;
     }
 
     /**
@@ -146,6 +156,9 @@ public class Path extends AbstractPath implements Referenceable, Serializable {
                 }
             }
         }
+        if(this.isDirectory()) {
+            this.path = Interning.intern(this.path);
+        }
     }
 
     @Override
@@ -235,13 +248,26 @@ public class Path extends AbstractPath implements Referenceable, Serializable {
         this.symlink = target;
     }
 
+    /**
+     * @return Identity of this path computed from type, absolute path, region and version. Only recomputed
+     * when any of these have changed.
+     */
+    public DefaultPathPredicate getReference() {
+        DefaultPathPredicate reference = this.reference;
+        if(null == reference || !reference.isCurrent(this)) {
+            reference = new DefaultPathPredicate(this);
+            this.reference = reference;
+        }
+        return reference;
+    }
+
     /**
      * @return The hashcode of #getAbsolute()
      * @see #getAbsolute()
      */
     @Override
     public int hashCode() {
-        return new DefaultPathPredicate(this).hashCode();
+        return this.getReference().hashCode();
     }
 
     /**
@@ -254,7 +280,7 @@ public class Path extends AbstractPath implements Referenceable, Serializable {
             return false;
         }
         if(other instanceof Path) {
-            return new DefaultPathPredicate(this).equals(new DefaultPathPredicate((Path) other));
+            return this.getReference().equals(((Path) other).getReference());
         }
         return false;
     }
@@ -299,4 +325,19 @@ public class Path extends AbstractPath implements Referenceable, Serializable {
         }
         return false;
     }
+
+    /**
+     * Share absolute path strings of directories among all instances referencing the same parent
+     */
+    private static final class Interning {
+        private static final boolean enabled = PreferencesFactory.get().getBoolean("path.intern");
+        private static final Interner<String> interner = Interners.newWeakInterner();
+
+        private static String intern(final String path) {
+            if(enabled) {
+                return interner.intern(path);
+            }
+            return path;
+        }
+    }
 }
@@ -34,8 +34,16 @@ public class PathCache extends AbstractCache<Path> {
         super(size);
     }
 
+    /**
+     * @param size   Maximum number of directory listings. Ignored unless 0 if weight is not negative.
+     * @param weight Maximum number of files in all directory listings
+     */
+    public PathCache(final int size, final long weight) {
+        super(size, weight);
+    }
+
     @Override
     public CacheReference key(final Path file) {
-        return new DefaultPathPredicate(file);
+        return file.getReference();
     }
 }
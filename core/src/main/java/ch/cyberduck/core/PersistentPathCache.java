@@ -0,0 +1,594 @@
+package ch.cyberduck.core;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.exception.AccessDeniedException;
+import ch.cyberduck.core.exception.NotfoundException;
+import ch.cyberduck.core.preferences.SupportDirectoryFinderFactory;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.log4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Directory listings of a host saved to disk to be reused by later sessions. Listings are appended to a log file
+ * that is compacted when loaded. Each listing is saved with a token of the directory attributes when listed, either
+ * the ETag or the modification date, to revalidate the listing with a single request for the attributes of the
+ * directory. Files are saved with their attributes that must be revalidated by the caller before use.
+ * <p>
+ * All operations hold a lock on a separate lock file to share the log with other processes using the same support
+ * directory. The index of records is read again when the log was replaced or appended by another process.
+ */
+public class PersistentPathCache implements Cache<Path> {
+    private static final Logger log = Logger.getLogger(PersistentPathCache.class);
+
+    private static final Map<String, PersistentPathCache> caches
+        = new ConcurrentHashMap<String, PersistentPathCache>();
+
+    /**
+     * @param host Connection
+     * @return Shared cache for all connections to the same host
+     */
+    public static PersistentPathCache get(final Host host) {
+        final String url = new HostUrlProvider().withUsername(true).get(host);
+        return caches.computeIfAbsent(url, key -> new PersistentPathCache(LocalFactory.get(
+            LocalFactory.get(SupportDirectoryFinderFactory.get().find(), "Listings"), String.format("%s.listing", DigestUtils.md5Hex(key)))));
+    }
+
+    /**
+     * Marks record of removed listing
+     */
+    private static final int TOMBSTONE = -1;
+
+    private final Local file;
+    private final Local lock;
+
+    /**
+     * Location of latest record by directory
+     */
+    private final Map<String, Record> index = new LinkedHashMap<String, Record>();
+
+    /**
+     * File key of log when indexed
+     */
+    private Object key;
+    /**
+     * Length of log indexed or -1 if index must be read again
+     */
+    private long length = -1L;
+
+    public PersistentPathCache(final Local file) {
+        this.file = file;
+        this.lock = LocalFactory.get(file.getParent(), String.format("%s.lock", file.getName()));
+    }
+
+    /**
+     * @param attributes Attributes of directory
+     * @return ETag or modification date or null if neither is available
+     */
+    public static String token(final PathAttributes attributes) {
+        if(StringUtils.isNotBlank(attributes.getETag())) {
+            return attributes.getETag();
+        }
+        if(attributes.getModificationDate() > 0) {
+            return String.valueOf(attributes.getModificationDate());
+        }
+        return null;
+    }
+
+    /**
+     * @param directory Directory
+     * @param current   Current attributes of directory
+     * @return Saved listing if directory is unchanged since listed or null
+     */
+    public synchronized AttributedList<Path> revalidate(final Path directory, final PathAttributes current) {
+        final String token = token(current);
+        if(null == token) {
+            return null;
+        }
+        try {
+            return this.locked(true, () -> {
+                final Record record = index.get(directory.getAbsolute());
+                if(null == record || !token.equals(record.token)) {
+                    if(log.isDebugEnabled()) {
+                        log.debug(String.format("No valid saved listing for %s", directory));
+                    }
+                    return null;
+                }
+                return this.read(directory, record);
+            });
+        }
+        catch(IOException e) {
+            log.warn(String.format("Failure reading saved listing of %s from %s. %s", directory, file, e.getMessage()));
+            return null;
+        }
+    }
+
+    @Override
+    public CacheReference key(final Path object) {
+        return object.getReference();
+    }
+
+    @Override
+    public synchronized boolean isCached(final Path parent) {
+        try {
+            return this.locked(true, () -> index.containsKey(parent.getAbsolute()));
+        }
+        catch(IOException e) {
+            log.warn(String.format("Failure reading saved listings %s. %s", file, e.getMessage()));
+            return false;
+        }
+    }
+
+    @Override
+    public synchronized boolean isEmpty() {
+        try {
+            return this.locked(true, index::isEmpty);
+        }
+        catch(IOException e) {
+            log.warn(String.format("Failure reading saved listings %s. %s", file, e.getMessage()));
+            return true;
+        }
+    }
+
+    @Override
+    public boolean isValid(final Path item) {
+        return this.isCached(item);
+    }
+
+    /**
+     * @param parent   Directory with attributes when listed
+     * @param children Folder listing
+     * @return Previously saved listing
+     */
+    @Override
+    public synchronized AttributedList<Path> put(final Path parent, final AttributedList<Path> children) {
+        final AttributedList<Path> previous = this.get(parent);
+        final String token = token(parent.attributes());
+        if(null == token) {
+            // Cannot revalidate later
+            this.remove(parent);
+            return previous;
+        }
+        this.append(parent, token, children);
+        return previous;
+    }
+
+    @Override
+    public synchronized AttributedList<Path> get(final Path parent) {
+        try {
+            final AttributedList<Path> list = this.locked(true, () -> {
+                final Record record = index.get(parent.getAbsolute());
+                if(null == record) {
+                    return null;
+                }
+                return this.read(parent, record);
+            });
+            if(null == list) {
+                return AttributedList.emptyList();
+            }
+            return list;
+        }
+        catch(IOException e) {
+            log.warn(String.format("Failure reading saved listing of %s from %s. %s", parent, file, e.getMessage()));
+            return AttributedList.emptyList();
+        }
+    }
+
+    @Override
+    public synchronized AttributedList<Path> remove(final Path parent) {
+        final AttributedList<Path> previous = this.get(parent);
+        if(this.isCached(parent)) {
+            this.append(parent, StringUtils.EMPTY, null);
+        }
+        return previous;
+    }
+
+    @Override
+    public synchronized Set<Path> keySet() {
+        try {
+            return this.locked(true, () -> {
+                final Set<Path> directories = new HashSet<Path>();
+                for(Map.Entry<String, Record> entry : index.entrySet()) {
+                    directories.add(new Path(entry.getKey(), entry.getValue().type));
+                }
+                return directories;
+            });
+        }
+        catch(IOException e) {
+            log.warn(String.format("Failure reading saved listings %s. %s", file, e.getMessage()));
+            return new HashSet<Path>();
+        }
+    }
+
+    @Override
+    public void invalidate(final Path parent) {
+        this.remove(parent);
+    }
+
+    @Override
+    public synchronized void clear() {
+        try {
+            this.locked(false, () -> {
+                if(file.exists()) {
+                    try (FileChannel channel = FileChannel.open(Paths.get(file.getAbsolute()), StandardOpenOption.WRITE)) {
+                        channel.truncate(0L);
+                    }
+                }
+                index.clear();
+                length = 0L;
+                return null;
+            });
+        }
+        catch(IOException e) {
+            log.warn(String.format("Failure truncating saved listings %s. %s", file, e.getMessage()));
+        }
+    }
+
+    @Override
+    public Path lookup(final CacheReference<Path> reference) {
+        return null;
+    }
+
+    /**
+     * Run operation with index up to date while holding lock on lock file
+     *
+     * @param shared False for operations writing to the log
+     */
+    private <R> R locked(final boolean shared, final Operation<R> operation) throws IOException {
+        try {
+            file.getParent().mkdir();
+        }
+        catch(AccessDeniedException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        try (FileChannel channel = FileChannel.open(Paths.get(lock.getAbsolute()),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+             FileLock l = channel.lock(0L, Long.MAX_VALUE, shared)) {
+            this.refresh(!shared);
+            return operation.run();
+        }
+    }
+
+    /**
+     * Read records appended since indexed or read all records if the log was replaced
+     *
+     * @param exclusive Lock held allows to truncate incomplete records and compact log
+     */
+    private void refresh(final boolean exclusive) throws IOException {
+        final BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(Paths.get(file.getAbsolute()), BasicFileAttributes.class);
+        }
+        catch(NoSuchFileException e) {
+            index.clear();
+            key = null;
+            length = 0L;
+            return;
+        }
+        if(length == attributes.size() && Objects.equals(key, attributes.fileKey())) {
+            return;
+        }
+        final boolean reload = length < 0L || attributes.size() < length || !Objects.equals(key, attributes.fileKey());
+        if(reload) {
+            if(log.isDebugEnabled()) {
+                log.debug(String.format("Read index of saved listings %s", file));
+            }
+            index.clear();
+            length = 0L;
+        }
+        final int records;
+        try (FileChannel channel = exclusive ?
+            FileChannel.open(Paths.get(file.getAbsolute()), StandardOpenOption.READ, StandardOpenOption.WRITE) :
+            FileChannel.open(Paths.get(file.getAbsolute()), StandardOpenOption.READ)) {
+            records = this.scan(channel, exclusive);
+        }
+        key = attributes.fileKey();
+        if(reload && exclusive && records > 2 * index.size() + 100) {
+            // Drop obsolete records
+            this.compact();
+        }
+    }
+
+    /**
+     * Read index of records in log after indexed length
+     *
+     * @param channel   Log file
+     * @param exclusive Truncate incomplete record
+     * @return Number of records found
+     */
+    private int scan(final FileChannel channel, final boolean exclusive) throws IOException {
+        final long size = channel.size();
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel.position(length))));
+        int records = 0;
+        long offset = length;
+        while(offset < size) {
+            final int length;
+            final byte[] payload;
+            try {
+                length = in.readInt();
+                if(length <= 0 || length > size - offset - Integer.BYTES) {
+                    throw new EOFException();
+                }
+                payload = new byte[length];
+                in.readFully(payload);
+            }
+            catch(EOFException e) {
+                if(exclusive) {
+                    log.warn(String.format("Truncate incomplete record at offset %d in %s", offset, file));
+                    channel.truncate(offset);
+                }
+                break;
+            }
+            final DataInputStream record = new DataInputStream(new ByteArrayInputStream(payload));
+            final String directory = record.readUTF();
+            final EnumSet<Path.Type> type = this.toType(record.readInt());
+            final String token = record.readUTF();
+            final int count = record.readInt();
+            if(TOMBSTONE == count) {
+                index.remove(directory);
+            }
+            else {
+                index.put(directory, new Record(offset + Integer.BYTES, length, type, token));
+            }
+            offset += Integer.BYTES + length;
+            records++;
+        }
+        this.length = offset;
+        return records;
+    }
+
+    /**
+     * Replace log with latest records only. Must hold exclusive lock.
+     */
+    private void compact() throws IOException {
+        final Local temporary = LocalFactory.get(file.getParent(), String.format("%s.tmp", file.getName()));
+        final Map<String, Record> compacted = new LinkedHashMap<String, Record>();
+        long position = 0L;
+        try (FileChannel in = FileChannel.open(Paths.get(file.getAbsolute()), StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(Paths.get(temporary.getAbsolute()), StandardOpenOption.CREATE,
+                 StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for(Map.Entry<String, Record> entry : index.entrySet()) {
+                final Record record = entry.getValue();
+                final ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + record.length);
+                buffer.putInt(record.length);
+                buffer.put(this.read(in, record));
+                buffer.flip();
+                while(buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                compacted.put(entry.getKey(), new Record(position + Integer.BYTES, record.length, record.type, record.token));
+                position += Integer.BYTES + record.length;
+            }
+        }
+        try {
+            temporary.rename(file);
+            index.clear();
+            index.putAll(compacted);
+            length = position;
+            key = Files.readAttributes(Paths.get(file.getAbsolute()), BasicFileAttributes.class).fileKey();
+        }
+        catch(AccessDeniedException e) {
+            log.warn(String.format("Failure replacing saved listings %s. %s", file, e.getMessage()));
+            try {
+                temporary.delete();
+            }
+            catch(AccessDeniedException | NotfoundException f) {
+                log.warn(String.format("Failure deleting %s. %s", temporary, f.getMessage()));
+            }
+        }
+    }
+
+    /**
+     * @param children Null to mark listing as removed
+     */
+    private void append(final Path directory, final String token, final AttributedList<Path> children) {
+        try {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            final DataOutputStream out = new DataOutputStream(bytes);
+            out.writeUTF(directory.getAbsolute());
+            out.writeInt(this.toBits(directory.getType()));
+            out.writeUTF(token);
+            if(null == children) {
+                out.writeInt(TOMBSTONE);
+            }
+            else {
+                final Path[] files = children.toArray();
+                out.writeInt(files.length);
+                for(Path f : files) {
+                    out.writeUTF(f.getName());
+                    out.writeInt(this.toBits(f.getType()));
+                    final Path target = f.isSymbolicLink() ? f.getSymlinkTarget() : null;
+                    out.writeUTF(null == target ? StringUtils.EMPTY : target.getAbsolute());
+                    out.writeInt(null == target ? 0 : this.toBits(target.getType()));
+                    final PathAttributes attributes = f.attributes();
+                    out.writeLong(attributes.getSize());
+                    out.writeLong(attributes.getModificationDate());
+                    out.writeLong(attributes.getCreationDate());
+                    out.writeUTF(StringUtils.defaultString(attributes.getETag()));
+                    out.writeUTF(StringUtils.defaultString(attributes.getVersionId()));
+                    out.writeUTF(StringUtils.defaultString(attributes.getRegion()));
+                    out.writeUTF(Permission.EMPTY == attributes.getPermission() ? StringUtils.EMPTY : attributes.getPermission().getMode());
+                    out.writeUTF(StringUtils.defaultString(attributes.getOwner()));
+                    out.writeUTF(StringUtils.defaultString(attributes.getGroup()));
+                }
+            }
+            out.flush();
+            this.locked(false, () -> {
+                try (FileChannel channel = FileChannel.open(Paths.get(file.getAbsolute()),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                    final long position = channel.size();
+                    final ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + bytes.size());
+                    buffer.putInt(bytes.size());
+                    buffer.put(bytes.toByteArray());
+                    buffer.flip();
+                    long offset = position;
+                    while(buffer.hasRemaining()) {
+                        offset += channel.write(buffer, offset);
+                    }
+                    if(null == children) {
+                        index.remove(directory.getAbsolute());
+                    }
+                    else {
+                        index.put(directory.getAbsolute(), new Record(position + Integer.BYTES, bytes.size(), directory.getType(), token));
+                    }
+                    length = offset;
+                }
+                key = Files.readAttributes(Paths.get(file.getAbsolute()), BasicFileAttributes.class).fileKey();
+                return null;
+            });
+        }
+        catch(IOException e) {
+            log.warn(String.format("Failure saving listing of %s to %s. %s", directory, file, e.getMessage()));
+        }
+    }
+
+    /**
+     * Must hold lock
+     *
+     * @return Null if record is not for directory
+     */
+    private AttributedList<Path> read(final Path directory, final Record record) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(file.getAbsolute()), StandardOpenOption.READ)) {
+            final DataInputStream in = new DataInputStream(new ByteArrayInputStream(this.read(channel, record).array()));
+            if(!directory.getAbsolute().equals(in.readUTF())) {
+                log.warn(String.format("Mismatch of saved listing for %s in %s", directory, file));
+                // Read index again
+                length = -1L;
+                return null;
+            }
+            // Skip header
+            in.readInt();
+            in.readUTF();
+            final int count = in.readInt();
+            final AttributedList<Path> children = new AttributedList<Path>();
+            for(int i = 0; i < count; i++) {
+                final Path child = new Path(directory, in.readUTF(), this.toType(in.readInt()));
+                final String target = in.readUTF();
+                final EnumSet<Path.Type> type = this.toType(in.readInt());
+                if(StringUtils.isNotEmpty(target)) {
+                    child.setSymlinkTarget(new Path(target, type));
+                }
+                final PathAttributes attributes = child.attributes();
+                attributes.setSize(in.readLong());
+                attributes.setModificationDate(in.readLong());
+                attributes.setCreationDate(in.readLong());
+                attributes.setETag(StringUtils.trimToNull(in.readUTF()));
+                attributes.setVersionId(StringUtils.trimToNull(in.readUTF()));
+                attributes.setRegion(StringUtils.trimToNull(in.readUTF()));
+                final String mode = in.readUTF();
+                if(StringUtils.isNotEmpty(mode)) {
+                    attributes.setPermission(new Permission(mode));
+                }
+                attributes.setOwner(StringUtils.trimToNull(in.readUTF()));
+                attributes.setGroup(StringUtils.trimToNull(in.readUTF()));
+                children.add(child);
+            }
+            if(log.isDebugEnabled()) {
+                log.debug(String.format("Read saved listing of %s with %d files", directory, count));
+            }
+            return children;
+        }
+    }
+
+    /**
+     * @return Payload of record
+     */
+    private ByteBuffer read(final FileChannel channel, final Record record) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(record.length);
+        long position = record.offset;
+        while(buffer.hasRemaining()) {
+            final int read = channel.read(buffer, position);
+            if(-1 == read) {
+                throw new EOFException(String.format("Unexpected end of file reading record at offset %d", record.offset));
+            }
+            position += read;
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private interface Operation<R> {
+        R run() throws IOException;
+    }
+
+    private int toBits(final EnumSet<Path.Type> type) {
+        int bits = 0;
+        for(Path.Type t : type) {
+            bits |= 1 << t.ordinal();
+        }
+        return bits;
+    }
+
+    private EnumSet<Path.Type> toType(final int bits) {
+        final EnumSet<Path.Type> type = EnumSet.noneOf(Path.Type.class);
+        for(Path.Type t : Path.Type.values()) {
+            if((bits & 1 << t.ordinal()) != 0) {
+                type.add(t);
+            }
+        }
+        return type;
+    }
+
+    private static final class Record {
+        /**
+         * Position of payload in file
+         */
+        private final long offset;
+        private final int length;
+        private final EnumSet<Path.Type> type;
+        private final String token;
+
+        private Record(final long offset, final int length, final EnumSet<Path.Type> type, final String token) {
+            this.offset = offset;
+            this.length = length;
+            this.type = type;
+            this.token = token;
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("PersistentPathCache{");
+        sb.append("file=").append(file);
+        sb.append('}');
+        return sb.toString();
+    }
+}
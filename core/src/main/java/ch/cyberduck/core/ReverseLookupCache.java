@@ -15,6 +15,8 @@ package ch.cyberduck.core;
  * GNU General Public License for more details.
  */
 
+import ch.cyberduck.core.exception.BackgroundException;
+
 import org.apache.log4j.Logger;
 
 import java.util.Collections;
@@ -78,6 +80,17 @@ public class ReverseLookupCache<T extends Referenceable> implements Cache<T> {
         return proxy.get(parent);
     }
 
+    @Override
+    public AttributedList<T> compute(final T parent, final Loader<T> loader) throws BackgroundException {
+        return proxy.compute(parent, () -> {
+            final AttributedList<T> children = loader.load();
+            for(T f : children) {
+                reverse.put(proxy.key(f), parent);
+            }
+            return children;
+        });
+    }
+
     /**
      * Lookup a path by reference in the cache.
      *
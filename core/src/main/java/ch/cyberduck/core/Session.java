@@ -35,6 +35,7 @@ import ch.cyberduck.core.features.Write;
 import ch.cyberduck.core.preferences.Preferences;
 import ch.cyberduck.core.preferences.PreferencesFactory;
 import ch.cyberduck.core.proxy.Proxy;
+import ch.cyberduck.core.shared.CoalescingListService;
 import ch.cyberduck.core.shared.DefaultAttributesFinderFeature;
 import ch.cyberduck.core.shared.DefaultCopyFeature;
 import ch.cyberduck.core.shared.DefaultDownloadFeature;
@@ -47,6 +48,8 @@ import ch.cyberduck.core.shared.DisabledBulkFeature;
 import ch.cyberduck.core.shared.DisabledMoveFeature;
 import ch.cyberduck.core.shared.DisabledQuotaFeature;
 import ch.cyberduck.core.shared.NullFileidProvider;
+import ch.cyberduck.core.shared.ParallelRangeReadFeature;
+import ch.cyberduck.core.shared.PersistentCacheListService;
 import ch.cyberduck.core.threading.CancelCallback;
 import ch.cyberduck.core.vault.VaultRegistry;
 
@@ -281,7 +284,23 @@ public abstract class Session<C> implements TranscriptListener {
     @SuppressWarnings("unchecked")
     public <T> T getFeature(final Class<T> type) {
         metrics.increment(type);
-        return this.getFeature(type, this._getFeature(type));
+        final T feature = this.getFeature(type, this._getFeature(type));
+        if(type == ListService.class) {
+            if(null == feature) {
+                return null;
+            }
+            ListService list = (ListService) feature;
+            if(PreferencesFactory.get().getBoolean("connection.list.coalesce")) {
+                // Share listings of the same directory with other connections to this host
+                list = new CoalescingListService(host, list);
+            }
+            if(PreferencesFactory.get().getBoolean("browser.cache.persistent")) {
+                // Reuse listings of unchanged directories from previous sessions
+                list = new PersistentCacheListService(this, list, registry);
+            }
+            return (T) list;
+        }
+        return feature;
     }
 
     /**
@@ -308,7 +327,7 @@ public abstract class Session<C> implements TranscriptListener {
             return (T) new DefaultUploadFeature(this.getFeature(Write.class));
         }
         if(type == Download.class) {
-            return (T) new DefaultDownloadFeature(this.getFeature(Read.class));
+            return (T) new DefaultDownloadFeature(new ParallelRangeReadFeature(this, this.getFeature(Read.class)));
         }
         if(type == Bulk.class) {
             return (T) new DisabledBulkFeature();
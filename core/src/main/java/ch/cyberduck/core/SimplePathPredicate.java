@@ -23,11 +23,13 @@ public class SimplePathPredicate implements CacheReference<Path> {
 
     private final Path.Type type;
     private final String path;
+    private final int hash;
 
     public SimplePathPredicate(final Path file) {
         this.file = file;
         this.type = file.isSymbolicLink() ? Path.Type.symboliclink : file.isFile() ? Path.Type.file : Path.Type.directory;
         this.path = file.getAbsolute();
+        this.hash = Objects.hash(type, path);
     }
 
     @Override
@@ -43,7 +45,7 @@ public class SimplePathPredicate implements CacheReference<Path> {
 
     @Override
     public int hashCode() {
-        return Objects.hash(type, path);
+        return hash;
     }
 
     @Override
@@ -0,0 +1,261 @@
+package ch.cyberduck.core;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.function.Predicate;
+
+/**
+ * Thread safe list with amortized constant time appends. Appends write to unused capacity of the backing array
+ * in place while all other modifications copy the array. Readers and iterators work on a snapshot of the array
+ * and size and are never affected by concurrent modifications.
+ */
+final class SnapshotArrayList<E> extends AbstractList<E> implements RandomAccess {
+
+    private static final Object[] EMPTY = new Object[0];
+
+    private final Object lock = new Object();
+
+    private volatile Snapshot state = new Snapshot(EMPTY, 0);
+
+    /**
+     * Elements below size are never modified in place
+     */
+    private static final class Snapshot {
+        private final Object[] elements;
+        private final int size;
+
+        private Snapshot(final Object[] elements, final int size) {
+            this.elements = elements;
+            this.size = size;
+        }
+    }
+
+    @Override
+    public boolean add(final E e) {
+        synchronized(lock) {
+            Object[] elements = state.elements;
+            final int size = state.size;
+            if(size == elements.length) {
+                elements = Arrays.copyOf(elements, Math.max(10, size + (size >> 1)));
+            }
+            elements[size] = e;
+            state = new Snapshot(elements, size + 1);
+            return true;
+        }
+    }
+
+    @Override
+    public void add(final int index, final E e) {
+        synchronized(lock) {
+            final Snapshot current = state;
+            if(index < 0 || index > current.size) {
+                throw new IndexOutOfBoundsException(String.format("Index %d for size %d", index, current.size));
+            }
+            final Object[] elements = new Object[current.size + 1];
+            System.arraycopy(current.elements, 0, elements, 0, index);
+            elements[index] = e;
+            System.arraycopy(current.elements, index, elements, index + 1, current.size - index);
+            state = new Snapshot(elements, elements.length);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(final int index) {
+        final Snapshot current = state;
+        if(index < 0 || index >= current.size) {
+            throw new IndexOutOfBoundsException(String.format("Index %d for size %d", index, current.size));
+        }
+        return (E) current.elements[index];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E set(final int index, final E e) {
+        synchronized(lock) {
+            final Snapshot current = state;
+            if(index < 0 || index >= current.size) {
+                throw new IndexOutOfBoundsException(String.format("Index %d for size %d", index, current.size));
+            }
+            final Object[] elements = Arrays.copyOf(current.elements, current.size);
+            final E previous = (E) elements[index];
+            elements[index] = e;
+            state = new Snapshot(elements, elements.length);
+            return previous;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E remove(final int index) {
+        synchronized(lock) {
+            final Snapshot current = state;
+            if(index < 0 || index >= current.size) {
+                throw new IndexOutOfBoundsException(String.format("Index %d for size %d", index, current.size));
+            }
+            final Object[] elements = new Object[current.size - 1];
+            System.arraycopy(current.elements, 0, elements, 0, index);
+            System.arraycopy(current.elements, index + 1, elements, index, current.size - index - 1);
+            state = new Snapshot(elements, elements.length);
+            return (E) current.elements[index];
+        }
+    }
+
+    @Override
+    public boolean remove(final Object o) {
+        synchronized(lock) {
+            final int index = this.indexOf(o);
+            if(-1 == index) {
+                return false;
+            }
+            this.remove(index);
+            return true;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean removeIf(final Predicate<? super E> filter) {
+        synchronized(lock) {
+            final Snapshot current = state;
+            final Object[] elements = new Object[current.size];
+            int size = 0;
+            for(int i = 0; i < current.size; i++) {
+                if(!filter.test((E) current.elements[i])) {
+                    elements[size++] = current.elements[i];
+                }
+            }
+            if(size == current.size) {
+                return false;
+            }
+            state = new Snapshot(Arrays.copyOf(elements, size), size);
+            return true;
+        }
+    }
+
+    @Override
+    public boolean removeAll(final Collection<?> c) {
+        return this.removeIf(c::contains);
+    }
+
+    @Override
+    public boolean retainAll(final Collection<?> c) {
+        return this.removeIf(e -> !c.contains(e));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void sort(final Comparator<? super E> comparator) {
+        synchronized(lock) {
+            final Snapshot current = state;
+            final Object[] elements = Arrays.copyOf(current.elements, current.size);
+            Arrays.sort((E[]) elements, comparator);
+            state = new Snapshot(elements, elements.length);
+        }
+    }
+
+    @Override
+    public void clear() {
+        synchronized(lock) {
+            state = new Snapshot(EMPTY, 0);
+        }
+    }
+
+    @Override
+    public int size() {
+        return state.size;
+    }
+
+    @Override
+    public int indexOf(final Object o) {
+        final Snapshot current = state;
+        for(int i = 0; i < current.size; i++) {
+            if(Objects.equals(o, current.elements[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int lastIndexOf(final Object o) {
+        final Snapshot current = state;
+        for(int i = current.size - 1; i >= 0; i--) {
+            if(Objects.equals(o, current.elements[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean contains(final Object o) {
+        return this.indexOf(o) != -1;
+    }
+
+    @Override
+    public Object[] toArray() {
+        final Snapshot current = state;
+        return Arrays.copyOf(current.elements, current.size);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T[] toArray(final T[] a) {
+        final Snapshot current = state;
+        if(a.length < current.size) {
+            return (T[]) Arrays.copyOf(current.elements, current.size, a.getClass());
+        }
+        System.arraycopy(current.elements, 0, a, 0, current.size);
+        if(a.length > current.size) {
+            a[current.size] = null;
+        }
+        return a;
+    }
+
+    /**
+     * @return Iterator on snapshot of list not supporting removal
+     */
+    @Override
+    public Iterator<E> iterator() {
+        final Snapshot current = state;
+        return new Iterator<E>() {
+            private int cursor;
+
+            @Override
+            public boolean hasNext() {
+                return cursor < current.size;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public E next() {
+                if(cursor >= current.size) {
+                    throw new NoSuchElementException();
+                }
+                return (E) current.elements[cursor++];
+            }
+        };
+    }
+}
@@ -0,0 +1,288 @@
+package ch.cyberduck.core;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.exception.AccessDeniedException;
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.exception.NotfoundException;
+import ch.cyberduck.core.local.TemporaryFileServiceFactory;
+import ch.cyberduck.core.serializer.TransferItemDictionary;
+import ch.cyberduck.core.transfer.TransferItem;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.dd.plist.BinaryPropertyListParser;
+import com.dd.plist.BinaryPropertyListWriter;
+import com.dd.plist.NSArray;
+import com.dd.plist.NSDictionary;
+import com.dd.plist.NSObject;
+import com.dd.plist.PropertyListFormatException;
+
+/**
+ * Keeps a bounded number of directory listings on the heap and writes least recently used listings
+ * to temporary files as binary property lists.
+ */
+public class SpillingTransferItemCache extends AbstractCache<TransferItem> {
+    private static final Logger log = Logger.getLogger(SpillingTransferItemCache.class);
+
+    /**
+     * Directory listings evicted from memory but not yet written to disk
+     */
+    private final Map<TransferItem, AttributedList<TransferItem>> pending
+        = new ConcurrentHashMap<TransferItem, AttributedList<TransferItem>>();
+    /**
+     * Directory listings evicted from memory
+     */
+    private final Map<TransferItem, Local> disk
+        = new ConcurrentHashMap<TransferItem, Local>();
+
+    /**
+     * @param size Maximum number of directory listings kept in memory
+     */
+    public SpillingTransferItemCache(final int size) {
+        super(size);
+    }
+
+    @Override
+    public CacheReference key(final TransferItem object) {
+        return object.remote.getReference();
+    }
+
+    @Override
+    protected void evicted(final TransferItem parent, final AttributedList<TransferItem> children) {
+        // Only remember here and write to disk after the modification of the cache has completed
+        pending.put(parent, children);
+    }
+
+    @Override
+    public boolean isCached(final TransferItem parent) {
+        return super.isCached(parent) || pending.containsKey(parent) || disk.containsKey(parent);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return super.isEmpty() && pending.isEmpty() && disk.isEmpty();
+    }
+
+    @Override
+    public boolean isValid(final TransferItem item) {
+        if(this.isCached(item)) {
+            return !this.get(item).attributes().isInvalid();
+        }
+        return false;
+    }
+
+    @Override
+    public AttributedList<TransferItem> put(final TransferItem parent, final AttributedList<TransferItem> children) {
+        final AttributedList<TransferItem> previous = this.remove(parent);
+        super.put(parent, children);
+        this.spill();
+        return previous;
+    }
+
+    @Override
+    public AttributedList<TransferItem> compute(final TransferItem parent, final Loader<TransferItem> loader) throws BackgroundException {
+        if(this.isValid(parent)) {
+            return this.get(parent);
+        }
+        final AttributedList<TransferItem> list = loader.load();
+        this.put(parent, list);
+        return list;
+    }
+
+    @Override
+    public AttributedList<TransferItem> get(final TransferItem parent) {
+        final AttributedList<TransferItem> children = super.get(parent);
+        if(children != AttributedList.<TransferItem>emptyList() || super.isCached(parent)) {
+            return children;
+        }
+        final AttributedList<TransferItem> evicted = pending.get(parent);
+        if(evicted != null) {
+            return evicted;
+        }
+        final Local file = disk.get(parent);
+        if(null == file) {
+            if(log.isDebugEnabled()) {
+                log.debug(String.format("No cache for %s", parent));
+            }
+            return AttributedList.emptyList();
+        }
+        return this.read(file);
+    }
+
+    @Override
+    public AttributedList<TransferItem> remove(final TransferItem parent) {
+        final AttributedList<TransferItem> removed = super.remove(parent);
+        if(removed != AttributedList.<TransferItem>emptyList()) {
+            return removed;
+        }
+        final AttributedList<TransferItem> evicted = pending.remove(parent);
+        if(evicted != null) {
+            return evicted;
+        }
+        final Local file = disk.remove(parent);
+        if(null == file) {
+            // Not previously in cache
+            return AttributedList.emptyList();
+        }
+        final AttributedList<TransferItem> list = this.read(file);
+        this.delete(file);
+        return list;
+    }
+
+    @Override
+    public Set<TransferItem> keySet() {
+        final Set<TransferItem> keys = new HashSet<TransferItem>(disk.keySet());
+        keys.addAll(pending.keySet());
+        keys.addAll(super.keySet());
+        return keys;
+    }
+
+    @Override
+    public void invalidate(final TransferItem parent) {
+        // Listings on disk are removed as the invalid flag is not persisted
+        final Local file = disk.remove(parent);
+        if(file != null) {
+            this.delete(file);
+        }
+        final AttributedList<TransferItem> evicted = pending.get(parent);
+        if(evicted != null) {
+            evicted.attributes().setInvalid(true);
+        }
+        super.invalidate(parent);
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        pending.clear();
+        for(Local file : disk.values()) {
+            this.delete(file);
+        }
+        disk.clear();
+    }
+
+    /**
+     * Write directory listings evicted from memory to disk
+     */
+    private void spill() {
+        for(TransferItem parent : pending.keySet()) {
+            final AttributedList<TransferItem> children = pending.get(parent);
+            if(null == children) {
+                // Written by concurrent caller or removed
+                continue;
+            }
+            final Local file = this.write(parent, children);
+            if(null == file) {
+                // Keep in memory if writing to disk fails
+                continue;
+            }
+            if(pending.remove(parent, children)) {
+                disk.put(parent, file);
+            }
+            else {
+                // Removed or replaced in the meantime
+                this.delete(file);
+            }
+        }
+    }
+
+    /**
+     * Write evicted directory listing to temporary file
+     *
+     * @return Null if listing could not be written
+     */
+    private Local write(final TransferItem parent, final AttributedList<TransferItem> children) {
+        final Local file = TemporaryFileServiceFactory.get().create(new AlphanumericRandomStringService().random());
+        final NSArray list = new NSArray(children.size());
+        int i = 0;
+        for(TransferItem item : children) {
+            list.setValue(i, item.<NSDictionary>serialize(SerializerFactory.get()));
+            i++;
+        }
+        OutputStream out = null;
+        try {
+            out = file.getOutputStream(false);
+            BinaryPropertyListWriter.write(out, list);
+            if(log.isDebugEnabled()) {
+                log.debug(String.format("Moved %d cached items for %s to %s", children.size(), parent, file));
+            }
+            return file;
+        }
+        catch(IOException | AccessDeniedException e) {
+            log.warn(String.format("Failure writing cache for %s to %s. %s", parent, file, e.getMessage()));
+            return null;
+        }
+        finally {
+            IOUtils.closeQuietly(out);
+        }
+    }
+
+    private AttributedList<TransferItem> read(final Local file) {
+        final AttributedList<TransferItem> children = new AttributedList<TransferItem>();
+        InputStream in = null;
+        try {
+            in = file.getInputStream();
+            final NSObject parsed = BinaryPropertyListParser.parse(in);
+            if(parsed instanceof NSArray) {
+                final NSArray list = (NSArray) parsed;
+                final TransferItemDictionary dictionary = new TransferItemDictionary();
+                for(int i = 0; i < list.count(); i++) {
+                    final TransferItem item = dictionary.deserialize(list.objectAtIndex(i));
+                    if(null == item) {
+                        continue;
+                    }
+                    children.add(item);
+                }
+            }
+        }
+        catch(IOException | PropertyListFormatException | AccessDeniedException e) {
+            log.warn(String.format("Failure reading cache from %s. %s", file, e.getMessage()));
+        }
+        finally {
+            IOUtils.closeQuietly(in);
+        }
+        return children;
+    }
+
+    private void delete(final Local file) {
+        try {
+            file.delete();
+        }
+        catch(AccessDeniedException | NotfoundException e) {
+            log.warn(String.format("Failure deleting temporary file %s. %s", file, e.getMessage()));
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("SpillingTransferItemCache{");
+        sb.append("memory=").append(super.keySet().size());
+        sb.append(", pending=").append(pending.size());
+        sb.append(", disk=").append(disk.size());
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -36,6 +36,6 @@ public class TransferItemCache extends AbstractCache<TransferItem> {
 
     @Override
     public CacheReference key(final TransferItem object) {
-        return new DefaultPathPredicate(object.remote);
+        return object.remote.getReference();
     }
 }
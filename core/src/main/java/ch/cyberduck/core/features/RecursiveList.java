@@ -0,0 +1,38 @@
+package ch.cyberduck.core.features;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.AttributedList;
+import ch.cyberduck.core.ListProgressListener;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.exception.BackgroundException;
+
+/**
+ * List all files below a directory with server side recursion instead of listing each directory
+ */
+public interface RecursiveList {
+
+    /**
+     * @param directory Directory
+     * @param listener  Notified for each chunk of files found
+     * @return Files and directories of all levels below directory
+     */
+    AttributedList<Path> list(Path directory, ListProgressListener listener) throws BackgroundException;
+
+    default boolean isSupported(final Path directory) {
+        return true;
+    }
+}
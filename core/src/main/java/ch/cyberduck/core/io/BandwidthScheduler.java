@@ -0,0 +1,98 @@
+package ch.cyberduck.core.io;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Host;
+import ch.cyberduck.core.preferences.Preferences;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Bandwidth throttles shared by all transfers. Transfer throttles have the throttle for the host as their parent
+ * which in turn is limited by a global throttle. Rates can be changed at runtime with running transfers.
+ */
+public final class BandwidthScheduler {
+
+    private static final BandwidthScheduler global = new BandwidthScheduler(
+        PreferencesFactory.get().getFloat("queue.bandwidth.bytes"),
+        PreferencesFactory.get().getFloat("queue.bandwidth.host.bytes"));
+
+    public static BandwidthScheduler get() {
+        return global;
+    }
+
+    private final BandwidthThrottle root;
+
+    /**
+     * Default rate for hosts
+     */
+    private volatile float rate;
+
+    private final ConcurrentMap<String, BandwidthThrottle> hosts
+        = new ConcurrentHashMap<String, BandwidthThrottle>();
+
+    /**
+     * @param rate Bytes per second for all transfers
+     * @param host Bytes per second for all transfers to a single host
+     */
+    public BandwidthScheduler(final float rate, final float host) {
+        this.root = new BandwidthThrottle(rate);
+        this.rate = host;
+    }
+
+    /**
+     * Apply rates from preferences to throttles of running transfers
+     */
+    public void reload() {
+        final Preferences preferences = PreferencesFactory.get();
+        this.setRate(preferences.getFloat("queue.bandwidth.bytes"));
+        this.setHostRate(preferences.getFloat("queue.bandwidth.host.bytes"));
+    }
+
+    /**
+     * @param bytesPerSecond Bytes per second for all transfers
+     */
+    public void setRate(final float bytesPerSecond) {
+        root.setRate(bytesPerSecond);
+    }
+
+    /**
+     * @param bytesPerSecond Bytes per second for all transfers to a single host
+     */
+    public void setHostRate(final float bytesPerSecond) {
+        rate = bytesPerSecond;
+        for(BandwidthThrottle throttle : hosts.values()) {
+            throttle.setRate(bytesPerSecond);
+        }
+    }
+
+    /**
+     * @return Throttle for all transfers
+     */
+    public BandwidthThrottle getGlobal() {
+        return root;
+    }
+
+    /**
+     * @return Throttle for all transfers to host
+     */
+    public BandwidthThrottle getHost(final Host host) {
+        return hosts.computeIfAbsent(String.format("%s:%d", host.getHostname(), host.getPort()),
+            key -> new BandwidthThrottle(rate, root));
+    }
+}
@@ -2,6 +2,8 @@ package ch.cyberduck.core.io;
 
 import org.apache.log4j.Logger;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Limits throughput of a stream to at most N bytes per T seconds.  Mutable and
  * thread-safe.<p>
@@ -25,10 +27,9 @@ import org.apache.log4j.Logger;
  * Smaller window values T allow fairer bandwidth sharing and less noticeable
  * pauses but may decrease efficiency slightly.<p>
  * <p/>
- * Note that throttles are <i>not</i> cumulative.  In the future, this may allow
- * enable fancier control.  Also, BandwidthThrottle may be able delegate to
- * other throttles.  This would allow, for example, a 15 KB/s Gnutella messaging
- * throttle, with no more than 10 KB/s devoted to uploads.<p>
+ * Throttles can be nested with a parent throttle shared by multiple transfers
+ * or hosts. Bytes are only granted when available in this throttle and all its
+ * parents.<p>
  * <p/>
  * This implementation is based on the <a href="http://cvs.sourceforge.net/cgi-bin/viewcvs.cgi/freenet/freenet/src/freenet/support/io/Bandwidth.java">Bandwidth</a>
  * class from
@@ -67,6 +68,16 @@ public final class BandwidthThrottle {
      */
     private long nextTickTime;
 
+    /**
+     * Number of callers waiting for bandwidth. Each is granted at most its share of a window.
+     */
+    private final AtomicInteger requests = new AtomicInteger();
+
+    /**
+     * Throttle shared with other transfers or hosts limiting the bytes granted by this throttle
+     */
+    private volatile BandwidthThrottle parent;
+
     /**
      * Creates a new bandwidth throttle at the given throttle rate.
      * The default windows size T is used.  The bytes per windows N
@@ -79,6 +90,15 @@ public final class BandwidthThrottle {
         this.setRate(bytesPerSecond);
     }
 
+    /**
+     * @param bytesPerSecond the limits in bytes per second
+     * @param parent         Throttle shared with other transfers or hosts
+     */
+    public BandwidthThrottle(float bytesPerSecond, final BandwidthThrottle parent) {
+        this.setRate(bytesPerSecond);
+        this.parent = parent;
+    }
+
     /**
      * Creates a new bandwidth throttle at the given throttle rate,
      * only allowing bandwidth to be used every other second if
@@ -137,6 +157,17 @@ public final class BandwidthThrottle {
         return rate;
     }
 
+    public BandwidthThrottle getParent() {
+        return parent;
+    }
+
+    /**
+     * @param parent Throttle shared with other transfers or hosts
+     */
+    public void setParent(final BandwidthThrottle parent) {
+        this.parent = parent;
+    }
+
     /**
      * Sets whether or not this throttle is switching bandwidth on/off.
      */
@@ -176,14 +207,46 @@ public final class BandwidthThrottle {
      * @return the number of bytes the sender is expected to send, which
      *         is always greater than one and less than or equal to desired
      */
-    public synchronized int request(int desired) {
+    public int request(int desired) {
+        final int granted = this.acquire(desired);
+        final BandwidthThrottle parent = this.parent;
+        if(null == parent) {
+            return granted;
+        }
+        final int allowed = parent.request(granted);
+        if(allowed < granted) {
+            this.refund(granted - allowed);
+        }
+        return allowed;
+    }
+
+    private int acquire(int desired) {
         if(UNLIMITED == rate) {
             return desired;
         }
-        waitForBandwidth();
-        int result = Math.min(desired, availableBytes);
-        availableBytes -= result;
-        return result;
+        requests.incrementAndGet();
+        try {
+            synchronized(this) {
+                waitForBandwidth();
+                // Leave unused capacity of window to other callers
+                int result = Math.min(desired, Math.min(availableBytes, Math.max(1, bytesPerTick / requests.get())));
+                availableBytes -= result;
+                return result;
+            }
+        }
+        finally {
+            requests.decrementAndGet();
+        }
+    }
+
+    /**
+     * Return bytes not granted by parent throttle
+     */
+    private synchronized void refund(int bytes) {
+        if(UNLIMITED == rate) {
+            return;
+        }
+        availableBytes = Math.min(bytesPerTick, availableBytes + bytes);
     }
 
     /**
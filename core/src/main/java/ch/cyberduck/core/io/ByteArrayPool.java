@@ -0,0 +1,76 @@
+package ch.cyberduck.core.io;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.preferences.PreferencesFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Reuse buffers of the same size for stream copies
+ */
+public final class ByteArrayPool {
+
+    private static final ByteArrayPool global = new ByteArrayPool(
+        PreferencesFactory.get().getInteger("connection.chunksize.pool"));
+
+    public static ByteArrayPool get() {
+        return global;
+    }
+
+    /**
+     * Maximum number of idle buffers kept per size
+     */
+    private final int capacity;
+
+    private final ConcurrentMap<Integer, Queue<byte[]>> pools
+        = new ConcurrentHashMap<Integer, Queue<byte[]>>();
+
+    /**
+     * @param capacity Maximum number of idle buffers kept per size
+     */
+    public ByteArrayPool(final int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * @param size Buffer size
+     * @return Idle buffer or new buffer if none is available
+     */
+    public byte[] acquire(final int size) {
+        final Queue<byte[]> pool = pools.get(size);
+        if(null != pool) {
+            final byte[] buffer = pool.poll();
+            if(null != buffer) {
+                return buffer;
+            }
+        }
+        return new byte[size];
+    }
+
+    /**
+     * @param buffer Buffer no longer in use
+     */
+    public void release(final byte[] buffer) {
+        if(capacity <= 0) {
+            return;
+        }
+        pools.computeIfAbsent(buffer.length, size -> new ArrayBlockingQueue<byte[]>(capacity)).offer(buffer);
+    }
+}
@@ -0,0 +1,415 @@
+package ch.cyberduck.core.io;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Local;
+import ch.cyberduck.core.LocalFactory;
+import ch.cyberduck.core.exception.AccessDeniedException;
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.exception.NotfoundException;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+import ch.cyberduck.core.preferences.SupportDirectoryFinderFactory;
+import ch.cyberduck.core.transfer.TransferStatus;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.log4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Persistent index of checksums of local files. A checksum is only computed again when size, modification date or
+ * file key of the file have changed. Entries are appended to a log file that is compacted when loaded. Entries of
+ * deleted files are removed when looked up. A lock file is held when reading, compacting or appending to the log
+ * file. Checksums for known algorithms are computed from memory mapped regions of the file.
+ * <p>
+ * Checksums of files modified within the granularity of modification dates of the file system before the checksum
+ * is computed are not indexed as the file may be changed again without a change of modification date.
+ */
+public final class ChecksumIndex {
+    private static final Logger log = Logger.getLogger(ChecksumIndex.class);
+
+    private static final ChecksumIndex global = new ChecksumIndex(
+        LocalFactory.get(SupportDirectoryFinderFactory.get().find(), "Checksums.index"),
+        PreferencesFactory.get().getBoolean("local.checksum.index"),
+        PreferencesFactory.get().getLong("local.checksum.index.granularity"));
+
+    /**
+     * Maximum number of records written to the index before flushing
+     */
+    private static final int BATCH = 64;
+    /**
+     * Maximum time in milliseconds records are kept in the buffer when adding records
+     */
+    private static final long INTERVAL = 1000L;
+
+    public static ChecksumIndex get() {
+        return global;
+    }
+
+    private final Local file;
+    /**
+     * Locked when reading, compacting or appending to the index file to share with other processes
+     */
+    private final Local lock;
+    private final boolean enabled;
+    /**
+     * Granularity of modification dates in milliseconds
+     */
+    private final long granularity;
+
+    private final MappedChecksumCompute mapped
+        = new MappedChecksumCompute();
+
+    /**
+     * Entries by algorithm and absolute path. Loaded on first use.
+     */
+    private Map<String, Entry> entries;
+    /**
+     * Records not yet appended to the index file
+     */
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private final DataOutputStream out = new DataOutputStream(buffer);
+    /**
+     * Number of records not flushed
+     */
+    private int pending;
+    private long flushed;
+
+    /**
+     * @param file    Index file
+     * @param enabled Compute checksum without index if false
+     */
+    public ChecksumIndex(final Local file, final boolean enabled) {
+        this(file, enabled, 2000L);
+    }
+
+    /**
+     * @param file        Index file
+     * @param enabled     Compute checksum without index if false
+     * @param granularity Granularity of modification dates in milliseconds
+     */
+    public ChecksumIndex(final Local file, final boolean enabled, final long granularity) {
+        this.file = file;
+        this.lock = LocalFactory.get(file.getParent(), String.format("%s.lock", file.getName()));
+        this.enabled = enabled;
+        this.granularity = granularity;
+    }
+
+    /**
+     * @param local   File to checksum
+     * @param feature Checksum implementation
+     * @param status  Transfer status with offset and length of segment to checksum
+     * @return Indexed checksum if file is unchanged or computed checksum
+     */
+    public Checksum compute(final Local local, final ChecksumCompute feature, final TransferStatus status) throws BackgroundException {
+        final HashAlgorithm algorithm = this.algorithm(feature);
+        if(null == algorithm) {
+            return feature.compute(local.getInputStream(), status);
+        }
+        if(!enabled || status.getOffset() > 0) {
+            return this.compute(local, feature, status, algorithm);
+        }
+        final BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(Paths.get(local.getAbsolute()), BasicFileAttributes.class);
+        }
+        catch(NoSuchFileException e) {
+            // Drop entries of deleted file
+            this.remove(local);
+            return feature.compute(local.getInputStream(), status);
+        }
+        catch(IOException e) {
+            log.warn(String.format("Failure reading attributes of %s. %s", local, e.getMessage()));
+            return feature.compute(local.getInputStream(), status);
+        }
+        if(status.getLength() > 0 && status.getLength() != attributes.size()) {
+            // Checksum of segment only
+            return this.compute(local, feature, status, algorithm);
+        }
+        final Entry current = new Entry(attributes.size(), attributes.lastModifiedTime().toMillis(),
+            null == attributes.fileKey() ? StringUtils.EMPTY : attributes.fileKey().toString(), null);
+        // File may be modified again without change of modification date
+        final boolean racy = System.currentTimeMillis() - current.modified < granularity;
+        final Entry entry = racy ? null : this.entries().get(this.key(local, algorithm));
+        if(null != entry && entry.matches(current)) {
+            if(log.isDebugEnabled()) {
+                log.debug(String.format("Use indexed checksum %s for %s", entry.hash, local));
+            }
+            return new Checksum(algorithm, entry.hash);
+        }
+        final Map<HashAlgorithm, Checksum> checksums;
+        if(this.isReadable(local)) {
+            // Add MD5 in the same pass for later comparison with ETag of uploaded file
+            checksums = mapped.compute(local, status, EnumSet.of(algorithm, HashAlgorithm.md5));
+        }
+        else {
+            checksums = new EnumMap<HashAlgorithm, Checksum>(HashAlgorithm.class);
+            checksums.put(algorithm, feature.compute(local.getInputStream(), status));
+        }
+        if(racy) {
+            if(log.isDebugEnabled()) {
+                log.debug(String.format("Skip indexing checksum of recently modified file %s", local));
+            }
+            return checksums.get(algorithm);
+        }
+        for(Map.Entry<HashAlgorithm, Checksum> checksum : checksums.entrySet()) {
+            if(Checksum.NONE == checksum.getValue()) {
+                continue;
+            }
+            this.put(this.key(local, checksum.getKey()), new Entry(current.size, current.modified, current.filekey, checksum.getValue().hash));
+        }
+        return checksums.get(algorithm);
+    }
+
+    /**
+     * Compute from memory mapped file if directly readable or from the input stream of the file otherwise
+     */
+    private Checksum compute(final Local local, final ChecksumCompute feature, final TransferStatus status, final HashAlgorithm algorithm) throws BackgroundException {
+        if(this.isReadable(local)) {
+            return mapped.compute(local, status, algorithm);
+        }
+        return feature.compute(local.getInputStream(), status);
+    }
+
+    /**
+     * @return False if file must be accessed with input stream of file such as with security scoped bookmarks
+     */
+    private boolean isReadable(final Local local) {
+        return Files.isReadable(Paths.get(local.getAbsolute()));
+    }
+
+    private String key(final Local local, final HashAlgorithm algorithm) {
+        return String.format("%s:%s", algorithm, local.getAbsolute());
+    }
+
+    /**
+     * @return Algorithm of checksum implementations that only depend on file content or null
+     */
+    private HashAlgorithm algorithm(final ChecksumCompute feature) {
+        if(feature.getClass() == MD5ChecksumCompute.class) {
+            return HashAlgorithm.md5;
+        }
+        if(feature.getClass() == SHA1ChecksumCompute.class) {
+            return HashAlgorithm.sha1;
+        }
+        if(feature.getClass() == SHA256ChecksumCompute.class) {
+            return HashAlgorithm.sha256;
+        }
+        if(feature.getClass() == SHA512ChecksumCompute.class) {
+            return HashAlgorithm.sha512;
+        }
+        if(feature.getClass() == CRC32ChecksumCompute.class) {
+            return HashAlgorithm.crc32;
+        }
+        return null;
+    }
+
+    private synchronized Map<String, Entry> entries() {
+        if(null == entries) {
+            entries = new ConcurrentHashMap<String, Entry>();
+            try (FileChannel channel = this.lock(); FileLock l = channel.lock()) {
+                int records = 0;
+                boolean partial = false;
+                if(file.exists()) {
+                    try (DataInputStream in = new DataInputStream(new BufferedInputStream(file.getInputStream()))) {
+                        while(true) {
+                            final String key;
+                            try {
+                                key = in.readUTF();
+                            }
+                            catch(EOFException e) {
+                                break;
+                            }
+                            final Entry entry = new Entry(in.readLong(), in.readLong(), in.readUTF(), in.readUTF());
+                            if(StringUtils.isEmpty(entry.hash)) {
+                                // Removed
+                                entries.remove(key);
+                            }
+                            else {
+                                entries.put(key, entry);
+                            }
+                            records++;
+                        }
+                    }
+                    catch(IOException | AccessDeniedException e) {
+                        log.warn(String.format("Failure reading checksum index %s. %s", file, e.getMessage()));
+                        partial = true;
+                    }
+                }
+                else {
+                    if(log.isDebugEnabled()) {
+                        log.debug(String.format("No checksum index in %s", file));
+                    }
+                }
+                if(partial || records > entries.size()) {
+                    // Drop obsolete and incomplete records while holding lock
+                    this.compact();
+                }
+            }
+            catch(IOException | AccessDeniedException e) {
+                log.warn(String.format("Failure locking checksum index %s. %s", file, e.getMessage()));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Remove entries of deleted file. Records are dropped from the index file when compacted.
+     */
+    private synchronized void remove(final Local local) {
+        if(!enabled) {
+            return;
+        }
+        for(HashAlgorithm algorithm : HashAlgorithm.values()) {
+            final String key = this.key(local, algorithm);
+            if(null != this.entries().remove(key)) {
+                try {
+                    this.write(out, key, new Entry(0L, 0L, StringUtils.EMPTY, StringUtils.EMPTY));
+                    pending++;
+                }
+                catch(IOException e) {
+                    log.warn(String.format("Failure writing checksum index %s. %s", file, e.getMessage()));
+                }
+            }
+        }
+    }
+
+    private synchronized void put(final String key, final Entry entry) {
+        entries.put(key, entry);
+        try {
+            this.write(out, key, entry);
+        }
+        catch(IOException e) {
+            log.warn(String.format("Failure writing checksum index %s. %s", file, e.getMessage()));
+            return;
+        }
+        // Records not flushed are lost on exit without shutdown and only require computing the checksum again
+        if(++pending >= BATCH || System.currentTimeMillis() - flushed >= INTERVAL) {
+            this.flush();
+        }
+    }
+
+    /**
+     * Append pending records to index file
+     */
+    private synchronized void flush() {
+        if(0 == buffer.size()) {
+            return;
+        }
+        try (FileChannel channel = this.lock(); FileLock l = channel.lock()) {
+            // Open for every flush to append to the current file after compaction by another process
+            try (OutputStream append = file.getOutputStream(true)) {
+                buffer.writeTo(append);
+            }
+        }
+        catch(IOException | AccessDeniedException e) {
+            log.warn(String.format("Failure writing checksum index %s. %s", file, e.getMessage()));
+        }
+        buffer.reset();
+        pending = 0;
+        flushed = System.currentTimeMillis();
+    }
+
+    /**
+     * Write pending records to index file
+     */
+    public void shutdown() {
+        this.flush();
+    }
+
+    private FileChannel lock() throws IOException, AccessDeniedException {
+        file.getParent().mkdir();
+        return FileChannel.open(Paths.get(lock.getAbsolute()), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    }
+
+    private void compact() {
+        final Local temporary = LocalFactory.get(file.getParent(), String.format("%s.tmp", file.getName()));
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(temporary.getOutputStream(false)))) {
+            for(Map.Entry<String, Entry> entry : entries.entrySet()) {
+                this.write(out, entry.getKey(), entry.getValue());
+            }
+        }
+        catch(IOException | AccessDeniedException e) {
+            log.warn(String.format("Failure compacting checksum index %s. %s", file, e.getMessage()));
+            this.delete(temporary);
+            return;
+        }
+        try {
+            temporary.rename(file);
+        }
+        catch(AccessDeniedException e) {
+            log.warn(String.format("Failure replacing checksum index %s. %s", file, e.getMessage()));
+            this.delete(temporary);
+        }
+    }
+
+    private void delete(final Local temporary) {
+        try {
+            temporary.delete();
+        }
+        catch(AccessDeniedException | NotfoundException e) {
+            log.warn(String.format("Failure deleting %s. %s", temporary, e.getMessage()));
+        }
+    }
+
+    private void write(final DataOutputStream out, final String key, final Entry entry) throws IOException {
+        out.writeUTF(key);
+        out.writeLong(entry.size);
+        out.writeLong(entry.modified);
+        out.writeUTF(entry.filekey);
+        out.writeUTF(entry.hash);
+    }
+
+    private static final class Entry {
+        private final long size;
+        private final long modified;
+        /**
+         * Device and inode where available
+         */
+        private final String filekey;
+        private final String hash;
+
+        private Entry(final long size, final long modified, final String filekey, final String hash) {
+            this.size = size;
+            this.modified = modified;
+            this.filekey = filekey;
+            this.hash = hash;
+        }
+
+        private boolean matches(final Entry other) {
+            return size == other.size && modified == other.modified && Objects.equals(filekey, other.filekey);
+        }
+    }
+}
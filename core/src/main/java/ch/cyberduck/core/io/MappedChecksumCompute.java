@@ -0,0 +1,194 @@
+package ch.cyberduck.core.io;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Local;
+import ch.cyberduck.core.LocaleFactory;
+import ch.cyberduck.core.exception.ChecksumException;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+import ch.cyberduck.core.threading.ThreadPool;
+import ch.cyberduck.core.threading.ThreadPoolFactory;
+import ch.cyberduck.core.transfer.TransferStatus;
+
+import org.apache.commons.codec.binary.Hex;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+
+/**
+ * Compute checksums of local files reading memory mapped regions of the file. Multiple digests are computed in a
+ * single pass over the data with each digest updated on its own thread.
+ */
+public final class MappedChecksumCompute {
+
+    private static final ThreadPool pool = ThreadPoolFactory.get("checksum",
+        Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Number of bytes mapped at once
+     */
+    private final long window;
+
+    public MappedChecksumCompute() {
+        this(PreferencesFactory.get().getLong("local.checksum.window"));
+    }
+
+    /**
+     * @param window Number of bytes mapped at once
+     */
+    public MappedChecksumCompute(final long window) {
+        this.window = window;
+    }
+
+    public Checksum compute(final Local local, final TransferStatus status, final HashAlgorithm algorithm) throws ChecksumException {
+        return this.compute(local, status, EnumSet.of(algorithm)).get(algorithm);
+    }
+
+    /**
+     * @param local      File
+     * @param status     Offset and length of segment to checksum. Checksum to the end of the file if length is not set.
+     * @param algorithms Digests to compute
+     * @return Checksum for each algorithm
+     */
+    public Map<HashAlgorithm, Checksum> compute(final Local local, final TransferStatus status, final EnumSet<HashAlgorithm> algorithms) throws ChecksumException {
+        final List<Digest> digests = new ArrayList<Digest>();
+        for(HashAlgorithm algorithm : algorithms) {
+            digests.add(this.digest(algorithm));
+        }
+        try (FileChannel channel = FileChannel.open(Paths.get(local.getAbsolute()), StandardOpenOption.READ)) {
+            final long end = status.getLength() > 0 ? Math.min(channel.size(), status.getOffset() + status.getLength()) : channel.size();
+            for(long position = status.getOffset(); position < end; position += window) {
+                final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(window, end - position));
+                if(digests.size() == 1) {
+                    digests.get(0).update(buffer);
+                }
+                else {
+                    final List<Future<Void>> futures = new ArrayList<Future<Void>>();
+                    for(Digest digest : digests) {
+                        final ByteBuffer duplicate = buffer.duplicate();
+                        futures.add(pool.execute(new Callable<Void>() {
+                            @Override
+                            public Void call() {
+                                digest.update(duplicate);
+                                return null;
+                            }
+                        }));
+                    }
+                    for(Future<Void> future : futures) {
+                        future.get();
+                    }
+                }
+            }
+        }
+        catch(IOException e) {
+            throw new ChecksumException(LocaleFactory.localizedString("Checksum failure", "Error"), e.getMessage(), e);
+        }
+        catch(InterruptedException | ExecutionException e) {
+            throw new ChecksumException(LocaleFactory.localizedString("Checksum failure", "Error"), e.getMessage(), e);
+        }
+        final Map<HashAlgorithm, Checksum> checksums = new EnumMap<HashAlgorithm, Checksum>(HashAlgorithm.class);
+        for(Digest digest : digests) {
+            checksums.put(digest.algorithm, digest.checksum());
+        }
+        return checksums;
+    }
+
+    private Digest digest(final HashAlgorithm algorithm) throws ChecksumException {
+        switch(algorithm) {
+            case md5:
+                return new MessageDigestDigest(algorithm, "MD5");
+            case sha1:
+                return new MessageDigestDigest(algorithm, "SHA-1");
+            case sha256:
+                return new MessageDigestDigest(algorithm, "SHA-256");
+            case sha512:
+                return new MessageDigestDigest(algorithm, "SHA-512");
+            case crc32:
+                return new CRC32Digest();
+            default:
+                throw new ChecksumException(LocaleFactory.localizedString("Checksum failure", "Error"),
+                    String.format("Unsupported algorithm %s", algorithm));
+        }
+    }
+
+    private static abstract class Digest {
+        private final HashAlgorithm algorithm;
+
+        protected Digest(final HashAlgorithm algorithm) {
+            this.algorithm = algorithm;
+        }
+
+        protected abstract void update(ByteBuffer buffer);
+
+        protected abstract Checksum checksum();
+    }
+
+    private static final class MessageDigestDigest extends Digest {
+        private final MessageDigest md;
+
+        private MessageDigestDigest(final HashAlgorithm algorithm, final String name) throws ChecksumException {
+            super(algorithm);
+            try {
+                this.md = MessageDigest.getInstance(name);
+            }
+            catch(NoSuchAlgorithmException e) {
+                throw new ChecksumException(LocaleFactory.localizedString("Checksum failure", "Error"), e.getMessage(), e);
+            }
+        }
+
+        @Override
+        protected void update(final ByteBuffer buffer) {
+            md.update(buffer);
+        }
+
+        @Override
+        protected Checksum checksum() {
+            return new Checksum(super.algorithm, Hex.encodeHexString(md.digest()));
+        }
+    }
+
+    private static final class CRC32Digest extends Digest {
+        private final CRC32 crc32 = new CRC32();
+
+        private CRC32Digest() {
+            super(HashAlgorithm.crc32);
+        }
+
+        @Override
+        protected void update(final ByteBuffer buffer) {
+            crc32.update(buffer);
+        }
+
+        @Override
+        protected Checksum checksum() {
+            return new Checksum(HashAlgorithm.crc32, Long.toHexString(crc32.getValue()));
+        }
+    }
+}
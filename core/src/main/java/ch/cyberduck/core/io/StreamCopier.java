@@ -45,6 +45,12 @@ public final class StreamCopier {
     private Integer chunksize
             = PreferencesFactory.get().getInteger("connection.chunksize");
 
+    /**
+     * Minimum interval in milliseconds between progress notifications
+     */
+    private Long interval
+            = PreferencesFactory.get().getLong("connection.chunksize.interval");
+
     private Long offset = 0L;
 
     private Long limit = -1L;
@@ -59,6 +65,11 @@ public final class StreamCopier {
         return this;
     }
 
+    public StreamCopier withInterval(final Long interval) {
+        this.interval = interval;
+        return this;
+    }
+
     public StreamCopier withListener(final StreamListener listener) {
         this.listener = new BytecountStreamListener(listener);
         return this;
@@ -86,12 +97,15 @@ public final class StreamCopier {
      */
     public void transfer(final InputStream in, final OutputStream out) throws BackgroundException {
         try {
+            final byte[] buffer = ByteArrayPool.get().acquire(chunksize);
+            // Bytes copied not yet reported to listeners
+            long pending = 0;
             try {
                 if(offset > 0) {
                     skip(in, offset);
                 }
-                final byte[] buffer = new byte[chunksize];
                 long total = 0;
+                long timestamp = System.currentTimeMillis();
                 int len = chunksize;
                 if(limit > 0 && limit < chunksize) {
                     // Cast will work because chunk size is int
@@ -99,19 +113,27 @@ public final class StreamCopier {
                 }
                 while(len > 0 && !cancel.isCanceled()) {
                     final int read = in.read(buffer, 0, len);
+                    if(read > 0) {
+                        out.write(buffer, 0, read);
+                    }
                     if(-1 == read) {
                         if(log.isDebugEnabled()) {
                             log.debug(String.format("End of file reached with %d bytes read from stream", total));
                         }
+                        this.progress(pending);
+                        pending = 0;
                         progress.setComplete();
                         break;
                     }
                     else {
-                        listener.recv(read);
-                        out.write(buffer, 0, read);
-                        progress.progress(read);
-                        listener.sent(read);
+                        pending += read;
                         total += read;
+                        final long now = System.currentTimeMillis();
+                        if(now - timestamp >= interval) {
+                            this.progress(pending);
+                            pending = 0;
+                            timestamp = now;
+                        }
                     }
                     if(limit > 0) {
                         // Only adjust if not reading to the end of the stream. Cast will work because chunk size is int
@@ -121,17 +143,24 @@ public final class StreamCopier {
                         if(log.isDebugEnabled()) {
                             log.debug(String.format("Limit %d reached reading from stream", limit));
                         }
+                        this.progress(pending);
+                        pending = 0;
                         progress.setComplete();
                     }
                 }
+                // Canceled
+                this.progress(pending);
             }
             catch(IOException e) {
+                // Report bytes copied before failure to discard them with all bytes sent
+                this.progress(pending);
                 throw new DefaultIOExceptionMappingService().map(e);
             }
             finally {
                 final StreamCloser c = new DefaultStreamCloser();
                 c.close(in);
                 c.close(out);
+                ByteArrayPool.get().release(buffer);
             }
         }
         catch(BackgroundException e) {
@@ -148,6 +177,14 @@ public final class StreamCopier {
         }
     }
 
+    private void progress(final long bytes) {
+        if(bytes > 0) {
+            listener.recv(bytes);
+            progress.progress(bytes);
+            listener.sent(bytes);
+        }
+    }
+
     public static InputStream skip(final InputStream in, final long offset) throws BackgroundException {
         try {
             long skipped = in.skip(offset);
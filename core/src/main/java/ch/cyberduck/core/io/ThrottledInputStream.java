@@ -18,6 +18,8 @@ package ch.cyberduck.core.io;
  *  dkocher@cyberduck.ch
  */
 
+import ch.cyberduck.core.preferences.PreferencesFactory;
+
 import org.apache.commons.io.input.ProxyInputStream;
 
 import java.io.IOException;
@@ -38,7 +40,8 @@ public class ThrottledInputStream extends ProxyInputStream {
     public ThrottledInputStream(final InputStream delegate, final BandwidthThrottle throttle) {
         super(delegate);
         this.delegate = delegate;
-        this.throttle = throttle;
+        // Limit single stream within throttle shared with other streams
+        this.throttle = new BandwidthThrottle(PreferencesFactory.get().getFloat("queue.bandwidth.stream.bytes"), throttle);
     }
 
     /**
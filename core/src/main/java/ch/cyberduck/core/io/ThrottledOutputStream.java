@@ -17,6 +17,8 @@ package ch.cyberduck.core.io;
  * Bug fixes, suggestions and comments should be sent to feedback@cyberduck.ch
  */
 
+import ch.cyberduck.core.preferences.PreferencesFactory;
+
 import org.apache.commons.io.output.ProxyOutputStream;
 
 import java.io.IOException;
@@ -42,7 +44,8 @@ public class ThrottledOutputStream extends ProxyOutputStream {
     public ThrottledOutputStream(final OutputStream delegate, final BandwidthThrottle throttle) {
         super(delegate);
         this.delegate = delegate;
-        this.throttle = throttle;
+        // Limit single stream within throttle shared with other streams
+        this.throttle = new BandwidthThrottle(PreferencesFactory.get().getFloat("queue.bandwidth.stream.bytes"), throttle);
     }
 
     /**
@@ -283,6 +283,10 @@ public abstract class Preferences implements Locales {
          */
         this.setDefault("path.normalize", String.valueOf(true));
         this.setDefault("path.normalize.unicode", String.valueOf(false));
+        /*
+          Share path strings of directories among instances for large transfers
+         */
+        this.setDefault("path.intern", String.valueOf(false));
 
         this.setDefault("local.user.home", System.getProperty("user.home"));
         this.setDefault("local.alias.resolve", String.valueOf(true));
@@ -292,6 +296,16 @@ public abstract class Preferences implements Locales {
         this.setDefault("local.normalize.tilde", String.valueOf(true));
         this.setDefault("local.delimiter", File.separator);
         this.setDefault("local.temporaryfiles.shortening.threshold", String.valueOf(240));
+        /*
+          Keep checksums of local files in index to skip hashing unchanged files
+         */
+        this.setDefault("local.checksum.index", String.valueOf(true));
+        /*
+          Granularity of modification dates of local file systems in milliseconds. Checksums of files modified
+          within this interval are not indexed
+         */
+        this.setDefault("local.checksum.index.granularity", String.valueOf(2000L));
+        this.setDefault("local.checksum.window", String.valueOf(64L * 1024L * 1024L));
 
         this.setDefault("application.name", "Cyberduck");
         this.setDefault("application.container.name", "duck");
@@ -309,6 +323,11 @@ public abstract class Preferences implements Locales {
           Maximum number of directory listings to cache using a most recently used implementation
          */
         this.setDefault("browser.cache.size", String.valueOf(1000));
+        /*
+          Maximum number of files in all cached directory listings of browser. Takes precedence over the number of
+          directory listings. Set to -1 to limit by browser.cache.size only.
+         */
+        this.setDefault("browser.cache.weight", String.valueOf(100000));
         this.setDefault("transfer.cache.size", String.valueOf(100));
         this.setDefault("icon.cache.size", String.valueOf(200));
         this.setDefault("preferences.cache.size", String.valueOf(1000));
@@ -404,6 +423,10 @@ public abstract class Preferences implements Locales {
         this.setDefault("browser.date.natural", String.valueOf(true));
 
         this.setDefault("browser.delete.concurrency", String.valueOf(10));
+        // Number of files passed to delete feature at once while listing continues
+        this.setDefault("browser.delete.partition", String.valueOf(1000));
+        // Number of directories listed concurrently when calculating size
+        this.setDefault("browser.size.concurrency", String.valueOf(10));
 
 
         this.setDefault("info.toggle.permission", String.valueOf(1));
@@ -527,6 +550,32 @@ public abstract class Preferences implements Locales {
         this.setDefault("queue.download.segments", String.valueOf(false));
         this.setDefault("queue.download.segments.threshold", String.valueOf(100L * 1024L * 1024L));
         this.setDefault("queue.download.segments.size", String.valueOf(50L * 1024L * 1024L));
+        // Write segments to their range in target file instead of concatenating segment files
+        this.setDefault("queue.download.segments.positional", String.valueOf(true));
+        /*
+          Read large files with concurrent range requests into a single stream for HTTP based protocols
+         */
+        this.setDefault("queue.download.range", String.valueOf(true));
+        this.setDefault("queue.download.range.threshold", String.valueOf(100L * 1024L * 1024L));
+        this.setDefault("queue.download.range.size", String.valueOf(8 * 1024 * 1024));
+        // Number of concurrent range requests for each download
+        this.setDefault("queue.download.range.concurrency", String.valueOf(4));
+
+        // Parts of multipart uploads scheduled on a shared pool for all transfers. Requires restart when changed
+        this.setDefault("queue.parts.concurrency", String.valueOf(20));
+        // Maximum number of bytes of parts in flight
+        this.setDefault("queue.parts.inflight", String.valueOf(500L * 1024L * 1024L));
+
+        /*
+          Start transferring files while the remaining files of the transfer are still listed. Bulk features
+          are notified per file in this mode.
+         */
+        this.setDefault("queue.transfer.pipeline", String.valueOf(false));
+        /*
+          Maximum number of directory listings of a transfer kept in memory. Additional listings are written to
+          temporary files.
+         */
+        this.setDefault("queue.transfer.cache.size", String.valueOf(1000));
 
         /*
           Open completed downloads
@@ -568,11 +617,24 @@ public abstract class Preferences implements Locales {
           Bandwidth throttle download stream
          */
         this.setDefault("queue.download.bandwidth.bytes", String.valueOf(-1));
+        /*
+          Bandwidth throttle shared by all transfers and by all transfers to a single host
+         */
+        this.setDefault("queue.bandwidth.bytes", String.valueOf(-1));
+        this.setDefault("queue.bandwidth.host.bytes", String.valueOf(-1));
+        /*
+          Bandwidth throttle for single stream of transfer
+         */
+        this.setDefault("queue.bandwidth.stream.bytes", String.valueOf(-1));
 
         /*
          * Concurrent connections for single transfer and maximum number of concurrent transfers in transfer list
          */
         this.setDefault("queue.connections.limit", String.valueOf(2));
+        /*
+         * Maximum number of concurrent transfers to a single host in transfer list. Set to -1 for no limit.
+         */
+        this.setDefault("queue.connections.host.limit", String.valueOf(-1));
         {
             final StringBuilder options = new StringBuilder();
             options.append(1).append(",");
@@ -692,11 +754,21 @@ public abstract class Preferences implements Locales {
         this.setDefault("s3.url.expire.seconds", String.valueOf(24 * 60 * 60));
 
         this.setDefault("s3.listing.chunksize", String.valueOf(1000));
+        /*
+          Number of concurrent requests for recursive listings partitioned by prefix
+         */
+        this.setDefault("s3.listing.concurrency", String.valueOf(10));
 
         this.setDefault("s3.upload.md5", String.valueOf(true));
 
         this.setDefault("s3.upload.multipart", String.valueOf(true));
         this.setDefault("s3.upload.multipart.concurrency", String.valueOf(10));
+        /*
+          Adjust part size and concurrency from duration of completed parts
+         */
+        this.setDefault("s3.upload.multipart.adaptive", String.valueOf(true));
+        this.setDefault("s3.upload.multipart.adaptive.concurrency", String.valueOf(20));
+        this.setDefault("s3.upload.multipart.adaptive.duration.seconds", String.valueOf(10L));
         this.setDefault("s3.upload.multipart.partsize.minimum", String.valueOf(5L * 1024L * 1024L));
         /*
           Threshold in bytes. Only use multipart uploads for files more than 100MB
@@ -727,6 +799,8 @@ public abstract class Preferences implements Locales {
 
         this.setDefault("onedrive.listing.chunksize", String.valueOf(1000));
         this.setDefault("onedrive.upload.multipart.partsize.minimum", String.valueOf(320 * 1024));
+        // Fragment size for uploads with unknown length. Must be a multiple of 320KiB
+        this.setDefault("onedrive.upload.multipart.partsize", String.valueOf(32 * 320 * 1024));
 
         final int month = 60 * 60 * 24 * 30; //30 days in seconds
         this.setDefault("s3.cache.seconds", String.valueOf(month));
@@ -744,6 +818,13 @@ public abstract class Preferences implements Locales {
         this.setDefault("azure.metadata.default", StringUtils.EMPTY);
         this.setDefault("azure.listing.chunksize", String.valueOf(1000));
         this.setDefault("azure.upload.md5", String.valueOf(false));
+        /*
+          Upload files larger than 100MB as block blob with blocks uploaded concurrently
+         */
+        this.setDefault("azure.upload.blockblob", String.valueOf(true));
+        this.setDefault("azure.upload.blockblob.threshold", String.valueOf(100L * 1024L * 1024L));
+        this.setDefault("azure.upload.blockblob.size", String.valueOf(10L * 1024L * 1024L)); // 10MB
+        this.setDefault("azure.upload.blockblob.concurrency", String.valueOf(10));
 
         // Legacy authentication
 //        this.setDefault("openstack.authentication.context", "/v1.0");
@@ -793,6 +874,7 @@ public abstract class Preferences implements Locales {
 
         this.setDefault("sds.listing.chunksize", String.valueOf(500));
         this.setDefault("sds.upload.multipart.chunksize", String.valueOf(0.5 * 1024L * 1024L));
+        this.setDefault("sds.upload.multipart.concurrency", String.valueOf(5));
         // Run missing file keys in bulk feature after upload
         this.setDefault("sds.encryption.missingkeys.upload", String.valueOf(true));
         this.setDefault("sds.encryption.missingkeys.scheduler.period", String.valueOf(120000)); // 2 minutes
@@ -875,6 +957,16 @@ public abstract class Preferences implements Locales {
         this.setDefault("connection.pool.minidle", String.valueOf(1));
         this.setDefault("connection.pool.maxidle", String.valueOf(5));
         this.setDefault("connection.pool.maxtotal", String.valueOf(Integer.MAX_VALUE));
+        /*
+          Share concurrent listings of the same directory between connections
+         */
+        this.setDefault("connection.list.coalesce", String.valueOf(false));
+        /*
+          Save directory listings to disk and reuse them in later sessions if the modification date or ETag of
+          the directory is unchanged. Changes to the content of files are not detected for protocols that only
+          update the modification date of the directory when files are added or removed.
+         */
+        this.setDefault("browser.cache.persistent", String.valueOf(false));
 
         /*
           Default login name
@@ -960,6 +1052,14 @@ public abstract class Preferences implements Locales {
           Transfer read buffer size
          */
         this.setDefault("connection.chunksize", String.valueOf(32768));
+        /*
+          Maximum number of idle transfer read buffers kept for reuse
+         */
+        this.setDefault("connection.chunksize.pool", String.valueOf(64));
+        /*
+          Minimum interval in milliseconds between progress notifications when copying streams
+         */
+        this.setDefault("connection.chunksize.interval", String.valueOf(0L));
         /*
           Buffer size for wrapped buffered streams
          */
@@ -1016,6 +1116,8 @@ public abstract class Preferences implements Locales {
 
         this.setDefault("sftp.read.maxunconfirmed", String.valueOf(64));
         this.setDefault("sftp.write.maxunconfirmed", String.valueOf(64));
+        // Maximum number of outstanding stat and readlink requests when resolving symbolic links in listings
+        this.setDefault("sftp.stat.maxunconfirmed", String.valueOf(64));
 
         this.setDefault("archive.default", "tar.gz");
 
@@ -1056,6 +1158,8 @@ public abstract class Preferences implements Locales {
 
         this.setDefault("cryptomator.enable", String.valueOf(true));
         this.setDefault("cryptomator.vault.autodetect", String.valueOf(true));
+        // Number of chunks encrypted or decrypted concurrently per stream
+        this.setDefault("cryptomator.chunk.concurrency", String.valueOf(Runtime.getRuntime().availableProcessors()));
     }
 
     protected void setLogging() {
@@ -0,0 +1,266 @@
+package ch.cyberduck.core.shared;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.AttributedList;
+import ch.cyberduck.core.Cache;
+import ch.cyberduck.core.DefaultPathPredicate;
+import ch.cyberduck.core.Host;
+import ch.cyberduck.core.HostUrlProvider;
+import ch.cyberduck.core.ListProgressListener;
+import ch.cyberduck.core.ListService;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.exception.ConnectionCanceledException;
+
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Share a single directory listing among concurrent requests for the same directory from
+ * different sessions connected to the same host. Progress of the shared listing is delivered
+ * to waiting requests on their own thread.
+ */
+public class CoalescingListService implements ListService {
+    private static final Logger log = Logger.getLogger(CoalescingListService.class);
+
+    /**
+     * Listings in progress for all connections
+     */
+    private static final Map<String, Inflight> inflight
+        = new ConcurrentHashMap<String, Inflight>();
+
+    private final Host host;
+    private final ListService proxy;
+
+    public CoalescingListService(final Host host, final ListService proxy) {
+        this.host = host;
+        this.proxy = proxy;
+    }
+
+    @Override
+    public AttributedList<Path> list(final Path directory, final ListProgressListener listener) throws BackgroundException {
+        final String key = String.format("%s%s", new HostUrlProvider().withUsername(true).get(host),
+            new DefaultPathPredicate(directory).toString());
+        final Inflight created = new Inflight(listener);
+        final Inflight existing = inflight.putIfAbsent(key, created);
+        if(null == existing) {
+            try {
+                final AttributedList<Path> list = proxy.list(directory, created);
+                created.success(list);
+                return list;
+            }
+            catch(BackgroundException e) {
+                created.failure(e);
+                throw e;
+            }
+            finally {
+                inflight.remove(key, created);
+            }
+        }
+        if(existing.thread == Thread.currentThread()) {
+            // Listing the same directory again from within the listing in progress
+            if(log.isDebugEnabled()) {
+                log.debug(String.format("Skip waiting for listing of %s in progress on same thread", directory));
+            }
+            return proxy.list(directory, listener);
+        }
+        if(log.isInfoEnabled()) {
+            log.info(String.format("Wait for listing of %s in progress", directory));
+        }
+        final Follower follower = new Follower(listener);
+        if(!existing.add(follower)) {
+            // Completed in the meantime
+            return proxy.list(directory, listener);
+        }
+        try {
+            return new AttributedList<Path>(follower.await());
+        }
+        catch(ConnectionCanceledException e) {
+            if(follower.isCanceled()) {
+                existing.remove(follower);
+                throw e;
+            }
+            // Listing canceled by the listener of the other request
+            if(log.isInfoEnabled()) {
+                log.info(String.format("Shared listing of %s canceled. Retry with own listing", directory));
+            }
+            return proxy.list(directory, listener);
+        }
+    }
+
+    @Override
+    public ListService withCache(final Cache<Path> cache) {
+        proxy.withCache(cache);
+        return this;
+    }
+
+    /**
+     * Listener of the first request forwarding chunks to all requests waiting for the same directory
+     */
+    private static final class Inflight implements ListProgressListener {
+        private final ListProgressListener delegate;
+        private final List<Follower> followers = new ArrayList<Follower>();
+        /**
+         * Thread of the first request running the listing
+         */
+        private final Thread thread = Thread.currentThread();
+        private boolean done;
+
+        public Inflight(final ListProgressListener delegate) {
+            this.delegate = delegate;
+        }
+
+        /**
+         * @return False if listing is already completed
+         */
+        public synchronized boolean add(final Follower follower) {
+            if(done) {
+                return false;
+            }
+            followers.add(follower);
+            return true;
+        }
+
+        public synchronized void remove(final Follower follower) {
+            followers.remove(follower);
+        }
+
+        @Override
+        public void chunk(final Path folder, final AttributedList<Path> list) throws ConnectionCanceledException {
+            delegate.chunk(folder, list);
+            for(Follower follower : this.snapshot()) {
+                follower.chunk(folder, list);
+            }
+        }
+
+        @Override
+        public ListProgressListener reset() {
+            delegate.reset();
+            return this;
+        }
+
+        @Override
+        public void message(final String message) {
+            delegate.message(message);
+        }
+
+        public void success(final AttributedList<Path> list) {
+            for(Follower follower : this.complete()) {
+                follower.success(list);
+            }
+        }
+
+        public void failure(final BackgroundException failure) {
+            for(Follower follower : this.complete()) {
+                follower.failure(failure);
+            }
+        }
+
+        private synchronized List<Follower> snapshot() {
+            return new ArrayList<Follower>(followers);
+        }
+
+        private synchronized List<Follower> complete() {
+            done = true;
+            final List<Follower> snapshot = new ArrayList<Follower>(followers);
+            followers.clear();
+            return snapshot;
+        }
+    }
+
+    /**
+     * Request waiting for listing in progress. Chunks are queued by the thread of the first request and
+     * passed to the listener of this request on its own thread.
+     */
+    private static final class Follower {
+        private final ListProgressListener listener;
+        private final BlockingQueue<Chunk> chunks = new LinkedBlockingQueue<Chunk>();
+        private final CountDownLatch signal = new CountDownLatch(1);
+
+        private volatile AttributedList<Path> result;
+        private volatile BackgroundException failure;
+        private volatile boolean canceled;
+
+        public Follower(final ListProgressListener listener) {
+            this.listener = listener;
+        }
+
+        public AttributedList<Path> await() throws BackgroundException {
+            try {
+                while(signal.getCount() > 0 || !chunks.isEmpty()) {
+                    final Chunk chunk = chunks.poll(100L, TimeUnit.MILLISECONDS);
+                    if(null == chunk) {
+                        continue;
+                    }
+                    try {
+                        listener.chunk(chunk.folder, chunk.list);
+                    }
+                    catch(ConnectionCanceledException e) {
+                        // Canceled by own listener
+                        canceled = true;
+                        throw e;
+                    }
+                }
+            }
+            catch(InterruptedException e) {
+                canceled = true;
+                throw new ConnectionCanceledException(e);
+            }
+            if(failure != null) {
+                throw failure;
+            }
+            return result;
+        }
+
+        public boolean isCanceled() {
+            return canceled;
+        }
+
+        public void chunk(final Path folder, final AttributedList<Path> list) {
+            // Copy as the list is modified by the first request while listing continues
+            chunks.add(new Chunk(folder, new AttributedList<Path>(list)));
+        }
+
+        public void success(final AttributedList<Path> list) {
+            result = list;
+            signal.countDown();
+        }
+
+        public void failure(final BackgroundException e) {
+            failure = e;
+            signal.countDown();
+        }
+    }
+
+    private static final class Chunk {
+        private final Path folder;
+        private final AttributedList<Path> list;
+
+        public Chunk(final Path folder, final AttributedList<Path> list) {
+            this.folder = folder;
+            this.list = list;
+        }
+    }
+}
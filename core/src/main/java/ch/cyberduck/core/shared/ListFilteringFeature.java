@@ -18,17 +18,26 @@ package ch.cyberduck.core.shared;
 import ch.cyberduck.core.AttributedList;
 import ch.cyberduck.core.Cache;
 import ch.cyberduck.core.CaseInsensitivePathPredicate;
-import ch.cyberduck.core.DefaultPathPredicate;
+import ch.cyberduck.core.DisabledListProgressListener;
 import ch.cyberduck.core.ListService;
 import ch.cyberduck.core.Path;
 import ch.cyberduck.core.PathCache;
 import ch.cyberduck.core.Session;
 import ch.cyberduck.core.SimplePathPredicate;
 import ch.cyberduck.core.exception.BackgroundException;
-import ch.cyberduck.core.transfer.CachingListProgressListener;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.function.Function;
 
 public abstract class ListFilteringFeature {
 
+    /**
+     * Index keys for lookup in cached directory listings
+     */
+    private static final Function<Path, ?> ABSOLUTE = Path::getAbsolute;
+    private static final Function<Path, ?> ABSOLUTE_CASE_INSENSITIVE = file -> StringUtils.lowerCase(file.getAbsolute());
+
     private final Session<?> session;
 
     private Cache<Path> cache
@@ -39,21 +48,19 @@ public abstract class ListFilteringFeature {
     }
 
     protected Path search(final Path file) throws BackgroundException {
-        final AttributedList<Path> list;
-        if(!cache.isCached(file.getParent())) {
-            // Do not decrypt filenames to match with input
-            list = session._getFeature(ListService.class).list(file.getParent(), new CachingListProgressListener(cache));
-        }
-        else {
-            list = cache.get(file.getParent());
-        }
+        // Do not decrypt filenames to match with input
+        final AttributedList<Path> list = cache.compute(file.getParent(),
+            () -> session._getFeature(ListService.class).list(file.getParent(), new DisabledListProgressListener()));
         // Search with specific version and region
-        final Path path = list.find(new DefaultPathPredicate(file));
+        final Path path = list.find(ABSOLUTE, file.getAbsolute(), file.getReference());
         if(path != null) {
             return path;
         }
         // Try to match path only as the version might have changed in the meantime
-        return list.find(session.getCase() == Session.Case.insensitive ? new CaseInsensitivePathPredicate(file) : new SimplePathPredicate(file));
+        if(session.getCase() == Session.Case.insensitive) {
+            return list.find(ABSOLUTE_CASE_INSENSITIVE, StringUtils.lowerCase(file.getAbsolute()), new CaseInsensitivePathPredicate(file));
+        }
+        return list.find(ABSOLUTE, file.getAbsolute(), new SimplePathPredicate(file));
     }
 
     public ListFilteringFeature withCache(final Cache<Path> cache) {
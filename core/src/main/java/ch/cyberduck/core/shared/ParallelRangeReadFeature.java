@@ -0,0 +1,311 @@
+package ch.cyberduck.core.shared;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.ConnectionCallback;
+import ch.cyberduck.core.DefaultIOExceptionMappingService;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.Protocol;
+import ch.cyberduck.core.Session;
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.features.Read;
+import ch.cyberduck.core.io.ByteArrayPool;
+import ch.cyberduck.core.preferences.Preferences;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+import ch.cyberduck.core.threading.BackgroundExceptionCallable;
+import ch.cyberduck.core.threading.DefaultRetryCallable;
+import ch.cyberduck.core.threading.ThreadPool;
+import ch.cyberduck.core.threading.ThreadPoolFactory;
+import ch.cyberduck.core.transfer.TransferStatus;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
+import org.apache.log4j.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.SequenceInputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Read large files with multiple concurrent range requests returned as a single stream. Only for protocols with
+ * a thread safe HTTP client where range requests do not need a separate connection from the pool. The first range
+ * is requested alone and if the server ignores the range header the remaining content is read from its response.
+ */
+public class ParallelRangeReadFeature implements Read {
+    private static final Logger log = Logger.getLogger(ParallelRangeReadFeature.class);
+
+    private static final EnumSet<Protocol.Type> SUPPORTED = EnumSet.of(
+        Protocol.Type.s3, Protocol.Type.googlestorage, Protocol.Type.azure, Protocol.Type.b2,
+        Protocol.Type.swift, Protocol.Type.dav, Protocol.Type.googledrive);
+
+    private final Preferences preferences
+        = PreferencesFactory.get();
+
+    private final Session<?> session;
+    private final Read proxy;
+
+    public ParallelRangeReadFeature(final Session<?> session, final Read proxy) {
+        this.session = session;
+        this.proxy = proxy;
+    }
+
+    @Override
+    public InputStream read(final Path file, final TransferStatus status, final ConnectionCallback callback) throws BackgroundException {
+        if(!SUPPORTED.contains(session.getHost().getProtocol().getType())) {
+            return proxy.read(file, status, callback);
+        }
+        if(!preferences.getBoolean("queue.download.range")) {
+            return proxy.read(file, status, callback);
+        }
+        if(status.getLength() < preferences.getLong("queue.download.range.threshold")) {
+            return proxy.read(file, status, callback);
+        }
+        if(!proxy.offset(file)) {
+            return proxy.read(file, status, callback);
+        }
+        final long offset = status.isAppend() ? status.getOffset() : 0L;
+        if(log.isInfoEnabled()) {
+            log.info(String.format("Read %s with concurrent range requests from offset %d with length %d", file, offset, status.getLength()));
+        }
+        final int size = preferences.getInteger("queue.download.range.size");
+        final int length = (int) Math.min(size, status.getLength());
+        final InputStream first = proxy.read(file, new TransferStatus(status).skip(offset).length(length).append(true), callback);
+        return new RangeInputStream(file, status, callback, first, offset + length, offset + status.getLength(),
+            size, length, preferences.getInteger("queue.download.range.concurrency"));
+    }
+
+    @Override
+    public boolean offset(final Path file) throws BackgroundException {
+        return proxy.offset(file);
+    }
+
+    /**
+     * Serves ranges in order with a bounded number of ranges requested ahead
+     */
+    private final class RangeInputStream extends InputStream {
+        private final Path file;
+        private final TransferStatus status;
+        private final ConnectionCallback callback;
+        private final long end;
+        private final int size;
+        private final int window;
+        private final Deque<Future<byte[]>> pending = new ArrayDeque<Future<byte[]>>();
+
+        /**
+         * Threads for this stream created when the first range is read
+         */
+        private ThreadPool pool;
+        /**
+         * Response for first range not yet read
+         */
+        private InputStream first;
+        private final int length;
+        /**
+         * Remaining content when server ignored range of first request
+         */
+        private InputStream fallback;
+
+        /**
+         * Start of next range to request
+         */
+        private long next;
+        /**
+         * Current range
+         */
+        private byte[] buffer;
+        private int position;
+        private int limit;
+
+        /**
+         * @param first  Response for range of first length bytes
+         * @param start  Start of second range
+         * @param length Length of first range
+         */
+        public RangeInputStream(final Path file, final TransferStatus status, final ConnectionCallback callback,
+                                final InputStream first, final long start, final long end, final int size,
+                                final int length, final int window) {
+            this.file = file;
+            this.status = status;
+            this.callback = callback;
+            this.first = first;
+            this.next = start;
+            this.end = end;
+            this.size = size;
+            this.length = length;
+            this.window = Math.max(1, window);
+        }
+
+        /**
+         * Read first range and start requesting remaining ranges if the server honored the range
+         */
+        private void first() throws IOException {
+            final InputStream in = first;
+            first = null;
+            buffer = ByteArrayPool.get().acquire(length);
+            position = 0;
+            limit = buffer.length;
+            try {
+                IOUtils.readFully(in, buffer);
+                if(next < end) {
+                    final int b = in.read();
+                    if(-1 != b) {
+                        log.warn(String.format("Range request not supported for %s. Read remaining content from single response", file));
+                        fallback = new BoundedInputStream(new SequenceInputStream(
+                            new ByteArrayInputStream(new byte[]{(byte) b}), in), end - next);
+                        return;
+                    }
+                }
+            }
+            catch(IOException e) {
+                IOUtils.closeQuietly(in);
+                throw e;
+            }
+            in.close();
+            if(next < end) {
+                pool = ThreadPoolFactory.get("range", window);
+                this.fill();
+            }
+        }
+
+        /**
+         * Request ranges ahead until the window is full
+         */
+        private void fill() {
+            while(pending.size() < window && next < end) {
+                final long start = next;
+                final int length = (int) Math.min(size, end - start);
+                pending.add(pool.execute(new DefaultRetryCallable<byte[]>(new BackgroundExceptionCallable<byte[]>() {
+                    @Override
+                    public byte[] call() throws BackgroundException {
+                        final byte[] range = ByteArrayPool.get().acquire(length);
+                        try {
+                            final InputStream in = proxy.read(file, new TransferStatus(status).skip(start).length(length).append(true), callback);
+                            try {
+                                IOUtils.readFully(in, range);
+                            }
+                            finally {
+                                in.close();
+                            }
+                            return range;
+                        }
+                        catch(IOException e) {
+                            ByteArrayPool.get().release(range);
+                            throw new DefaultIOExceptionMappingService().map("Download {0} failed", e, file);
+                        }
+                        catch(BackgroundException e) {
+                            ByteArrayPool.get().release(range);
+                            throw e;
+                        }
+                    }
+                }, status)));
+                next += length;
+            }
+        }
+
+        /**
+         * @return False if no more ranges available
+         */
+        private boolean advance() throws IOException {
+            if(null != first) {
+                this.first();
+                return true;
+            }
+            if(null != buffer) {
+                ByteArrayPool.get().release(buffer);
+                buffer = null;
+            }
+            if(pending.isEmpty()) {
+                return false;
+            }
+            try {
+                buffer = pending.remove().get();
+            }
+            catch(InterruptedException | CancellationException e) {
+                throw new InterruptedIOException(e.getMessage());
+            }
+            catch(ExecutionException e) {
+                if(e.getCause() instanceof BackgroundException) {
+                    throw new IOException(e.getCause().getMessage(), e.getCause());
+                }
+                throw new IOException(e.getCause());
+            }
+            position = 0;
+            limit = buffer.length;
+            this.fill();
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final byte[] b = new byte[1];
+            final int n = this.read(b, 0, 1);
+            return n == -1 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if(len == 0) {
+                return 0;
+            }
+            while(null == buffer || position == limit) {
+                if(null != fallback) {
+                    return fallback.read(b, off, len);
+                }
+                if(!this.advance()) {
+                    return -1;
+                }
+            }
+            final int n = Math.min(len, limit - position);
+            System.arraycopy(buffer, position, b, off, n);
+            position += n;
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return null == buffer ? 0 : limit - position;
+        }
+
+        @Override
+        public void close() throws IOException {
+            for(Future<byte[]> future : pending) {
+                future.cancel(true);
+            }
+            pending.clear();
+            if(null != pool) {
+                pool.shutdown(false);
+            }
+            if(null != buffer) {
+                ByteArrayPool.get().release(buffer);
+                buffer = null;
+            }
+            IOUtils.closeQuietly(first);
+            first = null;
+            if(null != fallback) {
+                fallback.close();
+                fallback = null;
+            }
+        }
+    }
+}
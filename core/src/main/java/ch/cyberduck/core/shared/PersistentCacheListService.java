@@ -0,0 +1,176 @@
+package ch.cyberduck.core.shared;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.AttributedList;
+import ch.cyberduck.core.Cache;
+import ch.cyberduck.core.ListProgressListener;
+import ch.cyberduck.core.ListService;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.PathAttributes;
+import ch.cyberduck.core.PersistentPathCache;
+import ch.cyberduck.core.Protocol;
+import ch.cyberduck.core.Session;
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.features.AttributesFinder;
+import ch.cyberduck.core.features.Vault;
+import ch.cyberduck.core.vault.DefaultVaultRegistry;
+import ch.cyberduck.core.vault.VaultRegistry;
+import ch.cyberduck.core.vault.VaultUnlockCancelException;
+
+import org.apache.log4j.Logger;
+
+import java.util.EnumSet;
+import java.util.Objects;
+
+/**
+ * Reuse directory listings saved by previous sessions if the directory is unchanged. Only for protocols where the
+ * modification date or ETag of a directory changes when files are added or removed. The attributes of every file in
+ * a saved listing are revalidated as well because the directory is not modified when a file in it is changed. Listings
+ * in vaults are never saved to not write decrypted filenames to disk.
+ */
+public class PersistentCacheListService implements ListService {
+    private static final Logger log = Logger.getLogger(PersistentCacheListService.class);
+
+    private static final EnumSet<Protocol.Type> SUPPORTED
+        = EnumSet.of(Protocol.Type.sftp, Protocol.Type.dav, Protocol.Type.file);
+
+    private final Session<?> session;
+    private final ListService proxy;
+    private final PersistentPathCache cache;
+    private final VaultRegistry registry;
+
+    public PersistentCacheListService(final Session<?> session, final ListService proxy) {
+        this(session, proxy, VaultRegistry.DISABLED);
+    }
+
+    public PersistentCacheListService(final Session<?> session, final ListService proxy, final VaultRegistry registry) {
+        this(session, proxy, PersistentPathCache.get(session.getHost()), registry);
+    }
+
+    public PersistentCacheListService(final Session<?> session, final ListService proxy, final PersistentPathCache cache) {
+        this(session, proxy, cache, VaultRegistry.DISABLED);
+    }
+
+    public PersistentCacheListService(final Session<?> session, final ListService proxy, final PersistentPathCache cache,
+                                      final VaultRegistry registry) {
+        this.session = session;
+        this.proxy = proxy;
+        this.cache = cache;
+        this.registry = registry;
+    }
+
+    @Override
+    public AttributedList<Path> list(final Path directory, final ListProgressListener listener) throws BackgroundException {
+        if(!SUPPORTED.contains(session.getHost().getProtocol().getType())) {
+            return proxy.list(directory, listener);
+        }
+        if(this.isVault(directory)) {
+            return proxy.list(directory, listener);
+        }
+        final PathAttributes current;
+        try {
+            current = session.getFeature(AttributesFinder.class).find(directory);
+        }
+        catch(BackgroundException e) {
+            log.warn(String.format("Failure reading attributes of %s. %s", directory, e.getMessage()));
+            return proxy.list(directory, listener);
+        }
+        final AttributedList<Path> saved = cache.revalidate(directory, current);
+        if(null != saved && !this.isVault(saved) && this.revalidate(saved)) {
+            if(log.isInfoEnabled()) {
+                log.info(String.format("Use saved listing for unchanged directory %s", directory));
+            }
+            listener.chunk(directory, saved);
+            return saved;
+        }
+        final AttributedList<Path> list = proxy.list(directory, listener);
+        if(this.isVault(list)) {
+            // Vault detected in listing
+            cache.remove(directory);
+            return list;
+        }
+        cache.put(new Path(directory.getAbsolute(), directory.getType(), current), list);
+        return list;
+    }
+
+    /**
+     * @param saved Saved listing of unchanged directory
+     * @return False if attributes of any file have changed or cannot be compared
+     */
+    private boolean revalidate(final AttributedList<Path> saved) {
+        final AttributesFinder finder = session.getFeature(AttributesFinder.class);
+        for(Path file : saved) {
+            final String token = PersistentPathCache.token(file.attributes());
+            if(null == token) {
+                return false;
+            }
+            try {
+                final PathAttributes current = finder.find(file);
+                if(!Objects.equals(token, PersistentPathCache.token(current))
+                    || file.attributes().getSize() != current.getSize()) {
+                    if(log.isDebugEnabled()) {
+                        log.debug(String.format("Attributes changed for %s in saved listing", file));
+                    }
+                    return false;
+                }
+            }
+            catch(BackgroundException e) {
+                log.warn(String.format("Failure reading attributes of %s. %s", file, e.getMessage()));
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return True if directory is in an unlocked vault or vault lookup was canceled
+     */
+    private boolean isVault(final Path directory) {
+        if(directory.getType().contains(Path.Type.vault) || directory.getType().contains(Path.Type.decrypted)
+            || directory.getType().contains(Path.Type.encrypted)) {
+            return true;
+        }
+        try {
+            return registry.find(session, directory) != Vault.DISABLED;
+        }
+        catch(VaultUnlockCancelException e) {
+            return true;
+        }
+    }
+
+    /**
+     * @return True if listing contains decrypted files or a vault that must be detected when listed
+     */
+    private boolean isVault(final AttributedList<Path> list) {
+        for(Path file : list) {
+            if(file.getType().contains(Path.Type.vault) || file.getType().contains(Path.Type.decrypted)
+                || file.getType().contains(Path.Type.encrypted)) {
+                return true;
+            }
+            if(DefaultVaultRegistry.DEFAULT_MASTERKEY_FILE_NAME.equals(file.getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public ListService withCache(final Cache<Path> cache) {
+        proxy.withCache(cache);
+        return this;
+    }
+}
@@ -31,6 +31,7 @@ import ch.cyberduck.core.features.AttributesFinder;
 import ch.cyberduck.core.features.Find;
 import ch.cyberduck.core.io.Checksum;
 import ch.cyberduck.core.io.ChecksumComputeFactory;
+import ch.cyberduck.core.io.ChecksumIndex;
 import ch.cyberduck.core.shared.DefaultAttributesFinderFeature;
 import ch.cyberduck.core.shared.DefaultFindFeature;
 import ch.cyberduck.core.transfer.TransferStatus;
@@ -93,8 +94,8 @@ public class ComparisonServiceFilter implements ComparePathFilter {
                 if(Checksum.NONE != attributes.getChecksum()) {
                     // MD5/ETag Checksum is supported
                     progress.message(MessageFormat.format(LocaleFactory.localizedString("Compute MD5 hash of {0}", "Status"), file.getName()));
-                    local.attributes().setChecksum(ChecksumComputeFactory.get(attributes.getChecksum().algorithm)
-                        .compute(local.getInputStream(), new TransferStatus()));
+                    local.attributes().setChecksum(ChecksumIndex.get().compute(local,
+                        ChecksumComputeFactory.get(attributes.getChecksum().algorithm), new TransferStatus()));
                     switch(checksum.compare(attributes, local.attributes())) {
                         case equal:
                             // Decision is available
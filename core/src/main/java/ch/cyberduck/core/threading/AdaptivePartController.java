@@ -0,0 +1,144 @@
+package ch.cyberduck.core.threading;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import org.apache.log4j.Logger;
+
+/**
+ * Adjust part size and number of concurrent parts of a multipart upload from the duration of completed parts.
+ * Part size is doubled or halved to keep the duration of a single part near the target. Concurrency is
+ * increased as long as the throughput measured over a round of completed parts improves and decreased
+ * otherwise. Concurrency is halved on failure.
+ */
+public class AdaptivePartController {
+    private static final Logger log = Logger.getLogger(AdaptivePartController.class);
+
+    private final long minimum;
+    private final long maximum;
+    private final int limit;
+    /**
+     * Target duration for a single part in milliseconds
+     */
+    private final long target;
+
+    private long partsize;
+    private int concurrency;
+    private int inflight;
+
+    /**
+     * Bytes and parts completed in current round
+     */
+    private long bytes;
+    private int parts;
+    private long timestamp = System.currentTimeMillis();
+    /**
+     * Throughput in bytes per millisecond of previous round
+     */
+    private double throughput;
+    private int step = 1;
+
+    /**
+     * @param partsize    Initial part size
+     * @param minimum     Minimum part size
+     * @param maximum     Maximum part size
+     * @param concurrency Initial number of concurrent parts
+     * @param limit       Maximum number of concurrent parts
+     * @param target      Target duration for a single part in milliseconds
+     */
+    public AdaptivePartController(final long partsize, final long minimum, final long maximum,
+                                  final int concurrency, final int limit, final long target) {
+        this.minimum = minimum;
+        this.maximum = maximum;
+        this.limit = Math.max(1, limit);
+        this.target = target;
+        this.partsize = Math.max(minimum, Math.min(partsize, maximum));
+        this.concurrency = Math.max(1, Math.min(concurrency, this.limit));
+    }
+
+    /**
+     * @return Size for next part
+     */
+    public synchronized long getPartsize() {
+        return partsize;
+    }
+
+    public synchronized int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * Wait until the number of parts in flight is below current concurrency
+     */
+    public synchronized void acquire() throws InterruptedException {
+        while(inflight >= concurrency) {
+            this.wait();
+        }
+        inflight++;
+    }
+
+    /**
+     * Part no longer in flight
+     */
+    public synchronized void release() {
+        inflight--;
+        this.notifyAll();
+    }
+
+    /**
+     * @param length Size of completed part
+     * @param time   Duration in milliseconds
+     */
+    public synchronized void success(final long length, final long time) {
+        if(time < target / 2) {
+            partsize = Math.min(partsize * 2, maximum);
+        }
+        else if(time > target * 2) {
+            partsize = Math.max(partsize / 2, minimum);
+        }
+        bytes += length;
+        parts++;
+        if(parts >= concurrency) {
+            final long now = System.currentTimeMillis();
+            final double current = (double) bytes / Math.max(1L, now - timestamp);
+            if(current < throughput) {
+                // Reverse direction
+                step = -step;
+            }
+            concurrency = Math.max(1, Math.min(concurrency + step, limit));
+            throughput = current;
+            bytes = 0L;
+            parts = 0;
+            timestamp = now;
+            if(log.isDebugEnabled()) {
+                log.debug(String.format("Adjust to part size %d and concurrency %d", partsize, concurrency));
+            }
+        }
+        this.notifyAll();
+    }
+
+    public synchronized void failure() {
+        concurrency = Math.max(1, concurrency / 2);
+        step = 1;
+        bytes = 0L;
+        parts = 0;
+        throughput = 0d;
+        timestamp = System.currentTimeMillis();
+        if(log.isDebugEnabled()) {
+            log.debug(String.format("Reduce concurrency to %d after failure", concurrency));
+        }
+        this.notifyAll();
+    }
+}
@@ -0,0 +1,229 @@
+package ch.cyberduck.core.threading;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.DefaultIOExceptionMappingService;
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.exception.ConnectionCanceledException;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * Schedules parts of multipart uploads from all transfers on a shared thread pool limiting the number of bytes in flight.
+ */
+public final class PartScheduler {
+    private static final Logger log = Logger.getLogger(PartScheduler.class);
+
+    private static PartScheduler global;
+
+    /**
+     * The number of threads from queue.parts.concurrency is determined on first use and kept until restart. The
+     * limit of bytes in flight from queue.parts.inflight is read for every part.
+     *
+     * @return Shared scheduler for all transfers
+     */
+    public static synchronized PartScheduler get() {
+        if(null == global) {
+            global = new PartScheduler(PreferencesFactory.get().getInteger("queue.parts.concurrency"),
+                () -> PreferencesFactory.get().getLong("queue.parts.inflight"));
+        }
+        return global;
+    }
+
+    private final ThreadPool pool;
+
+    /**
+     * Maximum number of bytes of parts submitted and not completed
+     */
+    private final LongSupplier limit;
+    private long inflight;
+
+    /**
+     * @param concurrency Number of parts transferred concurrently
+     * @param limit       Maximum number of bytes in flight
+     */
+    public PartScheduler(final int concurrency, final long limit) {
+        this(concurrency, () -> limit);
+    }
+
+    /**
+     * @param concurrency Number of parts transferred concurrently
+     * @param limit       Maximum number of bytes in flight
+     */
+    private PartScheduler(final int concurrency, final LongSupplier limit) {
+        this.pool = ThreadPoolFactory.get("part", concurrency);
+        this.limit = limit;
+    }
+
+    /**
+     * @param concurrency Maximum number of parts in flight for a single file
+     * @param <T>         Part upload result
+     * @return Parts of a single file
+     */
+    public <T> Batch<T> batch(final int concurrency) {
+        return new Batch<T>(concurrency);
+    }
+
+    /**
+     * Wait until bytes are available. A part larger than the limit is admitted when no other part is in flight.
+     */
+    private synchronized void acquire(final long length) throws InterruptedException {
+        while(inflight > 0 && inflight + length > limit.getAsLong()) {
+            this.wait();
+        }
+        inflight += length;
+    }
+
+    private synchronized void release(final long length) {
+        inflight -= length;
+        this.notifyAll();
+    }
+
+    public final class Batch<T> {
+        private final Semaphore slots;
+        /**
+         * Parts in order of completion
+         */
+        private final BlockingQueue<Future<T>> completed = new LinkedBlockingQueue<Future<T>>();
+        /**
+         * Parts in order of submission
+         */
+        private final List<Future<T>> parts = new ArrayList<Future<T>>();
+
+        private Batch(final int concurrency) {
+            this.slots = new Semaphore(concurrency);
+        }
+
+        /**
+         * Submit part blocking until a slot for this file and enough bytes are available
+         *
+         * @param length Size of part
+         * @param part   Part upload including retry
+         */
+        public void submit(final long length, final Callable<T> part) throws ConnectionCanceledException {
+            try {
+                slots.acquire();
+                try {
+                    acquire(length);
+                }
+                catch(InterruptedException e) {
+                    slots.release();
+                    throw e;
+                }
+            }
+            catch(InterruptedException e) {
+                throw new ConnectionCanceledException(e);
+            }
+            final AtomicBoolean released = new AtomicBoolean();
+            final FutureTask<T> task = new FutureTask<T>(new Callable<T>() {
+                @Override
+                public T call() throws Exception {
+                    try {
+                        return part.call();
+                    }
+                    finally {
+                        this.release();
+                    }
+                }
+
+                private void release() {
+                    if(released.compareAndSet(false, true)) {
+                        PartScheduler.this.release(length);
+                        slots.release();
+                    }
+                }
+            }) {
+                @Override
+                protected void done() {
+                    // Release if canceled before run
+                    if(released.compareAndSet(false, true)) {
+                        PartScheduler.this.release(length);
+                        slots.release();
+                    }
+                    completed.add(this);
+                }
+            };
+            parts.add(task);
+            try {
+                pool.executor().execute(task);
+            }
+            catch(RejectedExecutionException e) {
+                task.cancel(false);
+                throw new ConnectionCanceledException(e);
+            }
+        }
+
+        /**
+         * Wait for all parts to complete. Fails with the first part failing regardless of submission order.
+         *
+         * @return Results in order of submission
+         */
+        public List<T> await() throws BackgroundException {
+            try {
+                for(int i = 0; i < parts.size(); i++) {
+                    completed.take().get();
+                }
+                final List<T> results = new ArrayList<T>(parts.size());
+                for(Future<T> part : parts) {
+                    results.add(part.get());
+                }
+                return results;
+            }
+            catch(InterruptedException | CancellationException e) {
+                log.error("Part upload failed with interrupt failure");
+                throw new ConnectionCanceledException(e);
+            }
+            catch(ExecutionException e) {
+                log.warn(String.format("Part upload failed with execution failure %s", e.getMessage()));
+                if(e.getCause() instanceof BackgroundException) {
+                    throw (BackgroundException) e.getCause();
+                }
+                if(e.getCause() instanceof IOException) {
+                    throw new DefaultIOExceptionMappingService().map((IOException) e.getCause());
+                }
+                throw new BackgroundException(e.getCause());
+            }
+            finally {
+                this.cancel();
+            }
+        }
+
+        /**
+         * Cancel parts not yet completed
+         */
+        public void cancel() {
+            for(Future<T> part : parts) {
+                part.cancel(true);
+            }
+        }
+    }
+}
@@ -24,6 +24,7 @@ import ch.cyberduck.core.ProgressListener;
 import ch.cyberduck.core.TransferErrorCallbackControllerFactory;
 import ch.cyberduck.core.TransferPromptControllerFactory;
 import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.io.BandwidthScheduler;
 import ch.cyberduck.core.io.DisabledStreamListener;
 import ch.cyberduck.core.io.StreamListener;
 import ch.cyberduck.core.notification.NotificationServiceFactory;
@@ -137,6 +138,8 @@ public class TransferBackgroundAction extends TransferWorkerBackgroundAction<Boo
     @Override
     public void prepare() {
         super.prepare();
+        // Apply changed limits for all transfers to the ones already running
+        BandwidthScheduler.get().reload();
         transfer.start();
         listener.transferDidStart(transfer);
         timerPool = new ScheduledThreadPool();
@@ -35,10 +35,17 @@ public class TransferCollectionBackgroundAction extends TransferBackgroundAction
 
     private final TransferQueue queue = TransferQueueFactory.get();
 
+    private final Controller controller;
     private final SessionPool source;
     private final SessionPool destination;
     private final Transfer transfer;
     private final ProgressListener listener;
+    private final TransferListener transferListener;
+
+    /**
+     * Slot in queue already obtained in submit
+     */
+    private volatile boolean admitted;
 
     public TransferCollectionBackgroundAction(final Controller controller,
                                               final SessionPool source,
@@ -48,18 +55,51 @@ public class TransferCollectionBackgroundAction extends TransferBackgroundAction
                                               final Transfer transfer,
                                               final TransferOptions options) {
         super(controller, source, destination, transferListener, listener, transfer, options);
+        this.controller = controller;
         this.source = source;
         this.destination = destination;
         this.transfer = transfer;
         this.listener = listener;
+        this.transferListener = transferListener;
+    }
+
+    /**
+     * Enqueue transfer and run this action in background when a slot in the queue is available. No thread is
+     * blocked while the transfer is waiting. The transfer is marked as running while waiting and can be stopped
+     * with {@link TransferQueue#release(Transfer)}.
+     */
+    public void submit() {
+        // Update status to running
+        transfer.start();
+        transferListener.transferDidStart(transfer);
+        queue.submit(transfer, TransferQueue.DEFAULT_PRIORITY, listener).thenAccept(t -> {
+            if(null == t || this.isCanceled()) {
+                if(log.isInfoEnabled()) {
+                    log.info(String.format("Skip background action for transfer %s removed from queue", transfer));
+                }
+                transfer.stop();
+                transferListener.transferDidStop(transfer);
+                return;
+            }
+            admitted = true;
+            // Schedule on main thread as when started by the user
+            controller.invoke(new ControllerMainAction(controller) {
+                @Override
+                public void run() {
+                    controller.background(TransferCollectionBackgroundAction.this);
+                }
+            });
+        });
     }
 
     @Override
     public void prepare() {
         // Update status to running
         super.prepare();
-        // Wait for slot in queue
-        queue.add(transfer, listener);
+        if(!admitted) {
+            // Wait for slot in queue
+            queue.add(transfer, listener);
+        }
     }
 
     @Override
@@ -121,14 +121,8 @@ public class DownloadTransfer extends Transfer {
             return Collections.emptyList();
         }
         else {
-            final AttributedList<Path> list;
-            if(cache.isCached(directory)) {
-                list = cache.get(directory);
-            }
-            else {
-                list = source.getFeature(ListService.class).list(directory, listener);
-                cache.put(directory, list);
-            }
+            final AttributedList<Path> list = cache.compute(directory,
+                () -> source.getFeature(ListService.class).list(directory, listener));
             final List<TransferItem> children = new ArrayList<TransferItem>();
             // Return copy with filtered result only
             for(Path f : new AttributedList<Path>(list.filter(comparator, filter))) {
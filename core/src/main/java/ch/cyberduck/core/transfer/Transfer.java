@@ -32,6 +32,7 @@ import ch.cyberduck.core.Serializable;
 import ch.cyberduck.core.Session;
 import ch.cyberduck.core.UUIDRandomStringService;
 import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.io.BandwidthScheduler;
 import ch.cyberduck.core.io.BandwidthThrottle;
 import ch.cyberduck.core.io.StreamListener;
 import ch.cyberduck.core.serializer.Serializer;
@@ -163,7 +164,7 @@ public abstract class Transfer implements Serializable {
     public Transfer(final Host host, final List<TransferItem> roots, final BandwidthThrottle bandwidth) {
         this.host = host;
         this.roots.addAll(roots);
-        this.bandwidth = bandwidth;
+        this.setBandwidth(bandwidth);
     }
 
     public abstract Transfer withCache(final Cache<Path> cache);
@@ -199,6 +200,10 @@ public abstract class Transfer implements Serializable {
     }
 
     public void setBandwidth(final BandwidthThrottle bandwidth) {
+        if(bandwidth != null && null == bandwidth.getParent()) {
+            // Share bandwidth with other transfers to same host
+            bandwidth.setParent(BandwidthScheduler.get().getHost(host));
+        }
         this.bandwidth = bandwidth;
     }
 
@@ -19,6 +19,7 @@ package ch.cyberduck.core.transfer;
  * dkocher@cyberduck.ch
  */
 
+import ch.cyberduck.core.Host;
 import ch.cyberduck.core.LocaleFactory;
 import ch.cyberduck.core.ProgressListener;
 import ch.cyberduck.core.local.ApplicationBadgeLabeler;
@@ -32,34 +33,77 @@ import org.apache.log4j.Logger;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
+/**
+ * Admits transfers by a global limit of concurrent transfers and a limit per host. Waiting transfers are kept in a
+ * list and admitted when a slot is released, ordered by priority and then by the number of transfers already running
+ * for the same host, so transfers to other hosts are not starved by many transfers to a single host.
+ */
 public final class TransferQueue {
     private static final Logger log = Logger.getLogger(TransferQueue.class);
 
+    /**
+     * Default priority for transfers
+     */
+    public static final int DEFAULT_PRIORITY = 0;
+
     private final ApplicationBadgeLabeler label
             = ApplicationBadgeLabelerFactory.get();
 
-    private BlockingQueue<Transfer> running;
-
     private final NotificationService notification
             = NotificationServiceFactory.get();
 
-    private final List<Transfer> temporary
-            = new ArrayList<Transfer>();
+    /**
+     * Admitted transfers
+     */
+    private final Set<Transfer> running
+            = new LinkedHashSet<Transfer>();
 
-    private final Map<Transfer, Thread> threads
-            = new HashMap<Transfer, Thread>();
+    /**
+     * Number of admitted transfers by host
+     */
+    private final Map<String, Integer> hosts
+            = new HashMap<String, Integer>();
+
+    /**
+     * Transfers waiting for a slot in order of arrival
+     */
+    private final List<Waiting> waiting
+            = new ArrayList<Waiting>();
+
+    /**
+     * Maximum number of concurrent transfers
+     */
+    private int size;
+
+    /**
+     * Maximum number of concurrent transfers to a single host or -1 for no limit
+     */
+    private final int limit;
 
     public TransferQueue() {
-        this(PreferencesFactory.get().getInteger("queue.connections.limit"));
+        this(PreferencesFactory.get().getInteger("queue.connections.limit"),
+                PreferencesFactory.get().getInteger("queue.connections.host.limit"));
     }
 
     public TransferQueue(final int size) {
-        this.running = new ArrayBlockingQueue<Transfer>(size, true);
+        this(size, -1);
+    }
+
+    /**
+     * @param size  Maximum number of concurrent transfers
+     * @param limit Maximum number of concurrent transfers to a single host or -1 for no limit
+     */
+    public TransferQueue(final int size, final int limit) {
+        this.size = size;
+        this.limit = limit;
     }
 
     /**
@@ -69,31 +113,45 @@ public final class TransferQueue {
      * @param t This transfer should respect the settings for maximum number of transfers
      */
     public void add(final Transfer t, final ProgressListener listener) {
+        try {
+            this.submit(t, DEFAULT_PRIORITY, listener).get();
+        }
+        catch(InterruptedException | ExecutionException e) {
+            log.error(String.format("Error waiting for slot in queue. %s", e.getMessage()));
+        }
+        if(log.isInfoEnabled()) {
+            log.info(String.format("Released from queue %s", t));
+        }
+    }
+
+    /**
+     * Enqueue transfer without blocking the calling thread
+     *
+     * @param t        Transfer
+     * @param priority Waiting transfers with higher priority are started first
+     * @return Completed with the transfer when allowed to start or with null when removed from the queue or
+     * submitted again while waiting
+     */
+    public CompletableFuture<Transfer> submit(final Transfer t, final int priority, final ProgressListener listener) {
         if(log.isDebugEnabled()) {
             log.debug(String.format("Add transfer %s to queue", t));
         }
-        if(0 == running.remainingCapacity()) {
+        final Waiting w;
+        synchronized(this) {
+            // Replace previous submission of the same transfer still waiting
+            this.drop(t);
+            w = new Waiting(t, priority);
+            waiting.add(w);
+            this.poll();
+        }
+        if(!w.future.isDone()) {
             if(log.isInfoEnabled()) {
                 log.info(String.format("Queuing transfer %s", t));
             }
             listener.message(LocaleFactory.localizedString("Maximum allowed connections exceeded. Waiting", "Status"));
             notification.notify("Transfer queued", t.getName());
         }
-        // The maximum number of transfers is already reached. Wait for transfer slot.
-        try {
-            threads.put(t, Thread.currentThread());
-            running.put(t);
-        }
-        catch(InterruptedException e) {
-            log.error(String.format("Error waiting for slot in queue. %s", e.getMessage()));
-        }
-        finally {
-            threads.remove(t);
-        }
-        if(log.isInfoEnabled()) {
-            log.info(String.format("Released from queue %s", t));
-        }
-        label.badge(String.valueOf(running.size()));
+        return w.future;
     }
 
     /**
@@ -103,24 +161,44 @@ public final class TransferQueue {
         if(log.isDebugEnabled()) {
             log.debug(String.format("Remove %s from queue", t));
         }
-        if(running.remove(t)) {
-            if(0 == running.size()) {
-                label.badge(StringUtils.EMPTY);
+        synchronized(this) {
+            if(running.remove(t)) {
+                final String key = key(t.getSource());
+                if(hosts.merge(key, -1, Integer::sum) <= 0) {
+                    hosts.remove(key);
+                }
             }
             else {
-                label.badge(String.valueOf(running.size()));
+                this.drop(t);
             }
+            // Transfer has finished.
+            this.poll();
         }
-        else {
-            final Thread removed = threads.remove(t);
-            if(removed != null) {
-                log.warn(String.format("Interrupt thread %s for transfer %s", removed, t));
-                removed.interrupt();
+    }
+
+    /**
+     * Drop transfer waiting for a slot. No change if the transfer is already admitted.
+     *
+     * @param t Transfer waiting in queue
+     */
+    public void release(final Transfer t) {
+        synchronized(this) {
+            this.drop(t);
+        }
+    }
+
+    /**
+     * Drop transfer from waiting list
+     */
+    private void drop(final Transfer t) {
+        for(Iterator<Waiting> iter = waiting.iterator(); iter.hasNext(); ) {
+            final Waiting w = iter.next();
+            if(w.transfer.equals(t)) {
+                log.warn(String.format("Release waiting transfer %s", t));
+                iter.remove();
+                w.future.complete(null);
             }
-            temporary.remove(t);
         }
-        // Transfer has finished.
-        this.poll();
     }
 
     /**
@@ -130,22 +208,72 @@ public final class TransferQueue {
         if(log.isDebugEnabled()) {
             log.debug(String.format("Resize queue to %d", newsize));
         }
-        final int drained = running.drainTo(temporary);
-        if(log.isDebugEnabled()) {
-            log.debug(String.format("Drained %d elements", drained));
+        synchronized(this) {
+            size = newsize;
+            this.poll();
         }
-        running.clear();
-        running = new ArrayBlockingQueue<Transfer>(newsize);
-        this.poll();
     }
 
     /**
-     * Poll temporary queue
+     * Admit waiting transfers while slots are available
      */
     private void poll() {
         if(log.isDebugEnabled()) {
             log.debug("Polling overflow queue");
         }
-        temporary.removeIf(transfer -> running.offer(transfer));
+        while(running.size() < size) {
+            final Waiting next = this.next();
+            if(null == next) {
+                break;
+            }
+            waiting.remove(next);
+            if(running.add(next.transfer)) {
+                hosts.merge(key(next.transfer.getSource()), 1, Integer::sum);
+            }
+            next.future.complete(next.transfer);
+        }
+        if(running.isEmpty()) {
+            label.badge(StringUtils.EMPTY);
+        }
+        else {
+            label.badge(String.valueOf(running.size()));
+        }
+    }
+
+    /**
+     * @return Waiting transfer with highest priority and fewest running transfers for its host within host limit
+     */
+    private Waiting next() {
+        Waiting selected = null;
+        int selectedCount = 0;
+        for(Waiting w : waiting) {
+            final int count = hosts.getOrDefault(key(w.transfer.getSource()), 0);
+            if(limit > 0 && count >= limit) {
+                continue;
+            }
+            if(null == selected
+                    || w.priority > selected.priority
+                    || w.priority == selected.priority && count < selectedCount) {
+                selected = w;
+                selectedCount = count;
+            }
+        }
+        return selected;
+    }
+
+    private static String key(final Host host) {
+        return String.format("%s:%d", host.getHostname(), host.getPort());
+    }
+
+    private static final class Waiting {
+        private final Transfer transfer;
+        private final int priority;
+        private final CompletableFuture<Transfer> future
+                = new CompletableFuture<Transfer>();
+
+        private Waiting(final Transfer transfer, final int priority) {
+            this.transfer = transfer;
+            this.priority = priority;
+        }
     }
 }
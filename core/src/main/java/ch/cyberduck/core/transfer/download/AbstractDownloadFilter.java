@@ -212,21 +212,22 @@ public abstract class AbstractDownloadFilter implements TransferPathFilter {
                             status.getLength() / preferences.getInteger("queue.connections.limit"));
                         // Sorted list
                         final List<TransferStatus> segments = new ArrayList<TransferStatus>();
-                        final Local segmentsFolder = LocalFactory.get(local.getParent(), String.format("%s.cyberducksegment", local.getName()));
                         for(int segmentNumber = 1; remaining > 0; segmentNumber++) {
-                            final Local segmentFile = LocalFactory.get(
-                                segmentsFolder, String.format("%s-%d.cyberducksegment", local.getName(), segmentNumber));
-                            boolean skip = false;
                             // Last part can be less than 5 MB. Adjust part size.
                             Long length = Math.min(partsize, remaining);
                             final TransferStatus segmentStatus = new TransferStatus()
                                 .segment(true)
                                 .append(true)
                                 .skip(offset)
-                                .length(length)
-                                .rename(segmentFile);
+                                .length(length);
+                            if(!preferences.getBoolean("queue.download.segments.positional")) {
+                                final Local segmentsFolder = LocalFactory.get(local.getParent(), String.format("%s.cyberducksegment", local.getName()));
+                                final Local segmentFile = LocalFactory.get(
+                                    segmentsFolder, String.format("%s-%d.cyberducksegment", local.getName(), segmentNumber));
+                                segmentStatus.rename(segmentFile);
+                            }
                             if(log.isDebugEnabled()) {
-                                log.debug(String.format("Adding status %s for segment %s", segmentStatus, segmentFile));
+                                log.debug(String.format("Adding status %s for segment %d", segmentStatus, segmentNumber));
                             }
                             segments.add(segmentStatus);
                             remaining -= length;
@@ -246,7 +247,29 @@ public abstract class AbstractDownloadFilter implements TransferPathFilter {
     @Override
     public void apply(final Path file, final Local local, final TransferStatus status,
                       final ProgressListener listener) throws BackgroundException {
-        //
+        if(status.isSegmented()) {
+            if(this.isPositional(status)) {
+                // Segments are written to their range in the target file. Remove previous content
+                if(local.exists()) {
+                    if(log.isInfoEnabled()) {
+                        log.info(String.format("Delete %s before writing segments", local));
+                    }
+                    local.delete();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return True if segments are written directly to the target file instead of separate segment files
+     */
+    private boolean isPositional(final TransferStatus status) {
+        for(TransferStatus segment : status.getSegments()) {
+            if(segment.getRename().local != null) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -266,7 +289,7 @@ public abstract class AbstractDownloadFilter implements TransferPathFilter {
             return;
         }
         if(status.isComplete()) {
-            if(status.isSegmented()) {
+            if(status.isSegmented() && !this.isPositional(status)) {
                 // Obtain ordered list of segments to reassemble
                 final List<TransferStatus> segments = status.getSegments();
                 if(log.isInfoEnabled()) {
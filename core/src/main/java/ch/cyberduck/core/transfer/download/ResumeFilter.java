@@ -90,6 +90,10 @@ public class ResumeFilter extends AbstractDownloadFilter {
         if(status.isSegmented()) {
             for(TransferStatus segmentStatus : status.getSegments()) {
                 final Local segmentFile = segmentStatus.getRename().local;
+                if(null == segmentFile) {
+                    // Progress of segments written to target file is unknown
+                    continue;
+                }
                 if(segmentFile.exists()) {
                     if(log.isInfoEnabled()) {
                         log.info(String.format("Determine if part %s can be skipped", segmentStatus));
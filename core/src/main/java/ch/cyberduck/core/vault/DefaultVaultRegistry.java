@@ -212,6 +212,11 @@ public class DefaultVaultRegistry extends CopyOnWriteArraySet<Vault> implements
         if(type == Search.class) {
             return (T) new VaultRegistrySearchFeature(session, (Search) proxy, this);
         }
+        if(type == RecursiveList.class) {
+            return (T) new VaultRegistryRecursiveListFeature(session, (RecursiveList) proxy, this)
+                .withAutodetect(preferences.getBoolean("cryptomator.vault.autodetect")
+                );
+        }
         if(type == TransferAcceleration.class) {
             return (T) new VaultRegistryTransferAccelerationFeature<>(session, (TransferAcceleration) proxy, this);
         }
@@ -0,0 +1,79 @@
+package ch.cyberduck.core.vault.registry;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.AttributedList;
+import ch.cyberduck.core.ListProgressListener;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.Session;
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.features.RecursiveList;
+import ch.cyberduck.core.features.Vault;
+import ch.cyberduck.core.preferences.Preferences;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+import ch.cyberduck.core.vault.VaultRegistry;
+import ch.cyberduck.core.vault.VaultUnlockCancelException;
+
+public class VaultRegistryRecursiveListFeature implements RecursiveList {
+
+    private final Preferences preferences = PreferencesFactory.get();
+
+    private final Session<?> session;
+    private final RecursiveList proxy;
+    private final VaultRegistry registry;
+
+    private boolean autodetect = preferences.getBoolean("cryptomator.vault.autodetect")
+        && preferences.getBoolean("cryptomator.enable");
+
+    public VaultRegistryRecursiveListFeature(final Session<?> session, final RecursiveList proxy, final VaultRegistry registry) {
+        this.session = session;
+        this.proxy = proxy;
+        this.registry = registry;
+    }
+
+    @Override
+    public AttributedList<Path> list(final Path directory, final ListProgressListener listener) throws BackgroundException {
+        return proxy.list(directory, listener);
+    }
+
+    @Override
+    public boolean isSupported(final Path directory) {
+        if(autodetect) {
+            // Vaults in subdirectories are only detected when listing per directory
+            return false;
+        }
+        try {
+            // Encrypted names and sizes must be listed per directory
+            return registry.find(session, directory).equals(Vault.DISABLED) && proxy.isSupported(directory);
+        }
+        catch(VaultUnlockCancelException e) {
+            return false;
+        }
+    }
+
+    public VaultRegistryRecursiveListFeature withAutodetect(final boolean autodetect) {
+        this.autodetect = autodetect && preferences.getBoolean("cryptomator.enable");
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("VaultRegistryRecursiveListFeature{");
+        sb.append("proxy=").append(proxy);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -31,12 +31,13 @@ import ch.cyberduck.core.ProgressListener;
 import ch.cyberduck.core.Session;
 import ch.cyberduck.core.SleepPreventer;
 import ch.cyberduck.core.SleepPreventerFactory;
-import ch.cyberduck.core.TransferItemCache;
+import ch.cyberduck.core.SpillingTransferItemCache;
 import ch.cyberduck.core.exception.BackgroundException;
 import ch.cyberduck.core.exception.ConnectionCanceledException;
 import ch.cyberduck.core.exception.TransferCanceledException;
 import ch.cyberduck.core.io.StreamListener;
 import ch.cyberduck.core.notification.NotificationService;
+import ch.cyberduck.core.preferences.PreferencesFactory;
 import ch.cyberduck.core.threading.TransferBackgroundActionState;
 import ch.cyberduck.core.transfer.SynchronizingTransferErrorCallback;
 import ch.cyberduck.core.transfer.Transfer;
@@ -54,6 +55,7 @@ import org.apache.commons.lang3.concurrent.ConcurrentUtils;
 import org.apache.log4j.Logger;
 
 import java.text.MessageFormat;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -87,6 +89,11 @@ public abstract class AbstractTransferWorker extends TransferWorker<Boolean> {
     private final Cache<TransferItem> cache;
     private final ProgressListener progress;
     private final StreamListener stream;
+    /**
+     * Submit files for transfer as soon as their status is determined instead of
+     * waiting for the whole tree to be prepared
+     */
+    private final boolean pipeline;
 
     public AbstractTransferWorker(final Transfer transfer, final TransferOptions options,
                                   final TransferPrompt prompt, final TransferSpeedometer meter,
@@ -96,7 +103,8 @@ public abstract class AbstractTransferWorker extends TransferWorker<Boolean> {
                                   final ConnectionCallback connectionCallback,
                                   final PasswordCallback passwordCallback,
                                   final NotificationService notification) {
-        this(transfer, options, prompt, meter, error, progress, stream, connectionCallback, passwordCallback, notification, new TransferItemCache(Integer.MAX_VALUE));
+        this(transfer, options, prompt, meter, error, progress, stream, connectionCallback, passwordCallback, notification,
+            new SpillingTransferItemCache(PreferencesFactory.get().getInteger("queue.transfer.cache.size")));
     }
 
     public AbstractTransferWorker(final Transfer transfer, final TransferOptions options,
@@ -132,6 +140,7 @@ public abstract class AbstractTransferWorker extends TransferWorker<Boolean> {
         this.notification = notification;
         this.cache = cache;
         this.table = table;
+        this.pipeline = PreferencesFactory.get().getBoolean("queue.transfer.pipeline");
     }
 
     protected enum Connection {
@@ -204,18 +213,28 @@ public abstract class AbstractTransferWorker extends TransferWorker<Boolean> {
             progress.message(MessageFormat.format(LocaleFactory.localizedString("Prepare {0} ({1})", "Status"), transfer.getName(), action.getTitle()));
             transfer.normalize();
 
-            // Calculate information about the files in advance to give progress information
-            for(TransferItem next : transfer.getRoots()) {
-                this.prepare(next.remote, next.local, new TransferStatus().exists(true), action);
+            if(pipeline) {
+                meter.reset();
+                // Files are submitted for transfer while the remaining tree is still prepared
+                for(TransferItem next : transfer.getRoots()) {
+                    this.prepare(next.remote, next.local, new TransferStatus().exists(true), action);
+                }
+                this.await();
             }
-            this.await();
-            meter.reset();
-            transfer.pre(source, destination, table, connectionCallback);
-            // Transfer all files sequentially
-            for(TransferItem next : transfer.getRoots()) {
-                this.transfer(next, action);
+            else {
+                // Calculate information about the files in advance to give progress information
+                for(TransferItem next : transfer.getRoots()) {
+                    this.prepare(next.remote, next.local, new TransferStatus().exists(true), action);
+                }
+                this.await();
+                meter.reset();
+                transfer.pre(source, destination, table, connectionCallback);
+                // Transfer all files sequentially
+                for(TransferItem next : transfer.getRoots()) {
+                    this.transfer(next, action);
+                }
+                this.await();
             }
-            this.await();
         }
         finally {
             transfer.post(source, destination, table, connectionCallback);
@@ -246,6 +265,11 @@ public abstract class AbstractTransferWorker extends TransferWorker<Boolean> {
         }
         if(prompt.isSelected(new TransferItem(file, local))) {
             return this.submit(new RetryTransferCallable() {
+                /**
+                 * Size of file added to transfer
+                 */
+                private boolean counted;
+
                 @Override
                 public TransferStatus call() throws BackgroundException {
                     if(parent.isCanceled()) {
@@ -281,17 +305,43 @@ public abstract class AbstractTransferWorker extends TransferWorker<Boolean> {
                             );
                             // Apply filter
                             filter.apply(item.remote, item.local, status, progress);
-                            // Add transfer length to total bytes
-                            transfer.addSize(status.getLength() + status.getOffset());
-                            // Add skipped bytes
-                            transfer.addTransferred(status.getOffset());
+                            if(!counted) {
+                                // Add transfer length to total bytes once when preparing is retried
+                                transfer.addSize(status.getLength() + status.getOffset());
+                                // Add skipped bytes
+                                transfer.addTransferred(status.getOffset());
+                                counted = true;
+                            }
+                            if(pipeline) {
+                                // Complete set of files is not known in advance
+                                transfer.pre(source, destination, Collections.singletonMap(new TransferItem(file, local), status), connectionCallback);
+                                if(file.isDirectory()) {
+                                    // Return sessions to pool while directory is created with its own connections
+                                    release(source, Connection.source);
+                                    source = null;
+                                    release(destination, Connection.destination);
+                                    destination = null;
+                                    // Create directory before any children is submitted for transfer
+                                    for(TransferStatus segment : status.getSegments()) {
+                                        AbstractTransferWorker.this.segment(new TransferItem(file, local), status, segment, action).call();
+                                    }
+                                    source = borrow(Connection.source);
+                                    destination = borrow(Connection.destination);
+                                }
+                                else {
+                                    // Submit for transfer without waiting for the remaining files to be prepared
+                                    AbstractTransferWorker.this.transfer(new TransferItem(file, local), action);
+                                }
+                            }
                             // Recursive
                             if(file.isDirectory()) {
                                 final List<TransferItem> children;
                                 // Call recursively for all children
                                 children = transfer.list(source, destination, file, local, new WorkerListProgressListener(AbstractTransferWorker.this, progress));
-                                // Put into cache for later reference when transferring
-                                cache.put(item, new AttributedList<TransferItem>(children));
+                                if(!pipeline) {
+                                    // Put into cache for later reference when transferring
+                                    cache.put(item, new AttributedList<TransferItem>(children));
+                                }
                                 // Call recursively
                                 for(TransferItem f : children) {
                                     // Change download path relative to parent local folder
@@ -312,8 +362,8 @@ public abstract class AbstractTransferWorker extends TransferWorker<Boolean> {
                             // Retry immediately
                             return call();
                         }
-                        if(table.size() == 0) {
-                            // Fail fast when first item in queue fails preparing
+                        if(isSingle(new TransferItem(file, local))) {
+                            // Fail fast when single root of transfer fails preparing
                             throw e;
                         }
                         // Prompt to continue or abort for application errors
@@ -354,6 +404,113 @@ public abstract class AbstractTransferWorker extends TransferWorker<Boolean> {
         return null;
     }
 
+    /**
+     * Independent of the number of files prepared so far which is incomplete when files are transferred while
+     * preparing in pipeline mode
+     *
+     * @param item File in transfer
+     * @return True if item is the only root of the transfer
+     */
+    private boolean isSingle(final TransferItem item) {
+        final List<TransferItem> roots = transfer.getRoots();
+        return roots.size() == 1 && roots.get(0).equals(item);
+    }
+
+    /**
+     * @param item    File to transfer
+     * @param status  Transfer status of file
+     * @param segment Segment of file to transfer
+     * @param action  Transfer action for existing files
+     * @return Callable transferring segment with retry
+     */
+    private RetryTransferCallable segment(final TransferItem item, final TransferStatus status, final TransferStatus segment, final TransferAction action) {
+        // Determine before item is updated with transferred file
+        final boolean single = this.isSingle(item);
+        return new RetryTransferCallable() {
+            @Override
+            public TransferStatus call() throws BackgroundException {
+                if(status.isCanceled()) {
+                    throw new TransferCanceledException();
+                }
+                // Transfer
+                Session<?> source = null;
+                Session<?> destination = null;
+                try {
+                    source = borrow(Connection.source);
+                    destination = borrow(Connection.destination);
+                    item.remote = transfer.transfer(source, destination,
+                        segment.getRename().remote != null ? segment.getRename().remote : item.remote,
+                        segment.getRename().local != null ? segment.getRename().local : item.local,
+                        options, segment, connectionCallback, passwordCallback, progress, stream);
+                    // Recursive. Children are submitted while preparing in pipeline mode
+                    if(!pipeline && item.remote.isDirectory()) {
+                        if(!cache.isCached(item)) {
+                            log.warn(String.format("Missing entry for %s in cache", item));
+                        }
+                        for(TransferItem f : cache.get(item)) {
+                            // Recursive
+                            transfer(f, action);
+                        }
+                        cache.remove(item);
+                    }
+                    // Determine transfer filter implementation from selected overwrite action
+                    final TransferPathFilter filter = transfer.filter(source, destination, action, progress);
+                    // Post process of file.
+                    filter.complete(
+                        segment.getRename().remote != null ? segment.getRename().remote : item.remote,
+                        segment.getRename().local != null ? segment.getRename().local : item.local,
+                        options, segment, progress);
+                }
+                catch(ConnectionCanceledException e) {
+                    segment.setFailure();
+                    throw e;
+                }
+                catch(BackgroundException e) {
+                    if(this.retry(e, progress, new TransferBackgroundActionState(status))) {
+                        // Set retry count to make multipart uploads search for existing segments
+                        segment.setRetry(this.getCount());
+                        // Retry immediately
+                        log.info(String.format("Retry %s with transfer status %s", item, segment));
+                        return call();
+                    }
+                    segment.setFailure();
+                    if(single) {
+                        // Fail fast when transferring single root
+                        throw e;
+                    }
+                    // Prompt to continue or abort for application errors
+                    else if(error.prompt(item, e)) {
+                        // Continue
+                        log.warn(String.format("Ignore transfer failure %s", e));
+                    }
+                    else {
+                        throw new ConnectionCanceledException(e);
+                    }
+                }
+                finally {
+                    if(source != null) {
+                        // Return session to pool
+                        release(source, Connection.source);
+                    }
+                    if(destination != null) {
+                        // Return session to pool
+                        release(destination, Connection.destination);
+                    }
+                }
+                return segment;
+            }
+
+            @Override
+            public String toString() {
+                final StringBuilder sb = new StringBuilder("RetryTransferCallable{");
+                sb.append("item=").append(item);
+                sb.append(", status=").append(segment);
+                sb.append('}');
+                return sb.toString();
+            }
+        };
+    }
+
     /**
      * @param item   File to transfer
      * @param action Transfer action for existing files
@@ -368,89 +525,7 @@ public abstract class AbstractTransferWorker extends TransferWorker<Boolean> {
             // Handle submit of one or more segments
             final List<TransferStatus> segments = status.getSegments();
             for(final TransferStatus segment : segments) {
-                this.submit(new RetryTransferCallable() {
-                    @Override
-                    public TransferStatus call() throws BackgroundException {
-                        if(status.isCanceled()) {
-                            throw new TransferCanceledException();
-                        }
-                        // Transfer
-                        Session<?> source = null;
-                        Session<?> destination = null;
-                        try {
-                            source = borrow(Connection.source);
-                            destination = borrow(Connection.destination);
-                            item.remote = transfer.transfer(source, destination,
-                                segment.getRename().remote != null ? segment.getRename().remote : item.remote,
-                                segment.getRename().local != null ? segment.getRename().local : item.local,
-                                options, segment, connectionCallback, passwordCallback, progress, stream);
-                            // Recursive
-                            if(item.remote.isDirectory()) {
-                                if(!cache.isCached(item)) {
-                                    log.warn(String.format("Missing entry for %s in cache", item));
-                                }
-                                for(TransferItem f : cache.get(item)) {
-                                    // Recursive
-                                    transfer(f, action);
-                                }
-                                cache.remove(item);
-                            }
-                            // Determine transfer filter implementation from selected overwrite action
-                            final TransferPathFilter filter = transfer.filter(source, destination, action, progress);
-                            // Post process of file.
-                            filter.complete(
-                                segment.getRename().remote != null ? segment.getRename().remote : item.remote,
-                                segment.getRename().local != null ? segment.getRename().local : item.local,
-                                options, segment, progress);
-                        }
-                        catch(ConnectionCanceledException e) {
-                            segment.setFailure();
-                            throw e;
-                        }
-                        catch(BackgroundException e) {
-                            if(this.retry(e, progress, new TransferBackgroundActionState(status))) {
-                                // Set retry count to make multipart uploads search for existing segments
-                                segment.setRetry(this.getCount());
-                                // Retry immediately
-                                log.info(String.format("Retry %s with transfer status %s", item, segment));
-                                return call();
-                            }
-                            segment.setFailure();
-                            if(table.size() == 1) {
-                                // Fail fast when transferring single file
-                                throw e;
-                            }
-                            // Prompt to continue or abort for application errors
-                            else if(error.prompt(item, e)) {
-                                // Continue
-                                log.warn(String.format("Ignore transfer failure %s", e));
-                            }
-                            else {
-                                throw new ConnectionCanceledException(e);
-                            }
-                        }
-                        finally {
-                            if(source != null) {
-                                // Return session to pool
-                                release(source, Connection.source);
-                            }
-                            if(destination != null) {
-                                // Return session to pool
-                                release(destination, Connection.destination);
-                            }
-                        }
-                        return segment;
-                    }
-
-                    @Override
-                    public String toString() {
-                        final StringBuilder sb = new StringBuilder("RetryTransferCallable{");
-                        sb.append("item=").append(item);
-                        sb.append(", status=").append(segment);
-                        sb.append('}');
-                        return sb.toString();
-                    }
-                });
+                this.submit(this.segment(item, status, segment, action));
             }
             return this.submit(new TransferCallable() {
                 @Override
@@ -19,6 +19,7 @@ package ch.cyberduck.core.worker;
  * dkocher@cyberduck.ch
  */
 
+import ch.cyberduck.core.AttributedList;
 import ch.cyberduck.core.ListService;
 import ch.cyberduck.core.LocaleFactory;
 import ch.cyberduck.core.Path;
@@ -26,9 +27,20 @@ import ch.cyberduck.core.ProgressListener;
 import ch.cyberduck.core.Session;
 import ch.cyberduck.core.exception.BackgroundException;
 import ch.cyberduck.core.exception.ConnectionCanceledException;
+import ch.cyberduck.core.features.RecursiveList;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+import ch.cyberduck.core.threading.ThreadPool;
+import ch.cyberduck.core.threading.ThreadPoolFactory;
 
 import java.text.MessageFormat;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+
+import com.google.common.util.concurrent.MoreExecutors;
 
 public abstract class CalculateSizeWorker extends Worker<Long> {
 
@@ -48,34 +60,108 @@ public abstract class CalculateSizeWorker extends Worker<Long> {
 
     @Override
     public Long run(final Session<?> session) throws BackgroundException {
-        for(Path next : files) {
-            next.attributes().setSize(this.calculateSize(session, next));
+        final ListService list = session.getFeature(ListService.class);
+        final RecursiveList recursive = session.getFeature(RecursiveList.class);
+        // Sessions of stateless protocols are shared between threads
+        final ThreadPool pool = session.getHost().getProtocol().isStateful() ? null :
+            ThreadPoolFactory.get("size", PreferencesFactory.get().getInteger("browser.size.concurrency"));
+        try {
+            final CompletionService<AttributedList<Path>> completion = new ExecutorCompletionService<>(
+                null == pool ? MoreExecutors.newDirectExecutorService() : pool.executor());
+            for(Path next : files) {
+                if(this.isCanceled()) {
+                    throw new ConnectionCanceledException();
+                }
+                listener.message(MessageFormat.format(LocaleFactory.localizedString("Getting size of {0}", "Status"),
+                    next.getName()));
+                if(next.isDirectory()) {
+                    if(null != recursive && recursive.isSupported(next)) {
+                        next.attributes().setSize(this.calculateSize(recursive.list(next, new WorkerListProgressListener(this, listener))));
+                    }
+                    else {
+                        next.attributes().setSize(this.calculateSize(list, completion, next));
+                    }
+                }
+                else if(next.isFile()) {
+                    this.calculateSize(Collections.singletonList(next));
+                }
+            }
+            return total;
+        }
+        finally {
+            if(pool != null) {
+                pool.shutdown(false);
+            }
         }
-        return total;
     }
 
     /**
-     * Calculates recursively the size of this path if a directory
+     * Calculates recursively the size of a directory listing subdirectories concurrently
      * Potentially lengthy operation
      *
-     * @param p Directory or file
-     * @return The size of the file or the sum of all containing files if a directory
+     * @param directory Directory
+     * @return The sum of all containing files
      */
-    private long calculateSize(final Session<?> session, final Path p) throws BackgroundException {
+    private long calculateSize(final ListService list, final CompletionService<AttributedList<Path>> completion,
+                               final Path directory) throws BackgroundException {
         long size = 0;
-        if(this.isCanceled()) {
-            throw new ConnectionCanceledException();
+        int outstanding = 0;
+        this.submit(list, completion, directory);
+        outstanding++;
+        while(outstanding > 0) {
+            if(this.isCanceled()) {
+                throw new ConnectionCanceledException();
+            }
+            final AttributedList<Path> children;
+            try {
+                children = completion.take().get();
+            }
+            catch(InterruptedException e) {
+                throw new ConnectionCanceledException(e);
+            }
+            catch(ExecutionException e) {
+                if(e.getCause() instanceof BackgroundException) {
+                    throw (BackgroundException) e.getCause();
+                }
+                throw new DefaultExceptionMappingService().map(e.getCause());
+            }
+            finally {
+                outstanding--;
+            }
+            for(Path child : children) {
+                if(child.isDirectory()) {
+                    this.submit(list, completion, child);
+                    outstanding++;
+                }
+            }
+            size += this.calculateSize(children);
         }
-        listener.message(MessageFormat.format(LocaleFactory.localizedString("Getting size of {0}", "Status"),
-                p.getName()));
-        if(p.isDirectory()) {
-            for(Path next : session.getFeature(ListService.class).list(p, new WorkerListProgressListener(this, listener))) {
-                size += this.calculateSize(session, next);
+        return size;
+    }
+
+    private void submit(final ListService list, final CompletionService<AttributedList<Path>> completion, final Path directory) {
+        completion.submit(new Callable<AttributedList<Path>>() {
+            @Override
+            public AttributedList<Path> call() throws BackgroundException {
+                return list.list(directory, new WorkerListProgressListener(CalculateSizeWorker.this, listener));
+            }
+        });
+    }
+
+    /**
+     * @param files Files found
+     * @return The sum of the size of all files
+     */
+    private long calculateSize(final List<Path> files) {
+        long size = 0;
+        for(Path file : files) {
+            if(file.isFile()) {
+                size += file.attributes().getSize();
             }
         }
-        else if(p.isFile()) {
-            size += p.attributes().getSize();
+        if(size > 0) {
             total += size;
+            // Publish partial total
             this.update(total);
         }
         return size;
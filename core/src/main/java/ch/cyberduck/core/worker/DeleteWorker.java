@@ -18,6 +18,7 @@ package ch.cyberduck.core.worker;
  * dkocher@cyberduck.ch
  */
 
+import ch.cyberduck.core.AttributedList;
 import ch.cyberduck.core.Filter;
 import ch.cyberduck.core.ListProgressListener;
 import ch.cyberduck.core.ListService;
@@ -30,16 +31,28 @@ import ch.cyberduck.core.Session;
 import ch.cyberduck.core.exception.BackgroundException;
 import ch.cyberduck.core.exception.ConnectionCanceledException;
 import ch.cyberduck.core.features.Delete;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+import ch.cyberduck.core.threading.ThreadPool;
+import ch.cyberduck.core.threading.ThreadPoolFactory;
 
 import org.apache.log4j.Logger;
 
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.LinkedHashSet;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+
+import com.google.common.util.concurrent.MoreExecutors;
 
 public class DeleteWorker extends Worker<List<Path>> {
 
@@ -68,55 +81,187 @@ public class DeleteWorker extends Worker<List<Path>> {
     public List<Path> run(final Session<?> session) throws BackgroundException {
         final Delete delete = session.getFeature(Delete.class);
         final ListService list = session.getFeature(ListService.class);
-        final List<Path> recursive = new ArrayList<Path>();
-        for(Path file : files) {
-            if(this.isCanceled()) {
-                throw new ConnectionCanceledException();
+        // Sessions of stateless protocols are shared between threads
+        final ThreadPool pool = session.getHost().getProtocol().isStateful() ? null :
+            ThreadPoolFactory.get("delete", PreferencesFactory.get().getInteger("browser.delete.concurrency"));
+        try {
+            final Walk walk = new Walk(delete, list, null == pool ? MoreExecutors.newDirectExecutorService() : pool.executor());
+            for(Path file : files) {
+                if(this.isCanceled()) {
+                    throw new ConnectionCanceledException();
+                }
+                if(file.isFile() || file.isSymbolicLink()) {
+                    final Path copy = new Path(file);
+                    if(!file.attributes().isDuplicate()) {
+                        // Add delete marker
+                        log.debug(String.format("Nullify version to add delete marker for %s", file));
+                        copy.attributes().setVersionId(null);
+                    }
+                    walk.enqueue(copy);
+                }
+                else if(file.isDirectory()) {
+                    if(delete.isRecursive()) {
+                        walk.enqueue(file);
+                    }
+                    else {
+                        walk.submit(file);
+                    }
+                }
             }
-            recursive.addAll(this.compile(delete, list, new WorkerListProgressListener(this, listener), file));
+            walk.await();
+            return walk.deleted;
         }
-        delete.delete(recursive, prompt, new Delete.Callback() {
-            @Override
-            public void delete(final Path file) {
-                listener.message(MessageFormat.format(LocaleFactory.localizedString("Deleting {0}", "Status"),
-                    file.getName()));
+        finally {
+            if(pool != null) {
+                pool.shutdown(false);
             }
-        });
-        return recursive;
+        }
     }
 
-    protected Set<Path> compile(final Delete delete, final ListService list, final ListProgressListener listener, final Path file) throws BackgroundException {
-        // Compile recursive list
-        final Set<Path> recursive = new LinkedHashSet<>();
-        if(file.isFile() || file.isSymbolicLink()) {
-            final Path copy = new Path(file);
-            if(!file.attributes().isDuplicate()) {
-                // Add delete marker
-                log.debug(String.format("Nullify version to add delete marker for %s", file));
-                copy.attributes().setVersionId(null);
+    /**
+     * Lists directories concurrently and deletes discovered files in batches while the walk continues. A directory
+     * is queued for deletion after all of its children are queued. Batches are deleted in order on the calling thread.
+     */
+    private final class Walk {
+        private final Delete delete;
+        private final CompletionService<Listing> completion;
+        private final ListService list;
+        private final ListProgressListener progress
+            = new WorkerListProgressListener(DeleteWorker.this, listener);
+        private final int partition
+            = PreferencesFactory.get().getInteger("browser.delete.partition");
+
+        /**
+         * Number of children not yet queued for deletion by listed directory
+         */
+        private final Map<Path, Integer> pending = new HashMap<>();
+        private final Set<Path> walked = new HashSet<>();
+        private final Set<Path> queued = new HashSet<>();
+        private final List<Path> batch = new ArrayList<>();
+        private final List<Path> deleted = new ArrayList<>();
+        private int outstanding;
+
+        private Walk(final Delete delete, final ListService list, final ExecutorService executor) {
+            this.delete = delete;
+            this.list = list;
+            this.completion = new ExecutorCompletionService<>(executor);
+        }
+
+        private void submit(final Path directory) {
+            if(!walked.add(directory)) {
+                return;
             }
-            recursive.add(copy);
+            completion.submit(new Callable<Listing>() {
+                @Override
+                public Listing call() throws BackgroundException {
+                    return new Listing(directory, list.list(directory, progress).filter(filter));
+                }
+            });
+            outstanding++;
         }
-        else if(file.isDirectory()) {
-            if(!delete.isRecursive()) {
-                for(Path child : list.list(file, listener).filter(filter)) {
-                    if(this.isCanceled()) {
-                        throw new ConnectionCanceledException();
-                    }
-                    if(child.attributes().isDuplicate() && child.isFile()) {
-                        // Delete latest version only, skip this duplicate
-                        log.debug(String.format("Skip duplicate %s", child));
-                        continue;
+
+        private void await() throws BackgroundException {
+            while(outstanding > 0) {
+                if(isCanceled()) {
+                    throw new ConnectionCanceledException();
+                }
+                final Listing listing;
+                try {
+                    listing = completion.take().get();
+                }
+                catch(InterruptedException e) {
+                    throw new ConnectionCanceledException(e);
+                }
+                catch(ExecutionException e) {
+                    if(e.getCause() instanceof BackgroundException) {
+                        throw (BackgroundException) e.getCause();
                     }
-                    final Path copy = new Path(child);
-                    copy.attributes().setVersionId(null);
-                    recursive.addAll(this.compile(delete, list, listener, copy));
+                    throw new DefaultExceptionMappingService().map(e.getCause());
                 }
+                finally {
+                    outstanding--;
+                }
+                this.found(listing);
             }
-            // Add parent after children
-            recursive.add(file);
+            this.flush();
+        }
+
+        private void found(final Listing listing) throws BackgroundException {
+            final List<Path> children = new ArrayList<>();
+            for(Path child : listing.children) {
+                if(child.attributes().isDuplicate() && child.isFile()) {
+                    // Delete latest version only, skip this duplicate
+                    log.debug(String.format("Skip duplicate %s", child));
+                    continue;
+                }
+                final Path copy = new Path(child);
+                copy.attributes().setVersionId(null);
+                if(queued.contains(copy)) {
+                    continue;
+                }
+                children.add(copy);
+            }
+            if(children.isEmpty()) {
+                this.enqueue(listing.directory);
+                return;
+            }
+            pending.put(listing.directory, children.size());
+            for(Path child : children) {
+                if(child.isFile() || child.isSymbolicLink()) {
+                    this.enqueue(child);
+                }
+                else if(child.isDirectory()) {
+                    this.submit(child);
+                }
+            }
+        }
+
+        private void enqueue(final Path file) throws BackgroundException {
+            if(queued.add(file)) {
+                batch.add(file);
+                if(batch.size() >= partition) {
+                    this.flush();
+                }
+            }
+            final Path parent = file.getParent();
+            final Integer count = pending.get(parent);
+            if(null != count) {
+                if(count == 1) {
+                    // Add parent after children
+                    pending.remove(parent);
+                    this.enqueue(parent);
+                }
+                else {
+                    pending.put(parent, count - 1);
+                }
+            }
+        }
+
+        private void flush() throws BackgroundException {
+            if(batch.isEmpty()) {
+                return;
+            }
+            final List<Path> files = new ArrayList<>(batch);
+            batch.clear();
+            delete.delete(files, prompt, new Delete.Callback() {
+                @Override
+                public void delete(final Path file) {
+                    listener.message(MessageFormat.format(LocaleFactory.localizedString("Deleting {0}", "Status"),
+                        file.getName()));
+                }
+            });
+            deleted.addAll(files);
+        }
+    }
+
+    private static final class Listing {
+        private final Path directory;
+        private final AttributedList<Path> children;
+
+        private Listing(final Path directory, final AttributedList<Path> children) {
+            this.directory = directory;
+            this.children = children;
         }
-        return recursive;
     }
 
     @Override
@@ -80,4 +80,58 @@ public class AttributedListTest {
         assertNotSame(list, list.filter(new NullFilter<>()));
         assertEquals(list, list.filter(new NullFilter<>()));
     }
+
+    @Test
+    public void testFindIndex() throws Exception {
+        final AttributedList<Path> list = new AttributedList<Path>();
+        final Path a = new Path("/a", EnumSet.of(Path.Type.directory));
+        assertTrue(list.add(a));
+        assertSame(a, list.find(Path::getAbsolute, "/a", new SimplePathPredicate(a)));
+        // Appended after lookup
+        final Path b = new Path("/b", EnumSet.of(Path.Type.file));
+        assertTrue(list.add(b));
+        assertSame(b, list.find(Path::getAbsolute, "/b", new SimplePathPredicate(b)));
+        assertNull(list.find(Path::getAbsolute, "/b", new SimplePathPredicate(new Path("/b", EnumSet.of(Path.Type.directory)))));
+        assertNull(list.find(Path::getAbsolute, "/c", new SimplePathPredicate(new Path("/c", EnumSet.of(Path.Type.file)))));
+        list.remove(b);
+        assertNull(list.find(Path::getAbsolute, "/b", new SimplePathPredicate(b)));
+    }
+
+    @Test
+    public void testGetReference() throws Exception {
+        final AttributedList<Path> list = new AttributedList<Path>();
+        final Path a = new Path("/a", EnumSet.of(Path.Type.directory));
+        assertTrue(list.add(a));
+        assertSame(a, list.get(new Path("/a", EnumSet.of(Path.Type.directory))));
+        final Path b = new Path("/b", EnumSet.of(Path.Type.file));
+        assertTrue(list.add(b));
+        assertSame(b, list.get(new Path("/b", EnumSet.of(Path.Type.file))));
+        list.remove(a);
+        assertNull(list.get(a));
+        assertSame(b, list.get(b));
+    }
+
+    @Test
+    public void testFindIndexLargeList() throws Exception {
+        final AttributedList<Path> list = new AttributedList<Path>();
+        for(int i = 0; i < 1000; i++) {
+            list.add(new Path(String.format("/f-%d", i), EnumSet.of(Path.Type.file)));
+        }
+        assertEquals(new Path("/f-500", EnumSet.of(Path.Type.file)), list.get(new Path("/f-500", EnumSet.of(Path.Type.file))));
+        assertNull(list.get(new Path("/f-500", EnumSet.of(Path.Type.directory))));
+        // Appended after index is built
+        final Path a = new Path("/a", EnumSet.of(Path.Type.directory));
+        assertTrue(list.add(a));
+        assertSame(a, list.get(new Path("/a", EnumSet.of(Path.Type.directory))));
+        assertSame(a, list.find(Path::getAbsolute, "/a", new SimplePathPredicate(a)));
+        list.remove(a);
+        assertNull(list.get(a));
+        assertEquals(1000, list.size());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testToListUnmodifiable() throws Exception {
+        final AttributedList<Path> list = new AttributedList<Path>();
+        list.toList().add(new Path("/a", EnumSet.of(Path.Type.directory)));
+    }
 }
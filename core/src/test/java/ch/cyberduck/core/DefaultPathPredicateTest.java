@@ -19,6 +19,7 @@ package ch.cyberduck.core;
 
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.EnumSet;
 
 import static org.junit.Assert.*;
@@ -66,6 +67,21 @@ public class DefaultPathPredicateTest {
                 new DefaultPathPredicate(new Path("/container/p", EnumSet.of(Path.Type.directory))));
     }
 
+    @Test
+    public void testHashCode() throws Exception {
+        final Path container = new Path("/container", EnumSet.of(Path.Type.directory, Path.Type.volume));
+        container.attributes().setRegion("r");
+        final Path file = new Path(container, "f", EnumSet.of(Path.Type.file));
+        file.attributes().setVersionId("v");
+        for(Path p : Arrays.asList(container, file, new Path("/", EnumSet.of(Path.Type.directory)),
+            new Path("/l", EnumSet.of(Path.Type.file, Path.Type.symboliclink)))) {
+            // Same as hash code of reference string not retained
+            assertEquals(new DefaultPathPredicate(p).toString().hashCode(), new DefaultPathPredicate(p).hashCode());
+        }
+        assertEquals("[directory]-r/container", new DefaultPathPredicate(container).toString());
+        assertEquals("[file]-v/container/f", new DefaultPathPredicate(file).toString());
+    }
+
     @Test
     public void testPredicateTest() throws Exception {
         final Path t = new Path("/f", EnumSet.of(Path.Type.file));
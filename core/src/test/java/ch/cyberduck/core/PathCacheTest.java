@@ -1,8 +1,14 @@
 package ch.cyberduck.core;
 
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.exception.NotfoundException;
+
 import org.junit.Test;
 
+import java.util.Collections;
 import java.util.EnumSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.*;
 
@@ -68,4 +74,120 @@ public class PathCacheTest {
         assertFalse(cache.containsKey(file));
         assertEquals(0, cache.keySet().size());
     }
+
+    @Test
+    public void testCompute() throws Exception {
+        final PathCache cache = new PathCache(1);
+        final Path directory = new Path("/t", EnumSet.of(Path.Type.directory));
+        final AtomicInteger count = new AtomicInteger();
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Thread t = new Thread(() -> {
+            try {
+                cache.compute(directory, () -> {
+                    count.incrementAndGet();
+                    loading.countDown();
+                    try {
+                        release.await();
+                    }
+                    catch(InterruptedException e) {
+                        fail();
+                    }
+                    return new AttributedList<Path>(Collections.singletonList(new Path(directory, "f", EnumSet.of(Path.Type.file))));
+                });
+            }
+            catch(BackgroundException e) {
+                fail();
+            }
+        });
+        t.start();
+        loading.await();
+        final Thread waiting = new Thread(() -> {
+            try {
+                assertEquals(1, cache.compute(directory, () -> {
+                    count.incrementAndGet();
+                    return AttributedList.emptyList();
+                }).size());
+            }
+            catch(BackgroundException e) {
+                fail();
+            }
+        });
+        waiting.start();
+        release.countDown();
+        t.join();
+        waiting.join();
+        assertEquals(1, count.get());
+        assertTrue(cache.isValid(directory));
+        cache.invalidate(directory);
+        assertTrue(cache.compute(directory, AttributedList::emptyList).isEmpty());
+        assertTrue(cache.compute(directory, () -> {
+            fail();
+            return null;
+        }).isEmpty());
+    }
+
+    @Test(expected = NotfoundException.class)
+    public void testComputeFailure() throws Exception {
+        final PathCache cache = new PathCache(1);
+        final Path directory = new Path("/t", EnumSet.of(Path.Type.directory));
+        try {
+            cache.compute(directory, () -> {
+                throw new NotfoundException("/t");
+            });
+        }
+        finally {
+            assertFalse(cache.isCached(directory));
+        }
+    }
+
+    @Test
+    public void testWeight() throws Exception {
+        final PathCache cache = new PathCache(Integer.MAX_VALUE, 3L);
+        final Path a = new Path("/a", EnumSet.of(Path.Type.directory));
+        final Path b = new Path("/b", EnumSet.of(Path.Type.directory));
+        cache.put(a, new AttributedList<Path>(Collections.singletonList(new Path(a, "f", EnumSet.of(Path.Type.file)))));
+        assertTrue(cache.isCached(a));
+        cache.put(b, new AttributedList<Path>(Collections.singletonList(new Path(b, "f", EnumSet.of(Path.Type.file)))));
+        assertFalse(cache.isCached(a));
+        assertTrue(cache.isCached(b));
+    }
+
+    @Test
+    public void testWeightUpdatedOnPut() throws Exception {
+        final PathCache cache = new PathCache(Integer.MAX_VALUE, 4L);
+        final Path a = new Path("/a", EnumSet.of(Path.Type.directory));
+        final Path b = new Path("/b", EnumSet.of(Path.Type.directory));
+        final AttributedList<Path> list = new AttributedList<Path>();
+        cache.put(a, list);
+        cache.put(b, new AttributedList<Path>(Collections.singletonList(new Path(b, "f", EnumSet.of(Path.Type.file)))));
+        assertTrue(cache.isCached(a));
+        assertTrue(cache.isCached(b));
+        list.add(new Path(a, "f1", EnumSet.of(Path.Type.file)));
+        list.add(new Path(a, "f2", EnumSet.of(Path.Type.file)));
+        cache.put(a, list);
+        assertTrue(cache.isCached(a));
+        assertFalse(cache.isCached(b));
+    }
+
+    @Test
+    public void testWeightLargeListing() throws Exception {
+        final PathCache cache = new PathCache(Integer.MAX_VALUE, 100000L);
+        final Path a = new Path("/a", EnumSet.of(Path.Type.directory));
+        final AttributedList<Path> list = new AttributedList<Path>();
+        for(int i = 0; i < 20000; i++) {
+            list.add(new Path(a, String.valueOf(i), EnumSet.of(Path.Type.file)));
+        }
+        // Heavier than maximum weight divided by number of segments
+        cache.put(a, list);
+        assertTrue(cache.isCached(a));
+        assertEquals(20000, cache.get(a).size());
+    }
+
+    @Test
+    public void testGetNull() throws Exception {
+        final PathCache cache = new PathCache(1);
+        assertTrue(cache.get(null).isEmpty());
+        assertFalse(cache.isCached(null));
+    }
 }
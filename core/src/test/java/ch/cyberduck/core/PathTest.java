@@ -149,4 +149,19 @@ public class PathTest {
         assertTrue(attributes.isSymbolicLink());
         assertTrue(attributes.isDirectory());
     }
+
+    @Test
+    public void testReferenceInvalidated() {
+        final Path file = new Path("/d/f", EnumSet.of(Path.Type.file));
+        final DefaultPathPredicate reference = file.getReference();
+        assertSame(reference, file.getReference());
+        assertEquals(new DefaultPathPredicate(file), file.getReference());
+        file.attributes().setVersionId("v");
+        assertNotSame(reference, file.getReference());
+        assertEquals(new DefaultPathPredicate(file), file.getReference());
+        assertNotEquals(new Path("/d/f", EnumSet.of(Path.Type.file)), file);
+        file.setType(EnumSet.of(Path.Type.directory));
+        assertEquals(new Path("/d/f", EnumSet.of(Path.Type.directory)), file);
+        assertEquals(new Path("/d/f", EnumSet.of(Path.Type.directory)).hashCode(), file.hashCode());
+    }
 }
@@ -0,0 +1,100 @@
+package ch.cyberduck.core;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.preferences.PreferencesFactory;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PersistentPathCacheTest {
+
+    @Test
+    public void testRevalidate() throws Exception {
+        final Local file = new Local(PreferencesFactory.get().getProperty("tmp.dir"), UUID.randomUUID().toString());
+        final PathAttributes attributes = new PathAttributes();
+        attributes.setModificationDate(1000L);
+        final Path directory = new Path("/d", EnumSet.of(Path.Type.directory), attributes);
+        final Path a = new Path(directory, "a", EnumSet.of(Path.Type.file));
+        a.attributes().setSize(3L);
+        a.attributes().setETag("e");
+        a.attributes().setPermission(new Permission(644));
+        final Path b = new Path(directory, "b", EnumSet.of(Path.Type.directory));
+        final Path c = new Path(directory, "c", EnumSet.of(Path.Type.file, Path.Type.symboliclink));
+        c.setSymlinkTarget(new Path("/t/c", EnumSet.of(Path.Type.file)));
+        new PersistentPathCache(file).put(directory, new AttributedList<Path>(Arrays.asList(a, b, c)));
+        // Read from disk
+        final PersistentPathCache cache = new PersistentPathCache(file);
+        assertTrue(cache.isCached(directory));
+        final AttributedList<Path> list = cache.revalidate(directory, attributes);
+        assertNotNull(list);
+        assertEquals(3, list.size());
+        assertEquals(a, list.get(0));
+        assertEquals(3L, list.get(0).attributes().getSize());
+        assertEquals("e", list.get(0).attributes().getETag());
+        assertEquals("644", list.get(0).attributes().getPermission().getMode());
+        assertEquals(b, list.get(1));
+        assertEquals(c, list.get(2));
+        assertTrue(list.get(2).isSymbolicLink());
+        assertEquals(new Path("/t/c", EnumSet.of(Path.Type.file)), list.get(2).getSymlinkTarget());
+        final PathAttributes modified = new PathAttributes();
+        modified.setModificationDate(2000L);
+        assertNull(cache.revalidate(directory, modified));
+        assertNull(cache.revalidate(directory, new PathAttributes()));
+        cache.remove(directory);
+        assertFalse(cache.isCached(directory));
+        assertFalse(new PersistentPathCache(file).isCached(directory));
+        file.delete();
+        new Local(file.getParent(), String.format("%s.lock", file.getName())).delete();
+    }
+
+    @Test
+    public void testSharedFile() throws Exception {
+        final Local file = new Local(PreferencesFactory.get().getProperty("tmp.dir"), UUID.randomUUID().toString());
+        final PathAttributes attributes = new PathAttributes();
+        attributes.setModificationDate(1000L);
+        final Path d1 = new Path("/d1", EnumSet.of(Path.Type.directory), attributes);
+        final Path d2 = new Path("/d2", EnumSet.of(Path.Type.directory), attributes);
+        final PersistentPathCache first = new PersistentPathCache(file);
+        first.put(d1, new AttributedList<Path>(Collections.singletonList(new Path(d1, "a", EnumSet.of(Path.Type.file)))));
+        final PersistentPathCache second = new PersistentPathCache(file);
+        // Many records to compact when loaded
+        for(int i = 0; i < 200; i++) {
+            second.put(d2, new AttributedList<Path>(Collections.singletonList(new Path(d2, "b", EnumSet.of(Path.Type.file)))));
+        }
+        // Appended by other instance
+        assertTrue(first.isCached(d2));
+        // Compacts log
+        assertTrue(new PersistentPathCache(file).isCached(d1));
+        // Index read again after log was replaced
+        final AttributedList<Path> list = first.revalidate(d1, attributes);
+        assertNotNull(list);
+        assertEquals(new Path(d1, "a", EnumSet.of(Path.Type.file)), list.get(0));
+        assertEquals(new Path(d2, "b", EnumSet.of(Path.Type.file)), first.get(d2).get(0));
+        file.delete();
+        new Local(file.getParent(), String.format("%s.lock", file.getName())).delete();
+    }
+}
@@ -0,0 +1,87 @@
+package ch.cyberduck.core;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SnapshotArrayListTest {
+
+    @Test
+    public void testAdd() {
+        final List<Integer> list = new SnapshotArrayList<>();
+        for(int i = 0; i < 100; i++) {
+            assertTrue(list.add(i));
+        }
+        assertEquals(100, list.size());
+        assertEquals(Integer.valueOf(99), list.get(99));
+        assertEquals(50, list.indexOf(50));
+        list.add(0, -1);
+        assertEquals(Integer.valueOf(-1), list.get(0));
+        assertEquals(101, list.size());
+    }
+
+    @Test
+    public void testIteratorSnapshot() {
+        final List<Integer> list = new SnapshotArrayList<>();
+        list.add(1);
+        list.add(2);
+        final Iterator<Integer> iterator = list.iterator();
+        list.add(3);
+        list.remove(0);
+        list.set(0, 4);
+        assertEquals(Integer.valueOf(1), iterator.next());
+        assertEquals(Integer.valueOf(2), iterator.next());
+        assertFalse(iterator.hasNext());
+        assertEquals(Arrays.asList(4, 3), list);
+    }
+
+    @Test
+    public void testRemove() {
+        final List<Integer> list = new SnapshotArrayList<>();
+        list.addAll(Arrays.asList(1, 2, 3, 4));
+        assertTrue(list.remove(Integer.valueOf(2)));
+        assertFalse(list.remove(Integer.valueOf(5)));
+        assertTrue(list.removeIf(i -> i % 2 == 0));
+        assertEquals(Arrays.asList(1, 3), list);
+        list.clear();
+        assertTrue(list.isEmpty());
+        list.add(5);
+        assertEquals(Arrays.asList(5), list);
+    }
+
+    @Test
+    public void testSort() {
+        final List<Integer> list = new SnapshotArrayList<>();
+        list.addAll(Arrays.asList(3, 1, 2));
+        list.sort(Comparator.naturalOrder());
+        assertEquals(Arrays.asList(1, 2, 3), list);
+        assertArrayEquals(new Integer[]{1, 2, 3}, list.toArray(new Integer[0]));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetOutOfBounds() {
+        final List<Integer> list = new SnapshotArrayList<>();
+        list.add(1);
+        list.get(1);
+    }
+}
@@ -0,0 +1,43 @@
+package ch.cyberduck.core;
+
+import ch.cyberduck.core.transfer.TransferItem;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.EnumSet;
+
+import static org.junit.Assert.*;
+
+public class SpillingTransferItemCacheTest {
+
+    @Test
+    public void testSpill() throws Exception {
+        final SpillingTransferItemCache cache = new SpillingTransferItemCache(1);
+        final TransferItem a = new TransferItem(new Path("/a", EnumSet.of(Path.Type.directory)));
+        final TransferItem b = new TransferItem(new Path("/b", EnumSet.of(Path.Type.directory)));
+        final Path file = new Path("/a/f", EnumSet.of(Path.Type.file));
+        file.attributes().setSize(3L);
+        file.attributes().setVersionId("v");
+        cache.put(a, new AttributedList<TransferItem>(Collections.singletonList(new TransferItem(file, new NullLocal("/l/f")))));
+        cache.put(b, new AttributedList<TransferItem>());
+        assertTrue(cache.isCached(a));
+        assertTrue(cache.isCached(b));
+        assertEquals(2, cache.keySet().size());
+        final AttributedList<TransferItem> list = cache.get(a);
+        assertEquals(1, list.size());
+        assertEquals(new TransferItem(file, new NullLocal("/l/f")), list.get(0));
+        assertEquals(3L, list.get(0).remote.attributes().getSize());
+        assertEquals("v", list.get(0).remote.attributes().getVersionId());
+        assertEquals(1, cache.remove(a).size());
+        assertFalse(cache.isCached(a));
+        cache.clear();
+        assertTrue(cache.isEmpty());
+    }
+
+    @Test
+    public void testGet() throws Exception {
+        final SpillingTransferItemCache cache = new SpillingTransferItemCache(1);
+        assertEquals(AttributedList.<TransferItem>emptyList(), cache.get(new TransferItem(new Path("/a", EnumSet.of(Path.Type.directory)))));
+    }
+}
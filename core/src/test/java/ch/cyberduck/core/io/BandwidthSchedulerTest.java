@@ -0,0 +1,63 @@
+package ch.cyberduck.core.io;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Host;
+import ch.cyberduck.core.TestProtocol;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+import static org.junit.Assert.assertEquals;
+
+public class BandwidthSchedulerTest {
+
+    @Test
+    public void testChangeRateWhileTransferring() throws Exception {
+        final BandwidthScheduler scheduler = new BandwidthScheduler(BandwidthThrottle.UNLIMITED, BandwidthThrottle.UNLIMITED);
+        final Host host = new Host(new TestProtocol(), "h");
+        final InputStream in = new ThrottledInputStream(new ByteArrayInputStream(new byte[10000]),
+            new BandwidthThrottle(BandwidthThrottle.UNLIMITED, scheduler.getHost(host)));
+        final byte[] buffer = new byte[1000];
+        assertEquals(1000, in.read(buffer));
+        scheduler.setHostRate(1000f);
+        // 100 bytes per tick
+        assertEquals(100, in.read(buffer));
+        scheduler.setRate(500f);
+        assertEquals(50, in.read(buffer));
+        scheduler.setRate(BandwidthThrottle.UNLIMITED);
+        scheduler.setHostRate(BandwidthThrottle.UNLIMITED);
+        assertEquals(1000, in.read(buffer));
+    }
+
+    @Test
+    public void testReload() {
+        final BandwidthScheduler scheduler = new BandwidthScheduler(BandwidthThrottle.UNLIMITED, BandwidthThrottle.UNLIMITED);
+        final BandwidthThrottle throttle = scheduler.getHost(new Host(new TestProtocol(), "h"));
+        PreferencesFactory.get().setProperty("queue.bandwidth.host.bytes", 1000f);
+        try {
+            scheduler.reload();
+        }
+        finally {
+            PreferencesFactory.get().deleteProperty("queue.bandwidth.host.bytes");
+        }
+        assertEquals(1000f, throttle.getRate(), 0f);
+        assertEquals(BandwidthThrottle.UNLIMITED, scheduler.getGlobal().getRate(), 0f);
+    }
+}
@@ -0,0 +1,59 @@
+package ch.cyberduck.core.io;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class BandwidthThrottleTest {
+
+    @Test
+    public void testUnlimited() {
+        assertEquals(1000, new BandwidthThrottle(BandwidthThrottle.UNLIMITED).request(1000));
+        assertEquals(1000, new BandwidthThrottle(BandwidthThrottle.UNLIMITED,
+            new BandwidthThrottle(BandwidthThrottle.UNLIMITED)).request(1000));
+    }
+
+    @Test
+    public void testParent() {
+        final BandwidthThrottle parent = new BandwidthThrottle(1000f);
+        // 100 bytes per tick
+        assertEquals(100, new BandwidthThrottle(BandwidthThrottle.UNLIMITED, parent).request(1000));
+        final BandwidthThrottle child = new BandwidthThrottle(500f, new BandwidthThrottle(1000f));
+        assertEquals(50, child.request(1000));
+    }
+
+    @Test
+    public void testRefund() {
+        final BandwidthThrottle parent = new BandwidthThrottle(200f);
+        final BandwidthThrottle child = new BandwidthThrottle(1000f, parent);
+        // Limited to 20 bytes by parent
+        assertEquals(20, child.request(100));
+        parent.setRate(1000f);
+        // Bytes not granted by parent are available again
+        assertEquals(80, child.request(100));
+    }
+
+    @Test
+    public void testSetRate() {
+        final BandwidthThrottle parent = new BandwidthThrottle(BandwidthThrottle.UNLIMITED);
+        final BandwidthThrottle child = new BandwidthThrottle(BandwidthThrottle.UNLIMITED, parent);
+        assertEquals(1000, child.request(1000));
+        parent.setRate(1000f);
+        assertEquals(100, child.request(1000));
+    }
+}
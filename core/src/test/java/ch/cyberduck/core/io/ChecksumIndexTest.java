@@ -0,0 +1,113 @@
+package ch.cyberduck.core.io;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Local;
+import ch.cyberduck.core.exception.AccessDeniedException;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+import ch.cyberduck.core.transfer.TransferStatus;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.fail;
+
+public class ChecksumIndexTest {
+
+    @Test
+    public void testCompute() throws Exception {
+        final Local index = new Local(PreferencesFactory.get().getProperty("tmp.dir"), UUID.randomUUID().toString());
+        final Local file = new Local(PreferencesFactory.get().getProperty("tmp.dir"), UUID.randomUUID().toString());
+        this.write(file, "a");
+        file.attributes().setModificationDate(1000L);
+        final Checksum a = new MD5ChecksumCompute().compute(file.getInputStream(), new TransferStatus());
+        assertEquals(a, new ChecksumIndex(index, true).compute(file, new MD5ChecksumCompute(), new TransferStatus()));
+        // Same size and modification date
+        this.write(file, "b");
+        file.attributes().setModificationDate(1000L);
+        final Checksum b = new MD5ChecksumCompute().compute(file.getInputStream(), new TransferStatus());
+        assertNotEquals(a, b);
+        // Read from persisted index
+        assertEquals(a, new ChecksumIndex(index, true).compute(file, new MD5ChecksumCompute(), new TransferStatus()));
+        assertEquals(b, new ChecksumIndex(index, false).compute(file, new MD5ChecksumCompute(), new TransferStatus()));
+        assertEquals(new SHA256ChecksumCompute().compute(file.getInputStream(), new TransferStatus()),
+            new ChecksumIndex(index, true).compute(file, new SHA256ChecksumCompute(), new TransferStatus()));
+        file.attributes().setModificationDate(2000L);
+        assertEquals(b, new ChecksumIndex(index, true).compute(file, new MD5ChecksumCompute(), new TransferStatus()));
+        file.delete();
+        index.delete();
+    }
+
+    @Test
+    public void testRecentlyModified() throws Exception {
+        final Local index = new Local(PreferencesFactory.get().getProperty("tmp.dir"), UUID.randomUUID().toString());
+        final Local file = new Local(PreferencesFactory.get().getProperty("tmp.dir"), UUID.randomUUID().toString());
+        final ChecksumIndex checksums = new ChecksumIndex(index, true, 60000L);
+        this.write(file, "a");
+        final long modified = file.attributes().getModificationDate();
+        assertEquals(new MD5ChecksumCompute().compute(file.getInputStream(), new TransferStatus()),
+            checksums.compute(file, new MD5ChecksumCompute(), new TransferStatus()));
+        // Same size and modification date within granularity
+        this.write(file, "b");
+        file.attributes().setModificationDate(modified);
+        assertEquals(new MD5ChecksumCompute().compute(file.getInputStream(), new TransferStatus()),
+            checksums.compute(file, new MD5ChecksumCompute(), new TransferStatus()));
+        file.delete();
+        index.delete();
+    }
+
+    @Test
+    public void testDeletedFile() throws Exception {
+        final Local index = new Local(PreferencesFactory.get().getProperty("tmp.dir"), UUID.randomUUID().toString());
+        final Local file = new Local(PreferencesFactory.get().getProperty("tmp.dir"), UUID.randomUUID().toString());
+        this.write(file, "a");
+        file.attributes().setModificationDate(1000L);
+        new ChecksumIndex(index, true).compute(file, new MD5ChecksumCompute(), new TransferStatus());
+        final long size = index.attributes().getSize();
+        assertNotEquals(0L, size);
+        file.delete();
+        final ChecksumIndex checksums = new ChecksumIndex(index, true);
+        try {
+            checksums.compute(file, new MD5ChecksumCompute(), new TransferStatus());
+            fail();
+        }
+        catch(AccessDeniedException e) {
+            // Entry of deleted file is dropped when looked up
+        }
+        checksums.shutdown();
+        assertNotEquals(size, index.attributes().getSize());
+        final Local other = new Local(PreferencesFactory.get().getProperty("tmp.dir"), UUID.randomUUID().toString());
+        this.write(other, "a");
+        other.attributes().setModificationDate(1000L);
+        // Removed entry is dropped when index is compacted
+        new ChecksumIndex(index, true).compute(other, new MD5ChecksumCompute(), new TransferStatus());
+        assertEquals(size, index.attributes().getSize());
+        other.delete();
+        index.delete();
+    }
+
+    private void write(final Local file, final String content) throws Exception {
+        final OutputStream out = file.getOutputStream(false);
+        IOUtils.write(content, out, StandardCharsets.UTF_8);
+        out.close();
+    }
+}
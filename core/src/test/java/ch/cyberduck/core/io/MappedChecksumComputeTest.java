@@ -0,0 +1,66 @@
+package ch.cyberduck.core.io;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Local;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+import ch.cyberduck.core.transfer.TransferStatus;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.RandomUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+
+public class MappedChecksumComputeTest {
+
+    @Test
+    public void testCompute() throws Exception {
+        final Local file = new Local(PreferencesFactory.get().getProperty("tmp.dir"), UUID.randomUUID().toString());
+        final byte[] content = RandomUtils.nextBytes(1000);
+        final OutputStream out = file.getOutputStream(false);
+        IOUtils.write(content, out);
+        out.close();
+        // Window smaller than file
+        final Map<HashAlgorithm, Checksum> checksums = new MappedChecksumCompute(100L).compute(file, new TransferStatus(),
+            EnumSet.of(HashAlgorithm.md5, HashAlgorithm.sha1, HashAlgorithm.sha256, HashAlgorithm.sha512, HashAlgorithm.crc32));
+        assertEquals(new MD5ChecksumCompute().compute(new ByteArrayInputStream(content), new TransferStatus()), checksums.get(HashAlgorithm.md5));
+        assertEquals(new SHA1ChecksumCompute().compute(new ByteArrayInputStream(content), new TransferStatus()), checksums.get(HashAlgorithm.sha1));
+        assertEquals(new SHA256ChecksumCompute().compute(new ByteArrayInputStream(content), new TransferStatus()), checksums.get(HashAlgorithm.sha256));
+        assertEquals(new SHA512ChecksumCompute().compute(new ByteArrayInputStream(content), new TransferStatus()), checksums.get(HashAlgorithm.sha512));
+        assertEquals(new CRC32ChecksumCompute().compute(new ByteArrayInputStream(content), new TransferStatus()), checksums.get(HashAlgorithm.crc32));
+        file.delete();
+    }
+
+    @Test
+    public void testSegment() throws Exception {
+        final Local file = new Local(PreferencesFactory.get().getProperty("tmp.dir"), UUID.randomUUID().toString());
+        final byte[] content = RandomUtils.nextBytes(1000);
+        final OutputStream out = file.getOutputStream(false);
+        IOUtils.write(content, out);
+        out.close();
+        final TransferStatus status = new TransferStatus().skip(150L).length(500L);
+        assertEquals(new SHA256ChecksumCompute().compute(new ByteArrayInputStream(content), status),
+            new MappedChecksumCompute(100L).compute(file, status, HashAlgorithm.sha256));
+        file.delete();
+    }
+}
@@ -4,17 +4,27 @@ import ch.cyberduck.core.exception.BackgroundException;
 import ch.cyberduck.core.exception.ConnectionCanceledException;
 import ch.cyberduck.core.transfer.TransferStatus;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.input.NullInputStream;
 import org.apache.commons.io.output.NullOutputStream;
+import org.apache.commons.lang3.RandomUtils;
 import org.apache.commons.text.RandomStringGenerator;
 import org.junit.Test;
 
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.BrokenBarrierException;
 import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.*;
 
@@ -168,4 +178,68 @@ public class StreamCopierTest {
         assertTrue(status.isCanceled());
         assertEquals(32768L, status.getOffset());
     }
+
+    @Test
+    public void testTransferInterval() throws Exception {
+        final TransferStatus status = new TransferStatus();
+        final AtomicInteger notifications = new AtomicInteger();
+        new StreamCopier(status, status).withInterval(Long.MAX_VALUE).withListener(new DisabledStreamListener() {
+            @Override
+            public void sent(final long bytes) {
+                notifications.incrementAndGet();
+                assertEquals(432768L, bytes);
+            }
+        }).transfer(new NullInputStream(432768L), new NullOutputStream());
+        assertEquals(1, notifications.get());
+        assertTrue(status.isComplete());
+        assertEquals(432768L, status.getOffset(), 0L);
+    }
+
+    @Test
+    public void testTransferIntervalFailure() throws Exception {
+        final TransferStatus status = new TransferStatus();
+        final List<Long> sent = new ArrayList<>();
+        try {
+            new StreamCopier(status, status).withInterval(Long.MAX_VALUE).withListener(new DisabledStreamListener() {
+                @Override
+                public void sent(final long bytes) {
+                    sent.add(bytes);
+                }
+            }).transfer(new NullInputStream(432768L) {
+                @Override
+                public int read(final byte[] bytes, final int offset, final int length) throws IOException {
+                    if(this.getPosition() == 1000L) {
+                        throw new IOException("f");
+                    }
+                    return super.read(bytes, offset, (int) Math.min(length, 1000L - this.getPosition()));
+                }
+            }, new NullOutputStream());
+            fail();
+        }
+        catch(BackgroundException e) {
+            // Expected
+        }
+        // Bytes copied before failure are reported and discarded
+        assertEquals(Arrays.asList(1000L, -1000L), sent);
+        assertEquals(0L, status.getOffset(), 0L);
+    }
+
+    @Test
+    public void testTransferFile() throws Exception {
+        final byte[] bytes = RandomUtils.nextBytes(100000);
+        final File source = File.createTempFile("source", null);
+        final File target = File.createTempFile("target", null);
+        try {
+            FileUtils.writeByteArrayToFile(source, bytes);
+            final TransferStatus status = new TransferStatus();
+            new StreamCopier(status, status).withOffset(1L).transfer(new FileInputStream(source), new FileOutputStream(target));
+            assertTrue(status.isComplete());
+            assertEquals(99999L, status.getOffset(), 0L);
+            assertArrayEquals(Arrays.copyOfRange(bytes, 1, bytes.length), FileUtils.readFileToByteArray(target));
+        }
+        finally {
+            source.delete();
+            target.delete();
+        }
+    }
 }
@@ -0,0 +1,215 @@
+package ch.cyberduck.core.shared;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.AttributedList;
+import ch.cyberduck.core.Cache;
+import ch.cyberduck.core.DisabledListProgressListener;
+import ch.cyberduck.core.Host;
+import ch.cyberduck.core.ListProgressListener;
+import ch.cyberduck.core.ListService;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.TestProtocol;
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.exception.ConnectionCanceledException;
+import ch.cyberduck.core.exception.NotfoundException;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class CoalescingListServiceTest {
+
+    @Test
+    public void testCoalesce() throws Exception {
+        final Host host = new Host(new TestProtocol(), "coalesce.cyberduck.io");
+        final Path directory = new Path("/d", EnumSet.of(Path.Type.directory));
+        final AtomicInteger count = new AtomicInteger();
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final ListService proxy = new BlockingListService(count, entered, release, null);
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        final AtomicInteger chunks = new AtomicInteger();
+        final Future<AttributedList<Path>> first = executor.submit(() -> new CoalescingListService(host, proxy).list(directory, new DisabledListProgressListener()));
+        assertTrue(entered.await(10, TimeUnit.SECONDS));
+        final Future<AttributedList<Path>> second = executor.submit(() -> new CoalescingListService(host, proxy).list(directory, new DisabledListProgressListener() {
+            @Override
+            public void chunk(final Path folder, final AttributedList<Path> list) {
+                chunks.incrementAndGet();
+            }
+        }));
+        // Wait for second request to join listing in progress
+        Thread.sleep(500L);
+        release.countDown();
+        assertEquals(1, first.get().size());
+        assertEquals(1, second.get().size());
+        assertEquals(1, count.get());
+        assertEquals(1, chunks.get());
+        executor.shutdown();
+    }
+
+    @Test
+    public void testSequential() throws Exception {
+        final Host host = new Host(new TestProtocol(), "sequential.cyberduck.io");
+        final Path directory = new Path("/d", EnumSet.of(Path.Type.directory));
+        final AtomicInteger count = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(0);
+        final ListService proxy = new BlockingListService(count, new CountDownLatch(1), release, null);
+        final CoalescingListService service = new CoalescingListService(host, proxy);
+        service.list(directory, new DisabledListProgressListener());
+        service.list(directory, new DisabledListProgressListener());
+        assertEquals(2, count.get());
+    }
+
+    @Test
+    public void testFailure() throws Exception {
+        final Host host = new Host(new TestProtocol(), "failure.cyberduck.io");
+        final Path directory = new Path("/d", EnumSet.of(Path.Type.directory));
+        final AtomicInteger count = new AtomicInteger();
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final ListService proxy = new BlockingListService(count, entered, release, new NotfoundException("f"));
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        final Future<AttributedList<Path>> first = executor.submit(() -> new CoalescingListService(host, proxy).list(directory, new DisabledListProgressListener()));
+        assertTrue(entered.await(10, TimeUnit.SECONDS));
+        final Future<AttributedList<Path>> second = executor.submit(() -> new CoalescingListService(host, proxy).list(directory, new DisabledListProgressListener()));
+        Thread.sleep(500L);
+        release.countDown();
+        try {
+            first.get();
+            fail();
+        }
+        catch(Exception e) {
+            assertTrue(e.getCause() instanceof NotfoundException);
+        }
+        try {
+            second.get();
+            fail();
+        }
+        catch(Exception e) {
+            assertTrue(e.getCause() instanceof NotfoundException);
+        }
+        assertEquals(1, count.get());
+        executor.shutdown();
+    }
+
+    @Test
+    public void testCancelLeader() throws Exception {
+        final Host host = new Host(new TestProtocol(), "cancel.cyberduck.io");
+        final Path directory = new Path("/d", EnumSet.of(Path.Type.directory));
+        final AtomicInteger count = new AtomicInteger();
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final ListService proxy = new BlockingListService(count, entered, release, null);
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        final Future<AttributedList<Path>> first = executor.submit(() -> new CoalescingListService(host, proxy).list(directory, new DisabledListProgressListener() {
+            @Override
+            public void chunk(final Path folder, final AttributedList<Path> list) throws ConnectionCanceledException {
+                throw new ConnectionCanceledException();
+            }
+        }));
+        assertTrue(entered.await(10, TimeUnit.SECONDS));
+        final Future<AttributedList<Path>> second = executor.submit(() -> new CoalescingListService(host, proxy).list(directory, new DisabledListProgressListener()));
+        Thread.sleep(500L);
+        release.countDown();
+        try {
+            first.get();
+            fail();
+        }
+        catch(Exception e) {
+            assertTrue(e.getCause() instanceof ConnectionCanceledException);
+        }
+        // Retry with own listing
+        assertEquals(1, second.get().size());
+        assertEquals(2, count.get());
+        executor.shutdown();
+    }
+
+    @Test
+    public void testReentrantSameThread() throws Exception {
+        final Host host = new Host(new TestProtocol(), "reentrant.cyberduck.io");
+        final Path directory = new Path("/d", EnumSet.of(Path.Type.directory));
+        final AtomicInteger count = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(0);
+        final ListService proxy = new BlockingListService(count, new CountDownLatch(1), release, null);
+        final CoalescingListService service = new CoalescingListService(host, proxy);
+        final AtomicInteger nested = new AtomicInteger();
+        final AttributedList<Path> list = service.list(directory, new DisabledListProgressListener() {
+            @Override
+            public void chunk(final Path folder, final AttributedList<Path> list) throws ConnectionCanceledException {
+                if(nested.getAndIncrement() == 0) {
+                    try {
+                        // List same directory again while listing is in progress
+                        assertEquals(1, service.list(directory, new DisabledListProgressListener()).size());
+                    }
+                    catch(BackgroundException e) {
+                        fail();
+                    }
+                }
+            }
+        });
+        assertEquals(1, list.size());
+        assertEquals(2, count.get());
+    }
+
+    private static final class BlockingListService implements ListService {
+        private final AtomicInteger count;
+        private final CountDownLatch entered;
+        private final CountDownLatch release;
+        private final BackgroundException failure;
+
+        public BlockingListService(final AtomicInteger count, final CountDownLatch entered, final CountDownLatch release,
+                                   final BackgroundException failure) {
+            this.count = count;
+            this.entered = entered;
+            this.release = release;
+            this.failure = failure;
+        }
+
+        @Override
+        public AttributedList<Path> list(final Path directory, final ListProgressListener listener) throws BackgroundException {
+            count.incrementAndGet();
+            entered.countDown();
+            try {
+                release.await();
+            }
+            catch(InterruptedException e) {
+                throw new ConnectionCanceledException(e);
+            }
+            if(failure != null) {
+                throw failure;
+            }
+            final AttributedList<Path> list = new AttributedList<Path>(Collections.singletonList(
+                new Path(directory, "f", EnumSet.of(Path.Type.file))));
+            listener.chunk(directory, list);
+            return list;
+        }
+
+        @Override
+        public ListService withCache(final Cache<Path> cache) {
+            return this;
+        }
+    }
+}
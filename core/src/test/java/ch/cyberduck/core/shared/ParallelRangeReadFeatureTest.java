@@ -0,0 +1,114 @@
+package ch.cyberduck.core.shared;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.ConnectionCallback;
+import ch.cyberduck.core.DisabledConnectionCallback;
+import ch.cyberduck.core.Host;
+import ch.cyberduck.core.NullSession;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.TestProtocol;
+import ch.cyberduck.core.features.Read;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+import ch.cyberduck.core.transfer.TransferStatus;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.RandomUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.EnumSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ParallelRangeReadFeatureTest {
+
+    @Test
+    public void testRead() throws Exception {
+        PreferencesFactory.get().setProperty("queue.download.range.threshold", 0L);
+        PreferencesFactory.get().setProperty("queue.download.range.size", 1000);
+        try {
+            final byte[] content = RandomUtils.nextBytes(10 * 1000 + 1);
+            final AtomicInteger requests = new AtomicInteger();
+            final Read proxy = new Read() {
+                @Override
+                public InputStream read(final Path file, final TransferStatus status, final ConnectionCallback callback) {
+                    requests.incrementAndGet();
+                    assertTrue(status.isAppend());
+                    return new ByteArrayInputStream(content, (int) status.getOffset(), (int) status.getLength());
+                }
+
+                @Override
+                public boolean offset(final Path file) {
+                    return true;
+                }
+            };
+            final Path file = new Path("/f", EnumSet.of(Path.Type.file));
+            final InputStream in = new ParallelRangeReadFeature(new NullSession(new Host(new TestProtocol())), proxy)
+                .read(file, new TransferStatus().length(content.length), new DisabledConnectionCallback());
+            final byte[] buffer = new byte[content.length];
+            IOUtils.readFully(in, buffer);
+            assertEquals(-1, in.read());
+            in.close();
+            assertArrayEquals(content, buffer);
+            assertEquals(11, requests.get());
+        }
+        finally {
+            PreferencesFactory.get().deleteProperty("queue.download.range.threshold");
+            PreferencesFactory.get().deleteProperty("queue.download.range.size");
+        }
+    }
+
+    @Test
+    public void testReadRangeNotSupported() throws Exception {
+        PreferencesFactory.get().setProperty("queue.download.range.threshold", 0L);
+        PreferencesFactory.get().setProperty("queue.download.range.size", 1000);
+        try {
+            final byte[] content = RandomUtils.nextBytes(10 * 1000 + 1);
+            final AtomicInteger requests = new AtomicInteger();
+            final Read proxy = new Read() {
+                @Override
+                public InputStream read(final Path file, final TransferStatus status, final ConnectionCallback callback) {
+                    requests.incrementAndGet();
+                    // Ignore length of range and return remaining content
+                    return new ByteArrayInputStream(content, (int) status.getOffset(), content.length - (int) status.getOffset());
+                }
+
+                @Override
+                public boolean offset(final Path file) {
+                    return true;
+                }
+            };
+            final Path file = new Path("/f", EnumSet.of(Path.Type.file));
+            final InputStream in = new ParallelRangeReadFeature(new NullSession(new Host(new TestProtocol())), proxy)
+                .read(file, new TransferStatus().length(content.length), new DisabledConnectionCallback());
+            final byte[] buffer = new byte[content.length];
+            IOUtils.readFully(in, buffer);
+            assertEquals(-1, in.read());
+            in.close();
+            assertArrayEquals(content, buffer);
+            assertEquals(1, requests.get());
+        }
+        finally {
+            PreferencesFactory.get().deleteProperty("queue.download.range.threshold");
+            PreferencesFactory.get().deleteProperty("queue.download.range.size");
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package ch.cyberduck.core.threading;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class AdaptivePartControllerTest {
+
+    @Test
+    public void testPartsize() {
+        final AdaptivePartController controller = new AdaptivePartController(10L, 5L, 40L, 1, 1, 1000L);
+        controller.success(10L, 100L);
+        assertEquals(20L, controller.getPartsize());
+        controller.success(20L, 100L);
+        assertEquals(40L, controller.getPartsize());
+        // Maximum
+        controller.success(40L, 100L);
+        assertEquals(40L, controller.getPartsize());
+        // Within target
+        controller.success(40L, 1000L);
+        assertEquals(40L, controller.getPartsize());
+        controller.success(40L, 5000L);
+        assertEquals(20L, controller.getPartsize());
+        controller.success(20L, 5000L);
+        controller.success(10L, 5000L);
+        // Minimum
+        assertEquals(5L, controller.getPartsize());
+    }
+
+    @Test
+    public void testConcurrency() throws Exception {
+        final AdaptivePartController controller = new AdaptivePartController(10L, 5L, 40L, 2, 3, 1000L);
+        controller.acquire();
+        controller.acquire();
+        controller.success(10L, 1000L);
+        controller.release();
+        controller.success(10L, 1000L);
+        controller.release();
+        // Increased with first round
+        assertEquals(3, controller.getConcurrency());
+        // Limit
+        for(int i = 0; i < 3; i++) {
+            controller.acquire();
+        }
+        for(int i = 0; i < 3; i++) {
+            controller.failure();
+            controller.release();
+        }
+        assertEquals(1, controller.getConcurrency());
+    }
+}
@@ -0,0 +1,123 @@
+package ch.cyberduck.core.threading;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.exception.NotfoundException;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class PartSchedulerTest {
+
+    @Test
+    public void testOrder() throws Exception {
+        final PartScheduler scheduler = new PartScheduler(5, Long.MAX_VALUE);
+        final PartScheduler.Batch<Integer> batch = scheduler.batch(5);
+        for(int i = 0; i < 5; i++) {
+            final int part = i;
+            batch.submit(1L, new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    // Complete in reverse order
+                    Thread.sleep(100L * (5 - part));
+                    return part;
+                }
+            });
+        }
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4), batch.await());
+    }
+
+    @Test
+    public void testInflightLimit() throws Exception {
+        final PartScheduler scheduler = new PartScheduler(10, 3L);
+        final AtomicLong inflight = new AtomicLong();
+        final AtomicLong maximum = new AtomicLong();
+        final PartScheduler.Batch<Void> first = scheduler.batch(10);
+        final PartScheduler.Batch<Void> second = scheduler.batch(10);
+        for(int i = 0; i < 5; i++) {
+            for(PartScheduler.Batch<Void> batch : Arrays.asList(first, second)) {
+                batch.submit(1L, new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        maximum.accumulateAndGet(inflight.incrementAndGet(), Math::max);
+                        Thread.sleep(10L);
+                        inflight.decrementAndGet();
+                        return null;
+                    }
+                });
+            }
+        }
+        assertEquals(5, first.await().size());
+        assertEquals(5, second.await().size());
+        assertTrue(maximum.get() <= 3L);
+    }
+
+    @Test
+    public void testPartLargerThanLimit() throws Exception {
+        final PartScheduler scheduler = new PartScheduler(1, 1L);
+        final PartScheduler.Batch<Long> batch = scheduler.batch(1);
+        batch.submit(10L, new Callable<Long>() {
+            @Override
+            public Long call() {
+                return 10L;
+            }
+        });
+        assertEquals(Long.valueOf(10L), batch.await().get(0));
+    }
+
+    @Test
+    public void testFailure() throws Exception {
+        final PartScheduler scheduler = new PartScheduler(2, Long.MAX_VALUE);
+        final PartScheduler.Batch<Void> batch = scheduler.batch(2);
+        final CountDownLatch block = new CountDownLatch(1);
+        batch.submit(1L, new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                // Slow part not completing
+                block.await();
+                return null;
+            }
+        });
+        batch.submit(1L, new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                throw new NotfoundException("f");
+            }
+        });
+        try {
+            batch.await();
+            fail();
+        }
+        catch(NotfoundException e) {
+            // Expected without waiting for first part
+        }
+        // Slots released for canceled parts
+        final PartScheduler.Batch<Boolean> next = scheduler.batch(2);
+        next.submit(1L, new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                return true;
+            }
+        });
+        assertTrue(next.await().get(0));
+    }
+}
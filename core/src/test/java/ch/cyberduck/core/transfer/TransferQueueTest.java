@@ -28,6 +28,7 @@ import java.util.EnumSet;
 import java.util.concurrent.BrokenBarrierException;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -181,4 +182,113 @@ public class TransferQueueTest {
         assertTrue(c.await(1, TimeUnit.SECONDS));
         assertEquals(0, c.getCount());
     }
+
+    @Test
+    public void testFairHost() throws Exception {
+        final TransferQueue queue = new TransferQueue(2);
+        final Host a = new Host(new TestProtocol(), "a");
+        final Host b = new Host(new TestProtocol(), "b");
+        final DownloadTransfer a1 = new DownloadTransfer(a, new Path("/a1", EnumSet.of(Path.Type.directory)), null);
+        final DownloadTransfer a2 = new DownloadTransfer(a, new Path("/a2", EnumSet.of(Path.Type.directory)), null);
+        final DownloadTransfer a3 = new DownloadTransfer(a, new Path("/a3", EnumSet.of(Path.Type.directory)), null);
+        final DownloadTransfer b1 = new DownloadTransfer(b, new Path("/b1", EnumSet.of(Path.Type.directory)), null);
+        queue.add(a1, new DisabledProgressListener());
+        queue.add(a2, new DisabledProgressListener());
+        final Future<Transfer> f3 = queue.submit(a3, TransferQueue.DEFAULT_PRIORITY, new DisabledProgressListener());
+        final Future<Transfer> f4 = queue.submit(b1, TransferQueue.DEFAULT_PRIORITY, new DisabledProgressListener());
+        assertFalse(f3.isDone());
+        assertFalse(f4.isDone());
+        queue.remove(a1);
+        // Transfer to host with no running transfers is started first
+        assertTrue(f4.isDone());
+        assertFalse(f3.isDone());
+        queue.remove(a2);
+        assertTrue(f3.isDone());
+    }
+
+    @Test
+    public void testHostLimit() throws Exception {
+        final TransferQueue queue = new TransferQueue(2, 1);
+        final Host a = new Host(new TestProtocol(), "a");
+        final DownloadTransfer a1 = new DownloadTransfer(a, new Path("/a1", EnumSet.of(Path.Type.directory)), null);
+        final DownloadTransfer a2 = new DownloadTransfer(a, new Path("/a2", EnumSet.of(Path.Type.directory)), null);
+        final DownloadTransfer b1 = new DownloadTransfer(new Host(new TestProtocol(), "b"), new Path("/b1", EnumSet.of(Path.Type.directory)), null);
+        queue.add(a1, new DisabledProgressListener());
+        final Future<Transfer> f2 = queue.submit(a2, TransferQueue.DEFAULT_PRIORITY, new DisabledProgressListener());
+        assertFalse(f2.isDone());
+        assertTrue(queue.submit(b1, TransferQueue.DEFAULT_PRIORITY, new DisabledProgressListener()).isDone());
+        queue.remove(a1);
+        assertTrue(f2.isDone());
+    }
+
+    @Test
+    public void testPriority() throws Exception {
+        final TransferQueue queue = new TransferQueue(1);
+        final DownloadTransfer d1 = new DownloadTransfer(new Host(new TestProtocol()), new Path("/t1", EnumSet.of(Path.Type.directory)), null);
+        final DownloadTransfer d2 = new DownloadTransfer(new Host(new TestProtocol()), new Path("/t2", EnumSet.of(Path.Type.directory)), null);
+        final DownloadTransfer d3 = new DownloadTransfer(new Host(new TestProtocol()), new Path("/t3", EnumSet.of(Path.Type.directory)), null);
+        queue.add(d1, new DisabledProgressListener());
+        final Future<Transfer> f2 = queue.submit(d2, TransferQueue.DEFAULT_PRIORITY, new DisabledProgressListener());
+        final Future<Transfer> f3 = queue.submit(d3, 1, new DisabledProgressListener());
+        queue.remove(d1);
+        assertTrue(f3.isDone());
+        assertFalse(f2.isDone());
+    }
+
+    @Test
+    public void testSubmitAgain() throws Exception {
+        final TransferQueue queue = new TransferQueue(1);
+        final DownloadTransfer d1 = new DownloadTransfer(new Host(new TestProtocol()), new Path("/t1", EnumSet.of(Path.Type.directory)), null);
+        final DownloadTransfer d2 = new DownloadTransfer(new Host(new TestProtocol()), new Path("/t2", EnumSet.of(Path.Type.directory)), null);
+        queue.add(d1, new DisabledProgressListener());
+        final Future<Transfer> f1 = queue.submit(d2, TransferQueue.DEFAULT_PRIORITY, new DisabledProgressListener());
+        final Future<Transfer> f2 = queue.submit(d2, TransferQueue.DEFAULT_PRIORITY, new DisabledProgressListener());
+        // Previous submission released
+        assertTrue(f1.isDone());
+        assertNull(f1.get());
+        assertFalse(f2.isDone());
+        queue.remove(d1);
+        assertSame(d2, f2.get());
+    }
+
+    @Test
+    public void testRelease() throws Exception {
+        final TransferQueue queue = new TransferQueue(1);
+        final DownloadTransfer d1 = new DownloadTransfer(new Host(new TestProtocol()), new Path("/t1", EnumSet.of(Path.Type.directory)), null);
+        final DownloadTransfer d2 = new DownloadTransfer(new Host(new TestProtocol()), new Path("/t2", EnumSet.of(Path.Type.directory)), null);
+        queue.add(d1, new DisabledProgressListener());
+        final Future<Transfer> f2 = queue.submit(d2, TransferQueue.DEFAULT_PRIORITY, new DisabledProgressListener());
+        assertFalse(f2.isDone());
+        queue.release(d2);
+        assertTrue(f2.isDone());
+        assertNull(f2.get());
+        // No change for admitted transfer
+        queue.release(d1);
+        final DownloadTransfer d3 = new DownloadTransfer(new Host(new TestProtocol()), new Path("/t3", EnumSet.of(Path.Type.directory)), null);
+        final Future<Transfer> f3 = queue.submit(d3, TransferQueue.DEFAULT_PRIORITY, new DisabledProgressListener());
+        assertFalse(f3.isDone());
+        queue.remove(d1);
+        assertSame(d3, f3.get());
+    }
+
+    @Test
+    public void testSubmitRunning() throws Exception {
+        final TransferQueue queue = new TransferQueue(2);
+        final Host a = new Host(new TestProtocol(), "a");
+        final Host b = new Host(new TestProtocol(), "b");
+        final DownloadTransfer a1 = new DownloadTransfer(a, new Path("/a1", EnumSet.of(Path.Type.directory)), null);
+        final DownloadTransfer a2 = new DownloadTransfer(a, new Path("/a2", EnumSet.of(Path.Type.directory)), null);
+        final DownloadTransfer b1 = new DownloadTransfer(b, new Path("/b1", EnumSet.of(Path.Type.directory)), null);
+        final DownloadTransfer b2 = new DownloadTransfer(b, new Path("/b2", EnumSet.of(Path.Type.directory)), null);
+        queue.add(a1, new DisabledProgressListener());
+        // Already admitted transfer is not counted twice for host
+        assertTrue(queue.submit(a1, TransferQueue.DEFAULT_PRIORITY, new DisabledProgressListener()).isDone());
+        queue.add(b1, new DisabledProgressListener());
+        final Future<Transfer> fb2 = queue.submit(b2, TransferQueue.DEFAULT_PRIORITY, new DisabledProgressListener());
+        final Future<Transfer> fa2 = queue.submit(a2, TransferQueue.DEFAULT_PRIORITY, new DisabledProgressListener());
+        queue.remove(a1);
+        // No running transfer left for host a
+        assertTrue(fa2.isDone());
+        assertFalse(fb2.isDone());
+    }
 }
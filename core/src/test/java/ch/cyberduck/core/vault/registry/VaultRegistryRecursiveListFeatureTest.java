@@ -0,0 +1,59 @@
+package ch.cyberduck.core.vault.registry;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.AttributedList;
+import ch.cyberduck.core.DisabledPasswordCallback;
+import ch.cyberduck.core.DisabledPasswordStore;
+import ch.cyberduck.core.Host;
+import ch.cyberduck.core.ListProgressListener;
+import ch.cyberduck.core.NullSession;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.TestProtocol;
+import ch.cyberduck.core.features.RecursiveList;
+import ch.cyberduck.core.vault.DefaultVaultRegistry;
+
+import org.junit.Test;
+
+import java.util.EnumSet;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class VaultRegistryRecursiveListFeatureTest {
+
+    @Test
+    public void testIsSupported() throws Exception {
+        final RecursiveList proxy = new RecursiveList() {
+            @Override
+            public AttributedList<Path> list(final Path directory, final ListProgressListener listener) {
+                return AttributedList.emptyList();
+            }
+
+            @Override
+            public boolean isSupported(final Path directory) {
+                return !directory.isRoot();
+            }
+        };
+        final VaultRegistryRecursiveListFeature feature = new VaultRegistryRecursiveListFeature(new NullSession(new Host(new TestProtocol())),
+            proxy, new DefaultVaultRegistry(new DisabledPasswordStore(), new DisabledPasswordCallback()));
+        final Path directory = new Path("/d", EnumSet.of(Path.Type.directory));
+        // Vaults in subdirectories are found with listing per directory only
+        assertFalse(feature.withAutodetect(true).isSupported(directory));
+        assertTrue(feature.withAutodetect(false).isSupported(directory));
+        assertFalse(feature.withAutodetect(false).isSupported(new Path("/", EnumSet.of(Path.Type.directory))));
+    }
+}
@@ -1,14 +1,24 @@
 package ch.cyberduck.core.worker;
 
+import ch.cyberduck.core.AttributedList;
+import ch.cyberduck.core.DisabledPasswordCallback;
+import ch.cyberduck.core.DisabledPasswordStore;
 import ch.cyberduck.core.DisabledProgressListener;
 import ch.cyberduck.core.Host;
+import ch.cyberduck.core.ListProgressListener;
 import ch.cyberduck.core.NullSession;
 import ch.cyberduck.core.Path;
+import ch.cyberduck.core.Session;
 import ch.cyberduck.core.TestProtocol;
+import ch.cyberduck.core.features.RecursiveList;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+import ch.cyberduck.core.vault.DefaultVaultRegistry;
 
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.List;
 
@@ -46,4 +56,82 @@ public class CalculateSizeWorkerTest {
             }
         }.run(new NullSession(new Host(new TestProtocol()))), 0L);
     }
+
+    @Test
+    public void testDirectory() throws Exception {
+        final Path d = new Path("/d", EnumSet.of(Path.Type.directory));
+        final Session<?> session = new NullSession(new Host(new TestProtocol())) {
+            @Override
+            public AttributedList<Path> list(final Path file, final ListProgressListener listener) {
+                if(file.equals(d)) {
+                    return new AttributedList<Path>(Arrays.asList(
+                        new Path(file, "a", EnumSet.of(Path.Type.directory)),
+                        new Path(file, "b", EnumSet.of(Path.Type.directory))
+                    ));
+                }
+                final Path f = new Path(file, "f", EnumSet.of(Path.Type.file));
+                f.attributes().setSize(2L);
+                return new AttributedList<Path>(Collections.singletonList(f));
+            }
+        };
+        assertEquals(4L, new CalculateSizeWorker(Collections.singletonList(d), new DisabledProgressListener()) {
+            @Override
+            protected void update(final long size) {
+                //
+            }
+        }.run(session), 0L);
+        assertEquals(4L, d.attributes().getSize());
+    }
+
+    @Test
+    public void testRecursiveList() throws Exception {
+        final Path d = new Path("/d", EnumSet.of(Path.Type.directory));
+        final Session<?> session = new NullSession(new Host(new TestProtocol())) {
+            @Override
+            public AttributedList<Path> list(final Path file, final ListProgressListener listener) {
+                final Path f = new Path(file, "f", EnumSet.of(Path.Type.file));
+                f.attributes().setSize(1L);
+                return new AttributedList<Path>(Collections.singletonList(f));
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> T _getFeature(final Class<T> type) {
+                if(type == RecursiveList.class) {
+                    return (T) new RecursiveList() {
+                        @Override
+                        public AttributedList<Path> list(final Path directory, final ListProgressListener listener) {
+                            final Path a = new Path(directory, "a", EnumSet.of(Path.Type.file));
+                            a.attributes().setSize(2L);
+                            final Path b = new Path(new Path(directory, "s", EnumSet.of(Path.Type.directory)), "b", EnumSet.of(Path.Type.file));
+                            b.attributes().setSize(3L);
+                            return new AttributedList<Path>(Arrays.asList(a, b));
+                        }
+                    };
+                }
+                return super._getFeature(type);
+            }
+        }.withRegistry(new DefaultVaultRegistry(new DisabledPasswordStore(), new DisabledPasswordCallback()));
+        final CalculateSizeWorker worker = new CalculateSizeWorker(Collections.singletonList(d), new DisabledProgressListener()) {
+            @Override
+            protected void update(final long size) {
+                //
+            }
+        };
+        // Listing per directory to find vaults in subdirectories
+        assertEquals(1L, worker.run(session), 0L);
+        PreferencesFactory.get().setProperty("cryptomator.vault.autodetect", false);
+        try {
+            assertEquals(5L, new CalculateSizeWorker(Collections.singletonList(d), new DisabledProgressListener()) {
+                @Override
+                protected void update(final long size) {
+                    //
+                }
+            }.run(session), 0L);
+        }
+        finally {
+            PreferencesFactory.get().deleteProperty("cryptomator.vault.autodetect");
+        }
+        assertEquals(5L, d.attributes().getSize());
+    }
 }
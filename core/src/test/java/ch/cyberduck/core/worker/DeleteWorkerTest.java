@@ -16,12 +16,14 @@ import ch.cyberduck.core.features.Delete;
 
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 public class DeleteWorkerTest {
@@ -74,6 +76,60 @@ public class DeleteWorkerTest {
         assertEquals(4, worker.run(session).size());
     }
 
+    @Test
+    public void testChildrenBeforeParent() throws Exception {
+        final List<Path> deleted = new ArrayList<Path>();
+        final Session session = new NullSession(new Host(new TestProtocol())) {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> T _getFeature(final Class<T> type) {
+                if(type == Delete.class) {
+                    return (T) new Delete() {
+                        @Override
+                        public void delete(final List<Path> files, final PasswordCallback prompt, final Callback callback) {
+                            deleted.addAll(files);
+                        }
+
+                        @Override
+                        public boolean isRecursive() {
+                            return false;
+                        }
+                    };
+                }
+                return (T) super._getFeature(type);
+            }
+
+            @Override
+            public AttributedList<Path> list(final Path file, final ListProgressListener listener) {
+                if(file.equals(new Path("/t", EnumSet.of(Path.Type.directory)))) {
+                    return new AttributedList<Path>(Arrays.asList(
+                        new Path("/t/d1", EnumSet.of(Path.Type.directory)),
+                        new Path("/t/d2", EnumSet.of(Path.Type.directory)),
+                        new Path("/t/e", EnumSet.of(Path.Type.directory))
+                    ));
+                }
+                if(file.equals(new Path("/t/e", EnumSet.of(Path.Type.directory)))) {
+                    return AttributedList.emptyList();
+                }
+                return new AttributedList<Path>(Arrays.asList(
+                    new Path(file, "a", EnumSet.of(Path.Type.file)),
+                    new Path(file, "b", EnumSet.of(Path.Type.file))
+                ));
+            }
+        };
+        final DeleteWorker worker = new DeleteWorker(new DisabledLoginCallback(),
+            Collections.singletonList(new Path("/t", EnumSet.of(Path.Type.directory))),
+            new DisabledProgressListener());
+        assertEquals(8, worker.run(session).size());
+        assertEquals(8, deleted.size());
+        assertEquals(new Path("/t", EnumSet.of(Path.Type.directory)), deleted.get(7));
+        for(String name : Arrays.asList("d1", "d2")) {
+            final int directory = deleted.indexOf(new Path(String.format("/t/%s", name), EnumSet.of(Path.Type.directory)));
+            assertTrue(directory > deleted.indexOf(new Path(String.format("/t/%s/a", name), EnumSet.of(Path.Type.file))));
+            assertTrue(directory > deleted.indexOf(new Path(String.format("/t/%s/b", name), EnumSet.of(Path.Type.file))));
+        }
+    }
+
     @Test
     public void testSymlink() throws Exception {
         final Session session = new NullSession(new Host(new TestProtocol())) {
@@ -9,11 +9,13 @@ import ch.cyberduck.core.features.AttributesFinder;
 import ch.cyberduck.core.io.DisabledStreamListener;
 import ch.cyberduck.core.io.StreamListener;
 import ch.cyberduck.core.notification.DisabledNotificationService;
+import ch.cyberduck.core.preferences.PreferencesFactory;
 import ch.cyberduck.core.transfer.DisabledTransferErrorCallback;
 import ch.cyberduck.core.transfer.DisabledTransferPrompt;
 import ch.cyberduck.core.transfer.DownloadTransfer;
 import ch.cyberduck.core.transfer.Transfer;
 import ch.cyberduck.core.transfer.TransferAction;
+import ch.cyberduck.core.transfer.TransferErrorCallback;
 import ch.cyberduck.core.transfer.TransferItem;
 import ch.cyberduck.core.transfer.TransferOptions;
 import ch.cyberduck.core.transfer.TransferSpeedometer;
@@ -23,8 +25,11 @@ import ch.cyberduck.core.transfer.download.AbstractDownloadFilter;
 
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.List;
 import java.util.concurrent.Future;
 
 import static org.junit.Assert.*;
@@ -162,6 +167,121 @@ public class SingleTransferWorkerTest {
         assertTrue(cache.isEmpty());
     }
 
+    @Test
+    public void testUploadPipeline() throws Exception {
+        final Path child = new Path("/t/c", EnumSet.of(Path.Type.file));
+        final Path root = new Path("/t", EnumSet.of(Path.Type.directory));
+        final NullLocal local = new NullLocal("l") {
+            @Override
+            public AttributedList<Local> list() throws LocalAccessDeniedException {
+                AttributedList<Local> l = new AttributedList<Local>();
+                l.add(new NullLocal(this.getAbsolute(), "c") {
+                    @Override
+                    public boolean exists() {
+                        return true;
+                    }
+                });
+                return l;
+            }
+
+            @Override
+            public boolean exists() {
+                return true;
+            }
+        };
+        final List<Path> transferred = new ArrayList<Path>();
+        final Cache<TransferItem> cache = new TransferItemCache(Integer.MAX_VALUE);
+        final Transfer t = new UploadTransfer(new Host(new TestProtocol()), root, local) {
+            @Override
+            public Path transfer(final Session<?> source, final Session<?> destination, final Path file, Local local,
+                                 final TransferOptions options, final TransferStatus status,
+                                 final ConnectionCallback connectionCallback,
+                                 final PasswordCallback passwordCallback, final ProgressListener listener, final StreamListener streamListener) throws BackgroundException {
+                transferred.add(file);
+                return file;
+            }
+        };
+        final NullSession session = new NullSession(new Host(new TestProtocol()));
+        PreferencesFactory.get().setProperty("queue.transfer.pipeline", true);
+        try {
+            new SingleTransferWorker(session, session, t, new TransferOptions(), new TransferSpeedometer(t), new DisabledTransferPrompt() {
+                @Override
+                public TransferAction prompt(final TransferItem file) {
+                    return TransferAction.overwrite;
+                }
+            }, new DisabledTransferErrorCallback(),
+                new DisabledProgressListener(), new DisabledStreamListener(), new DisabledLoginCallback(), new DisabledPasswordCallback(), new DisabledNotificationService(), cache) {
+                @Override
+                public Future<TransferStatus> prepare(final Path file, final Local local, final TransferStatus parent, final TransferAction action) throws BackgroundException {
+                    if(file.equals(child)) {
+                        // Parent directory created before child is prepared
+                        assertEquals(Collections.singletonList(root), transferred);
+                    }
+                    return super.prepare(file, local, parent, action);
+                }
+            }.run(session, session);
+        }
+        finally {
+            PreferencesFactory.get().setProperty("queue.transfer.pipeline", false);
+        }
+        assertEquals(Arrays.asList(root, child), transferred);
+        assertTrue(cache.isEmpty());
+    }
+
+    @Test
+    public void testUploadPipelineFirstFileFails() throws Exception {
+        final List<TransferItem> roots = new ArrayList<TransferItem>();
+        for(String name : Arrays.asList("a", "b", "c")) {
+            roots.add(new TransferItem(new Path("/t/" + name, EnumSet.of(Path.Type.file)), new NullLocal("l", name) {
+                @Override
+                public boolean exists() {
+                    return true;
+                }
+            }));
+        }
+        final Path failed = roots.get(0).remote;
+        final List<Path> transferred = new ArrayList<Path>();
+        final List<TransferItem> prompted = new ArrayList<TransferItem>();
+        final Transfer t = new UploadTransfer(new Host(new TestProtocol()), roots) {
+            @Override
+            public Path transfer(final Session<?> source, final Session<?> destination, final Path file, Local local,
+                                 final TransferOptions options, final TransferStatus status,
+                                 final ConnectionCallback connectionCallback,
+                                 final PasswordCallback passwordCallback, final ProgressListener listener, final StreamListener streamListener) throws BackgroundException {
+                if(file.equals(failed)) {
+                    throw new AccessDeniedException("f");
+                }
+                transferred.add(file);
+                return file;
+            }
+        };
+        final NullSession session = new NullSession(new Host(new TestProtocol()));
+        PreferencesFactory.get().setProperty("queue.transfer.pipeline", true);
+        try {
+            new SingleTransferWorker(session, session, t, new TransferOptions(), new TransferSpeedometer(t), new DisabledTransferPrompt() {
+                @Override
+                public TransferAction prompt(final TransferItem file) {
+                    return TransferAction.overwrite;
+                }
+            }, new TransferErrorCallback() {
+                @Override
+                public boolean prompt(final TransferItem item, final BackgroundException failure) {
+                    prompted.add(item);
+                    // Continue
+                    return true;
+                }
+            },
+                new DisabledProgressListener(), new DisabledStreamListener(), new DisabledLoginCallback(), new DisabledPasswordCallback(), new DisabledNotificationService(),
+                new TransferItemCache(Integer.MAX_VALUE)).run(session, session);
+        }
+        finally {
+            PreferencesFactory.get().setProperty("queue.transfer.pipeline", false);
+        }
+        // No fail fast for first file prepared
+        assertEquals(Collections.singletonList(roots.get(0)), prompted);
+        assertEquals(Arrays.asList(roots.get(1).remote, roots.get(2).remote), transferred);
+    }
+
     @Test
     public void testDownloadPrepareOverride() throws Exception {
         final Path child = new Path("/t/c", EnumSet.of(Path.Type.file));
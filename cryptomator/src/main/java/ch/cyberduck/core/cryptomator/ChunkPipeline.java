@@ -0,0 +1,104 @@
+package ch.cyberduck.core.cryptomator;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.preferences.PreferencesFactory;
+import ch.cyberduck.core.threading.ThreadPool;
+import ch.cyberduck.core.threading.ThreadPoolFactory;
+
+import org.cryptomator.cryptolib.api.CryptoException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Encrypt or decrypt multiple chunks of a file at once with results returned in order of submission
+ */
+final class ChunkPipeline {
+
+    private static final int concurrency
+        = PreferencesFactory.get().getInteger("cryptomator.chunk.concurrency");
+
+    private static final ThreadPool pool
+        = ThreadPoolFactory.get("cryptomator", Math.max(1, concurrency));
+
+    private final Deque<Future<ByteBuffer>> pending
+        = new ArrayDeque<Future<ByteBuffer>>();
+
+    /**
+     * @return True if no more chunks should be submitted before taking a result
+     */
+    public boolean isFull() {
+        return pending.size() >= Math.max(1, concurrency);
+    }
+
+    public boolean isEmpty() {
+        return pending.isEmpty();
+    }
+
+    /**
+     * @param task Encrypt or decrypt single chunk
+     */
+    public void submit(final Callable<ByteBuffer> task) {
+        if(concurrency <= 1) {
+            // Run on calling thread
+            final FutureTask<ByteBuffer> future = new FutureTask<ByteBuffer>(task);
+            future.run();
+            pending.add(future);
+        }
+        else {
+            pending.add(pool.execute(task));
+        }
+    }
+
+    /**
+     * @return Result of oldest chunk submitted
+     */
+    public ByteBuffer take() throws IOException {
+        try {
+            return pending.remove().get();
+        }
+        catch(InterruptedException e) {
+            throw new InterruptedIOException(e.getMessage());
+        }
+        catch(ExecutionException e) {
+            if(e.getCause() instanceof CryptoException) {
+                throw new IOException(e.getCause().getMessage(), new CryptoAuthenticationException(e.getCause().getMessage(), (CryptoException) e.getCause()));
+            }
+            if(e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Discard pending results
+     */
+    public void cancel() {
+        for(Future<ByteBuffer> future : pending) {
+            future.cancel(false);
+        }
+        pending.clear();
+    }
+}
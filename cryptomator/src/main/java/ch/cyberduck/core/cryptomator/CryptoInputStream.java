@@ -15,15 +15,17 @@ package ch.cyberduck.core.cryptomator;
  * GNU General Public License for more details.
  */
 
+import ch.cyberduck.core.io.ByteArrayPool;
+
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.input.ProxyInputStream;
-import org.cryptomator.cryptolib.api.CryptoException;
 import org.cryptomator.cryptolib.api.Cryptor;
 import org.cryptomator.cryptolib.api.FileHeader;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.util.concurrent.Callable;
 
 public class CryptoInputStream extends ProxyInputStream {
 
@@ -33,6 +35,12 @@ public class CryptoInputStream extends ProxyInputStream {
 
     private ByteBuffer buffer = ByteBuffer.allocate(0);
 
+    /**
+     * Chunks read ahead and decrypted concurrently
+     */
+    private final ChunkPipeline pipeline = new ChunkPipeline();
+    private boolean eof;
+
     /**
      * Position proxy content cryptor
      */
@@ -79,20 +87,38 @@ public class CryptoInputStream extends ProxyInputStream {
         return IOUtils.skip(this, len);
     }
 
+    @Override
+    public void close() throws IOException {
+        pipeline.cancel();
+        super.close();
+    }
+
     private int readNextChunk() throws IOException {
-        final ByteBuffer ciphertextBuf = ByteBuffer.allocate(chunkSize);
-        final int read = IOUtils.read(proxy, ciphertextBuf.array());
-        if(read == 0) {
-            return IOUtils.EOF;
-        }
-        ciphertextBuf.position(read);
-        ciphertextBuf.flip();
-        try {
-            buffer = cryptor.fileContentCryptor().decryptChunk(ciphertextBuf, chunkIndexOffset++, header, true);
+        while(!eof && !pipeline.isFull()) {
+            final byte[] ciphertext = ByteArrayPool.get().acquire(chunkSize);
+            final int read = IOUtils.read(proxy, ciphertext);
+            if(read == 0) {
+                ByteArrayPool.get().release(ciphertext);
+                eof = true;
+                break;
+            }
+            final long chunk = chunkIndexOffset++;
+            pipeline.submit(new Callable<ByteBuffer>() {
+                @Override
+                public ByteBuffer call() {
+                    try {
+                        return cryptor.fileContentCryptor().decryptChunk(ByteBuffer.wrap(ciphertext, 0, read), chunk, header, true);
+                    }
+                    finally {
+                        ByteArrayPool.get().release(ciphertext);
+                    }
+                }
+            });
         }
-        catch(CryptoException e) {
-            throw new IOException(e.getMessage(), new CryptoAuthenticationException(e.getMessage(), e));
+        if(pipeline.isEmpty()) {
+            return IOUtils.EOF;
         }
-        return read;
+        buffer = pipeline.take();
+        return buffer.remaining();
     }
 }
@@ -16,19 +16,19 @@ package ch.cyberduck.core.cryptomator;
  */
 
 import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.io.ByteArrayPool;
 import ch.cyberduck.core.io.MemorySegementingOutputStream;
 import ch.cyberduck.core.io.StatusOutputStream;
 import ch.cyberduck.core.random.NonceGenerator;
 
 import org.apache.commons.io.output.ProxyOutputStream;
-import org.cryptomator.cryptolib.api.CryptoException;
 import org.cryptomator.cryptolib.api.Cryptor;
 import org.cryptomator.cryptolib.api.FileHeader;
 
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
-import java.util.Arrays;
+import java.util.concurrent.Callable;
 
 public class CryptoOutputStream<Reply> extends StatusOutputStream<Reply> {
 
@@ -63,6 +63,11 @@ public class CryptoOutputStream<Reply> extends StatusOutputStream<Reply> {
         private final NonceGenerator nonces;
         private long chunkIndexOffset;
 
+        /**
+         * Chunks encrypted concurrently and written in order
+         */
+        private final ChunkPipeline pipeline = new ChunkPipeline();
+
         public EncryptingOutputStream(final OutputStream proxy, final Cryptor cryptor, final FileHeader header,
                                       final NonceGenerator nonces, final long chunkIndexOffset) {
             super(proxy);
@@ -80,18 +85,54 @@ public class CryptoOutputStream<Reply> extends StatusOutputStream<Reply> {
 
         @Override
         public void write(final byte[] b, final int off, final int len) throws IOException {
+            for(int chunkOffset = off; chunkOffset < off + len; chunkOffset += chunksize) {
+                final int chunkLen = Math.min(chunksize, off + len - chunkOffset);
+                // Copy as the caller may reuse the buffer
+                final byte[] cleartext = ByteArrayPool.get().acquire(chunksize);
+                System.arraycopy(b, chunkOffset, cleartext, 0, chunkLen);
+                final long chunk = chunkIndexOffset++;
+                final byte[] nonce = nonces.next();
+                if(pipeline.isFull()) {
+                    this.writeNextChunk();
+                }
+                pipeline.submit(new Callable<ByteBuffer>() {
+                    @Override
+                    public ByteBuffer call() {
+                        try {
+                            return cryptor.fileContentCryptor().encryptChunk(ByteBuffer.wrap(cleartext, 0, chunkLen), chunk, header, nonce);
+                        }
+                        finally {
+                            ByteArrayPool.get().release(cleartext);
+                        }
+                    }
+                });
+            }
+        }
+
+        private void writeNextChunk() throws IOException {
+            super.write(pipeline.take().array());
+        }
+
+        @Override
+        public void flush() throws IOException {
+            while(!pipeline.isEmpty()) {
+                this.writeNextChunk();
+            }
+            super.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
             try {
-                for(int chunkOffset = off; chunkOffset < len; chunkOffset += chunksize) {
-                    int chunkLen = Math.min(chunksize, len - chunkOffset);
-                    final ByteBuffer encryptedChunk = cryptor.fileContentCryptor().encryptChunk(
-                            ByteBuffer.wrap(Arrays.copyOfRange(b, chunkOffset, chunkOffset + chunkLen)),
-                            chunkIndexOffset++, header, nonces.next());
-                    super.write(encryptedChunk.array());
+                while(!pipeline.isEmpty()) {
+                    this.writeNextChunk();
                 }
             }
-            catch(CryptoException e) {
-                throw new IOException(e.getMessage(), new CryptoAuthenticationException(e.getMessage(), e));
+            catch(IOException e) {
+                pipeline.cancel();
+                throw e;
             }
+            super.close();
         }
     }
 }
@@ -17,7 +17,6 @@ package ch.cyberduck.core.cryptomator.impl;
 
 import ch.cyberduck.core.AbstractPath;
 import ch.cyberduck.core.CacheReference;
-import ch.cyberduck.core.DefaultPathPredicate;
 import ch.cyberduck.core.Path;
 import ch.cyberduck.core.PathAttributes;
 import ch.cyberduck.core.RandomStringService;
@@ -120,14 +119,14 @@ public class CryptoDirectoryProvider {
             return ROOT_DIR_ID;
         }
         if(StringUtils.isBlank(directoryId)) {
-            if(cache.containsKey(new DefaultPathPredicate(directory))) {
-                return cache.get(new DefaultPathPredicate(directory));
+            if(cache.containsKey(directory.getReference())) {
+                return cache.get(directory.getReference());
             }
             final String id = this.load(session, directory);
-            cache.put(new DefaultPathPredicate(directory), id);
+            cache.put(directory.getReference(), id);
             return id;
         }
-        cache.put(new DefaultPathPredicate(directory), directoryId);
+        cache.put(directory.getReference(), directoryId);
         return directoryId;
     }
 
@@ -153,7 +152,7 @@ public class CryptoDirectoryProvider {
      * Remove from cache
      */
     public void delete(final Path directory) {
-        cache.remove(new DefaultPathPredicate(directory));
+        cache.remove(directory.getReference());
     }
 
     public void destroy() {
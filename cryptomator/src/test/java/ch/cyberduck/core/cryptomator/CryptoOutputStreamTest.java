@@ -145,4 +145,29 @@ public class CryptoOutputStreamTest {
 
         assertArrayEquals(cleartext, read);
     }
+
+    @Test
+    public void testWriteMultipleChunksInOrder() throws Exception {
+        final CryptoVault vault = this.getVault();
+        final ByteArrayOutputStream cipherText = new ByteArrayOutputStream();
+        final FileHeader header = vault.getCryptor().fileHeaderCryptor().create();
+        final CryptoOutputStream<?> stream = new CryptoOutputStream<>(new StatusOutputStream<Void>(cipherText) {
+            @Override
+            public Void getStatus() throws BackgroundException {
+                return null;
+            }
+        }, vault.getCryptor(), header, new RandomNonceGenerator(), 0);
+
+        final byte[] cleartext = RandomUtils.nextBytes(vault.getCryptor().fileContentCryptor().cleartextChunkSize() * 20 + 100);
+        stream.write(cleartext, 0, cleartext.length);
+        stream.close();
+
+        final byte[] read = new byte[cleartext.length];
+        final CryptoInputStream cryptoInputStream = new CryptoInputStream(new ByteArrayInputStream(cipherText.toByteArray()), vault.getCryptor(), header, 0);
+        IOUtils.readFully(cryptoInputStream, read);
+        assertEquals(-1, cryptoInputStream.read(new byte[1]));
+        cryptoInputStream.close();
+
+        assertArrayEquals(cleartext, read);
+    }
 }
@@ -23,6 +23,7 @@ import ch.cyberduck.core.Path;
 import ch.cyberduck.core.PathAttributes;
 import ch.cyberduck.core.VersionId;
 import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.exception.ConnectionCanceledException;
 import ch.cyberduck.core.features.AttributesFinder;
 import ch.cyberduck.core.features.Find;
 import ch.cyberduck.core.features.MultipartWrite;
@@ -32,7 +33,8 @@ import ch.cyberduck.core.http.HttpRange;
 import ch.cyberduck.core.http.HttpResponseOutputStream;
 import ch.cyberduck.core.io.ChecksumCompute;
 import ch.cyberduck.core.io.DisabledChecksumCompute;
-import ch.cyberduck.core.io.MemorySegementingOutputStream;
+import ch.cyberduck.core.io.ByteArrayPool;
+import ch.cyberduck.core.preferences.Preferences;
 import ch.cyberduck.core.preferences.PreferencesFactory;
 import ch.cyberduck.core.sds.io.swagger.client.ApiException;
 import ch.cyberduck.core.sds.io.swagger.client.api.NodesApi;
@@ -47,6 +49,7 @@ import ch.cyberduck.core.shared.DefaultAttributesFinderFeature;
 import ch.cyberduck.core.shared.DefaultFindFeature;
 import ch.cyberduck.core.threading.BackgroundExceptionCallable;
 import ch.cyberduck.core.threading.DefaultRetryCallable;
+import ch.cyberduck.core.threading.PartScheduler;
 import ch.cyberduck.core.transfer.TransferStatus;
 
 import org.apache.commons.lang3.StringUtils;
@@ -64,9 +67,9 @@ import org.apache.log4j.Logger;
 
 import java.io.IOException;
 import java.io.OutputStream;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import com.dracoon.sdk.crypto.Crypto;
 import com.dracoon.sdk.crypto.CryptoSystemException;
@@ -80,6 +83,9 @@ import static ch.cyberduck.core.sds.SDSWriteFeature.DEFAULT_CLASSIFICATION;
 public class SDSMultipartWriteFeature implements MultipartWrite<VersionId> {
     private static final Logger log = Logger.getLogger(SDSMultipartWriteFeature.class);
 
+    private final Preferences preferences
+        = PreferencesFactory.get();
+
     private final SDSSession session;
     private final SDSNodeIdProvider nodeid;
     private final Find finder;
@@ -105,9 +111,10 @@ public class SDSMultipartWriteFeature implements MultipartWrite<VersionId> {
         try {
             final CreateFileUploadResponse response = new NodesApi(session.getClient()).createFileUpload(body, StringUtils.EMPTY);
             final String id = response.getUploadId();
-            final MultipartOutputStream proxy = new MultipartOutputStream(id, file, status);
-            return new HttpResponseOutputStream<VersionId>(new MemorySegementingOutputStream(proxy,
-                PreferencesFactory.get().getInteger("sds.upload.multipart.chunksize"))) {
+            final MultipartOutputStream proxy = new MultipartOutputStream(id, file, status,
+                preferences.getInteger("sds.upload.multipart.chunksize"),
+                preferences.getInteger("sds.upload.multipart.concurrency"));
+            return new HttpResponseOutputStream<VersionId>(proxy) {
                 @Override
                 public VersionId getStatus() throws BackgroundException {
                     return proxy.getVersionId();
@@ -119,52 +126,111 @@ public class SDSMultipartWriteFeature implements MultipartWrite<VersionId> {
         }
     }
 
+    /**
+     * Aggregates writes into chunks uploaded concurrently with a content range
+     */
     private final class MultipartOutputStream extends OutputStream {
         private final String uploadId;
         private final Path file;
         private final TransferStatus overall;
         private final AtomicBoolean close = new AtomicBoolean();
+        /**
+         * Total length or -1 if unknown
+         */
+        private final long length;
+        private final int chunksize;
+        private final PartScheduler.Batch<Void> chunks;
+        /**
+         * First failure of a chunk upload
+         */
+        private final AtomicReference<BackgroundException> failure = new AtomicReference<>();
 
-        private Long offset = 0L;
+        /**
+         * Current chunk
+         */
+        private byte[] buffer;
+        /**
+         * Number of bytes in current chunk
+         */
+        private int count = 0;
+        /**
+         * Offset of current chunk
+         */
+        private long offset = 0L;
 
         private VersionId versionId;
 
-        public MultipartOutputStream(final String uploadId, final Path file, final TransferStatus status) {
+        public MultipartOutputStream(final String uploadId, final Path file, final TransferStatus status,
+                                     final int chunksize, final int concurrency) {
             this.uploadId = uploadId;
             this.file = file;
             this.overall = status;
+            this.length = status.getLength() == -1L ? -1L : status.getOffset() + status.getLength();
+            this.chunksize = chunksize;
+            this.chunks = PartScheduler.get().batch(concurrency);
+            this.buffer = ByteArrayPool.get().acquire(chunksize);
         }
 
         @Override
         public void write(final int value) throws IOException {
-            throw new IOException(new UnsupportedOperationException());
+            this.write(new byte[]{(byte) value}, 0, 1);
         }
 
         @Override
-        public void write(final byte[] b, final int off, final int len) throws IOException {
+        public void write(final byte[] b, int off, int len) throws IOException {
+            while(len > 0) {
+                final int n = Math.min(len, chunksize - count);
+                System.arraycopy(b, off, buffer, count, n);
+                count += n;
+                off += n;
+                len -= n;
+                if(count == chunksize) {
+                    this.submit();
+                }
+            }
+        }
+
+        /**
+         * Submit current chunk for upload and continue with new buffer
+         */
+        private void submit() throws IOException {
+            if(failure.get() != null) {
+                throw new IOException(failure.get().getMessage(), failure.get());
+            }
+            final byte[] content = buffer;
+            final int size = count;
+            final HttpRange range = HttpRange.byLength(offset, size);
             try {
-                final byte[] content = Arrays.copyOfRange(b, off, len);
-                final HttpEntity entity = MultipartEntityBuilder.create()
-                    .setBoundary(DelayedHttpMultipartEntity.DEFAULT_BOUNDARY)
-                    .addPart("file", new ByteArrayBody(content, file.getName()))
-                    .build();
-                new DefaultRetryCallable<Void>(new BackgroundExceptionCallable<Void>() {
+                chunks.submit(size, new DefaultRetryCallable<Void>(new BackgroundExceptionCallable<Void>() {
                     @Override
                     public Void call() throws BackgroundException {
                         final SDSApiClient client = session.getClient();
                         try {
+                            final HttpEntity entity = MultipartEntityBuilder.create()
+                                .setBoundary(DelayedHttpMultipartEntity.DEFAULT_BOUNDARY)
+                                .addPart("file", new ByteArrayBody(content, file.getName()) {
+                                    @Override
+                                    public void writeTo(final OutputStream out) throws IOException {
+                                        out.write(content, 0, size);
+                                    }
+
+                                    @Override
+                                    public long getContentLength() {
+                                        return size;
+                                    }
+                                })
+                                .build();
                             final HttpPost request = new HttpPost(String.format("%s/v4/nodes/files/uploads/%s", client.getBasePath(), uploadId));
                             request.setEntity(entity);
                             request.setHeader(SDSSession.SDS_AUTH_TOKEN_HEADER, StringUtils.EMPTY);
                             request.setHeader(HTTP.CONTENT_TYPE, String.format("multipart/form-data; boundary=%s", DelayedHttpMultipartEntity.DEFAULT_BOUNDARY));
-                            if(0L != overall.getLength() && 0 != content.length) {
-                                final HttpRange range = HttpRange.byLength(offset, content.length);
+                            if(0L != length && 0 != size) {
                                 final String header;
-                                if(overall.getLength() == -1L) {
+                                if(length == -1L) {
                                     header = String.format("%d-%d/*", range.getStart(), range.getEnd());
                                 }
                                 else {
-                                    header = String.format("%d-%d/%d", range.getStart(), range.getEnd(), overall.getOffset() + overall.getLength());
+                                    header = String.format("%d-%d/%d", range.getStart(), range.getEnd(), length);
                                 }
                                 request.addHeader(HttpHeaders.CONTENT_RANGE, String.format("bytes %s", header));
                             }
@@ -174,7 +240,6 @@ public class SDSMultipartWriteFeature implements MultipartWrite<VersionId> {
                                 switch(response.getStatusLine().getStatusCode()) {
                                     case HttpStatus.SC_CREATED:
                                         // Upload complete
-                                        offset += content.length;
                                         break;
                                     default:
                                         EntityUtils.updateEntity(response, new BufferedHttpEntity(response.getEntity()));
@@ -188,24 +253,32 @@ public class SDSMultipartWriteFeature implements MultipartWrite<VersionId> {
                             }
                         }
                         catch(IOException e) {
-                            try {
-                                if(log.isInfoEnabled()) {
-                                    log.info(String.format("Cancel failed upload %s for %s", uploadId, file));
-                                }
-                                new NodesApi(session.getClient()).cancelFileUpload(uploadId, StringUtils.EMPTY);
-                            }
-                            catch(ApiException f) {
-                                throw new SDSExceptionMappingService().map(f);
-                            }
                             throw new DefaultIOExceptionMappingService().map(e);
                         }
                         return null; //Void
                     }
-                }, overall).call();
+                }, overall) {
+                    @Override
+                    public Void call() throws BackgroundException {
+                        try {
+                            return super.call();
+                        }
+                        catch(BackgroundException e) {
+                            failure.compareAndSet(null, e);
+                            throw e;
+                        }
+                        finally {
+                            ByteArrayPool.get().release(content);
+                        }
+                    }
+                });
             }
-            catch(BackgroundException e) {
+            catch(ConnectionCanceledException e) {
                 throw new IOException(e.getMessage(), e);
             }
+            offset += size;
+            count = 0;
+            buffer = ByteArrayPool.get().acquire(chunksize);
         }
 
         @Override
@@ -215,6 +288,21 @@ public class SDSMultipartWriteFeature implements MultipartWrite<VersionId> {
                     log.warn(String.format("Skip double close of stream %s", this));
                     return;
                 }
+                try {
+                    if(count > 0) {
+                        this.submit();
+                    }
+                    chunks.await();
+                }
+                catch(BackgroundException e) {
+                    this.cancel();
+                    throw new IOException(e.getMessage(), e);
+                }
+                catch(IOException e) {
+                    chunks.cancel();
+                    this.cancel();
+                    throw e;
+                }
                 final CompleteUploadRequest body = new CompleteUploadRequest()
                     .resolutionStrategy(overall.isExists() ? CompleteUploadRequest.ResolutionStrategyEnum.OVERWRITE : CompleteUploadRequest.ResolutionStrategyEnum.FAIL);
                 if(overall.getFilekey() != null) {
@@ -236,10 +324,25 @@ public class SDSMultipartWriteFeature implements MultipartWrite<VersionId> {
                 throw new IOException(new CryptoExceptionMappingService().map("Upload {0} failed", e, file));
             }
             finally {
+                if(!close.get()) {
+                    ByteArrayPool.get().release(buffer);
+                }
                 close.set(true);
             }
         }
 
+        private void cancel() {
+            try {
+                if(log.isInfoEnabled()) {
+                    log.info(String.format("Cancel failed upload %s for %s", uploadId, file));
+                }
+                new NodesApi(session.getClient()).cancelFileUpload(uploadId, StringUtils.EMPTY);
+            }
+            catch(ApiException e) {
+                log.warn(String.format("Failure canceling upload %s. %s", uploadId, e.getMessage()));
+            }
+        }
+
         @Override
         public String toString() {
             final StringBuilder sb = new StringBuilder("MultipartOutputStream{");
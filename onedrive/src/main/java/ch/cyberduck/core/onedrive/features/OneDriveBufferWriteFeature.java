@@ -17,32 +17,52 @@ package ch.cyberduck.core.onedrive.features;
 
 import ch.cyberduck.core.Cache;
 import ch.cyberduck.core.ConnectionCallback;
+import ch.cyberduck.core.DefaultIOExceptionMappingService;
 import ch.cyberduck.core.Path;
 import ch.cyberduck.core.PathAttributes;
+import ch.cyberduck.core.URIEncoder;
 import ch.cyberduck.core.exception.BackgroundException;
 import ch.cyberduck.core.features.AttributesFinder;
 import ch.cyberduck.core.features.Find;
 import ch.cyberduck.core.features.MultipartWrite;
 import ch.cyberduck.core.features.Write;
+import ch.cyberduck.core.http.HttpRange;
 import ch.cyberduck.core.http.HttpResponseOutputStream;
-import ch.cyberduck.core.io.BufferInputStream;
-import ch.cyberduck.core.io.BufferOutputStream;
+import ch.cyberduck.core.io.ByteArrayPool;
 import ch.cyberduck.core.io.ChecksumCompute;
 import ch.cyberduck.core.io.DisabledChecksumCompute;
-import ch.cyberduck.core.io.FileBuffer;
+import ch.cyberduck.core.onedrive.OneDriveExceptionMappingService;
 import ch.cyberduck.core.onedrive.OneDriveSession;
+import ch.cyberduck.core.preferences.Preferences;
+import ch.cyberduck.core.preferences.PreferencesFactory;
 import ch.cyberduck.core.shared.DefaultAttributesFinderFeature;
 import ch.cyberduck.core.shared.DefaultFindFeature;
+import ch.cyberduck.core.threading.BackgroundExceptionCallable;
+import ch.cyberduck.core.threading.DefaultRetryCallable;
 import ch.cyberduck.core.transfer.TransferStatus;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.log4j.Logger;
+import org.nuxeo.onedrive.client.OneDriveAPIException;
+import org.nuxeo.onedrive.client.OneDriveFile;
+import org.nuxeo.onedrive.client.OneDriveFolder;
+import org.nuxeo.onedrive.client.OneDriveItem;
+import org.nuxeo.onedrive.client.OneDriveUploadSession;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Upload with unknown length streaming fragments to an upload session as soon as a fragment is filled. Only a single
+ * fragment is held in memory regardless of the file size.
+ */
 public class OneDriveBufferWriteFeature implements MultipartWrite<Void> {
     private static final Logger log = Logger.getLogger(OneDriveBufferWriteFeature.class);
 
+    private final Preferences preferences
+        = PreferencesFactory.get();
+
     private final OneDriveSession session;
     private final Find finder;
     private final AttributesFinder attributes;
@@ -59,36 +79,10 @@ public class OneDriveBufferWriteFeature implements MultipartWrite<Void> {
 
     @Override
     public HttpResponseOutputStream<Void> write(final Path file, final TransferStatus status, final ConnectionCallback callback) throws BackgroundException {
-        final FileBuffer buffer = new FileBuffer();
-        return new HttpResponseOutputStream<Void>(new BufferOutputStream(buffer) {
-            @Override
-            public void flush() throws IOException {
-                //
-            }
-
-            @Override
-            public void close() throws IOException {
-                try {
-                    // Reset offset in transfer status because data was already streamed
-                    // through StreamCopier when writing to buffer
-                    final TransferStatus range = new TransferStatus(status).length(buffer.length()).append(false);
-                    if(0L == buffer.length()) {
-                        new OneDriveTouchFeature(session).touch(file, new TransferStatus());
-                    }
-                    else {
-                        final HttpResponseOutputStream<Void> out = new OneDriveWriteFeature(session).write(file,
-                            range, callback);
-                        IOUtils.copy(new BufferInputStream(buffer), out);
-                        out.close();
-                        log.info(String.format("Completed upload for %s with status %s", file, range));
-                    }
-                    super.close();
-                }
-                catch(BackgroundException e) {
-                    throw new IOException(e);
-                }
-            }
-        }) {
+        // Fragment size must be a multiple of 320 KiB
+        final int minimum = preferences.getInteger("onedrive.upload.multipart.partsize.minimum");
+        final int size = Math.max(minimum, preferences.getInteger("onedrive.upload.multipart.partsize") / minimum * minimum);
+        return new HttpResponseOutputStream<Void>(new FragmentOutputStream(file, status, size)) {
             @Override
             public Void getStatus() throws BackgroundException {
                 return null;
@@ -119,4 +113,124 @@ public class OneDriveBufferWriteFeature implements MultipartWrite<Void> {
     public ChecksumCompute checksum(final Path file) {
         return new DisabledChecksumCompute();
     }
+
+    private final class FragmentOutputStream extends OutputStream {
+        private final Path file;
+        private final TransferStatus status;
+        private final byte[] buffer;
+        private final AtomicBoolean close = new AtomicBoolean();
+
+        /**
+         * Created with first fragment
+         */
+        private OneDriveUploadSession upload;
+        /**
+         * Number of bytes in buffer
+         */
+        private int count = 0;
+        /**
+         * Number of bytes uploaded
+         */
+        private long offset = 0L;
+
+        public FragmentOutputStream(final Path file, final TransferStatus status, final int size) {
+            this.file = file;
+            this.status = status;
+            this.buffer = ByteArrayPool.get().acquire(size);
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            this.write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(final byte[] b, int off, int len) throws IOException {
+            while(len > 0) {
+                if(count == buffer.length) {
+                    // Only upload full buffer when more data follows because the last fragment must include the total size
+                    this.upload(false);
+                }
+                final int n = Math.min(len, buffer.length - count);
+                System.arraycopy(b, off, buffer, count, n);
+                count += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        /**
+         * Upload content of buffer with retry
+         *
+         * @param last Last fragment with total size known
+         */
+        private void upload(final boolean last) throws IOException {
+            final HttpRange range = HttpRange.byLength(offset, count);
+            final String header;
+            if(last) {
+                header = String.format("%d-%d/%d", range.getStart(), range.getEnd(), offset + count);
+            }
+            else {
+                header = String.format("%d-%d/*", range.getStart(), range.getEnd());
+            }
+            final byte[] content = count == buffer.length ? buffer : Arrays.copyOf(buffer, count);
+            try {
+                new DefaultRetryCallable<Void>(new BackgroundExceptionCallable<Void>() {
+                    @Override
+                    public Void call() throws BackgroundException {
+                        try {
+                            if(null == upload) {
+                                final OneDriveFolder folder = session.toFolder(file.getParent());
+                                final OneDriveFile oneDriveFile = new OneDriveFile(session.getClient(), folder,
+                                    URIEncoder.encode(file.getName()), OneDriveItem.ItemIdentifierType.Path);
+                                upload = oneDriveFile.createUploadSession();
+                            }
+                            if(upload.uploadFragment(header, content) instanceof OneDriveFile.Metadata) {
+                                log.info(String.format("Completed upload for %s", file));
+                            }
+                            else {
+                                log.debug(String.format("Uploaded fragment %s for file %s", header, file));
+                            }
+                            return null;
+                        }
+                        catch(OneDriveAPIException e) {
+                            throw new OneDriveExceptionMappingService().map("Upload {0} failed", e, file);
+                        }
+                        catch(IOException e) {
+                            throw new DefaultIOExceptionMappingService().map("Upload {0} failed", e, file);
+                        }
+                    }
+                }, status).call();
+            }
+            catch(BackgroundException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+            offset += count;
+            count = 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if(close.get()) {
+                log.warn(String.format("Skip double close of stream %s", this));
+                return;
+            }
+            try {
+                if(0L == offset && 0 == count) {
+                    // Use touch feature for empty file upload
+                    new OneDriveTouchFeature(session).touch(file, new TransferStatus());
+                }
+                else {
+                    this.upload(true);
+                }
+            }
+            catch(BackgroundException e) {
+                throw new IOException(e);
+            }
+            finally {
+                ByteArrayPool.get().release(buffer);
+                close.set(true);
+            }
+        }
+    }
 }
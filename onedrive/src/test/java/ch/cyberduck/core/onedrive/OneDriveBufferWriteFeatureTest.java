@@ -26,6 +26,7 @@ import ch.cyberduck.core.onedrive.features.OneDriveBufferWriteFeature;
 import ch.cyberduck.core.onedrive.features.OneDriveDeleteFeature;
 import ch.cyberduck.core.onedrive.features.OneDriveHomeFinderFeature;
 import ch.cyberduck.core.onedrive.features.OneDriveReadFeature;
+import ch.cyberduck.core.preferences.PreferencesFactory;
 import ch.cyberduck.core.shared.DefaultFindFeature;
 import ch.cyberduck.core.transfer.TransferStatus;
 import ch.cyberduck.test.IntegrationTest;
@@ -73,6 +74,28 @@ public class OneDriveBufferWriteFeatureTest extends AbstractOneDriveTest {
         new OneDriveDeleteFeature(session).delete(Collections.singletonList(file), new DisabledLoginCallback(), new Delete.DisabledCallback());
     }
 
+    @Test
+    public void testWriteMultipleFragments() throws Exception {
+        final OneDriveBufferWriteFeature feature = new OneDriveBufferWriteFeature(session);
+        final Path container = new OneDriveHomeFinderFeature(session).find();
+        final byte[] content = RandomUtils.nextBytes(PreferencesFactory.get().getInteger("onedrive.upload.multipart.partsize") * 2 + 1);
+        final TransferStatus status = new TransferStatus();
+        final Path file = new Path(container, new AlphanumericRandomStringService().random(), EnumSet.of(Path.Type.file));
+        final HttpResponseOutputStream<Void> out = feature.write(file, status, new DisabledConnectionCallback());
+        final ByteArrayInputStream in = new ByteArrayInputStream(content);
+        new StreamCopier(status, status).transfer(in, out);
+        in.close();
+        out.close();
+        assertEquals(content.length, status.getOffset());
+        assertTrue(new DefaultFindFeature(session).find(file));
+        final byte[] compare = new byte[content.length];
+        final InputStream stream = new OneDriveReadFeature(session).read(file, new TransferStatus().length(content.length), new DisabledConnectionCallback());
+        IOUtils.readFully(stream, compare);
+        stream.close();
+        assertArrayEquals(content, compare);
+        new OneDriveDeleteFeature(session).delete(Collections.singletonList(file), new DisabledLoginCallback(), new Delete.DisabledCallback());
+    }
+
     @Test
     public void testWriteOverwrite() throws Exception {
         final OneDriveBufferWriteFeature feature = new OneDriveBufferWriteFeature(session);
@@ -30,15 +30,14 @@ import ch.cyberduck.core.features.Upload;
 import ch.cyberduck.core.features.Write;
 import ch.cyberduck.core.http.HttpUploadFeature;
 import ch.cyberduck.core.io.BandwidthThrottle;
+import ch.cyberduck.core.io.ChecksumIndex;
 import ch.cyberduck.core.io.HashAlgorithm;
 import ch.cyberduck.core.io.StreamListener;
 import ch.cyberduck.core.io.StreamProgress;
 import ch.cyberduck.core.threading.BackgroundExceptionCallable;
 import ch.cyberduck.core.threading.DefaultRetryCallable;
-import ch.cyberduck.core.threading.DefaultThreadPool;
-import ch.cyberduck.core.threading.ThreadPool;
+import ch.cyberduck.core.threading.PartScheduler;
 import ch.cyberduck.core.transfer.TransferStatus;
-import ch.cyberduck.core.worker.DefaultExceptionMappingService;
 
 import org.apache.log4j.Logger;
 
@@ -47,8 +46,6 @@ import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
 
 import ch.iterate.openstack.swift.exception.GenericException;
 import ch.iterate.openstack.swift.model.StorageObject;
@@ -98,7 +95,7 @@ public class SwiftLargeObjectUploadFeature extends HttpUploadFeature<StorageObje
                                 final StreamListener listener,
                                 final TransferStatus status,
                                 final ConnectionCallback callback) throws BackgroundException {
-        final DefaultThreadPool pool = new DefaultThreadPool("multipart", concurrency);
+        final PartScheduler.Batch<StorageObject> segments = PartScheduler.get().batch(concurrency);
         final List<Path> existingSegments = new ArrayList<Path>();
         if(status.isAppend() || status.isRetry()) {
             // Get a lexicographically ordered list of the existing file segments
@@ -108,57 +105,46 @@ public class SwiftLargeObjectUploadFeature extends HttpUploadFeature<StorageObje
         // this is important for building the manifest, and is not a problem in terms of performance
         // because we should only continue when all segments have uploaded successfully
         final List<StorageObject> completed = new ArrayList<StorageObject>();
-        // Submit file segments for concurrent upload
-        final List<Future<StorageObject>> segments = new ArrayList<Future<StorageObject>>();
         long remaining = status.getLength();
         long offset = 0;
-        for(int segmentNumber = 1; remaining > 0; segmentNumber++) {
-            final Long length = Math.min(segmentSize, remaining);
-            // Segment name with left padded segment number
-            final Path segment = segmentService.getSegment(file, status.getOffset() + status.getLength(), segmentNumber);
-            if(existingSegments.contains(segment)) {
-                final Path existingSegment = existingSegments.get(existingSegments.indexOf(segment));
-                if(log.isDebugEnabled()) {
-                    log.debug(String.format("Skip segment %s", existingSegment));
-                }
-                final StorageObject stored = new StorageObject(containerService.getKey(segment));
-                if(HashAlgorithm.md5.equals(existingSegment.attributes().getChecksum().algorithm)) {
-                    stored.setMd5sum(existingSegment.attributes().getChecksum().hash);
+        try {
+            // Submit file segments for concurrent upload
+            for(int segmentNumber = 1; remaining > 0; segmentNumber++) {
+                final Long length = Math.min(segmentSize, remaining);
+                // Segment name with left padded segment number
+                final Path segment = segmentService.getSegment(file, status.getOffset() + status.getLength(), segmentNumber);
+                if(existingSegments.contains(segment)) {
+                    final Path existingSegment = existingSegments.get(existingSegments.indexOf(segment));
+                    if(log.isDebugEnabled()) {
+                        log.debug(String.format("Skip segment %s", existingSegment));
+                    }
+                    final StorageObject stored = new StorageObject(containerService.getKey(segment));
+                    if(HashAlgorithm.md5.equals(existingSegment.attributes().getChecksum().algorithm)) {
+                        stored.setMd5sum(existingSegment.attributes().getChecksum().hash);
+                    }
+                    stored.setSize(existingSegment.attributes().getSize());
+                    offset += existingSegment.attributes().getSize();
+                    completed.add(stored);
                 }
-                stored.setSize(existingSegment.attributes().getSize());
-                offset += existingSegment.attributes().getSize();
-                completed.add(stored);
-            }
-            else {
-                // Submit to queue
-                segments.add(this.submit(pool, segment, local, throttle, listener, status, offset, length, callback));
-                if(log.isDebugEnabled()) {
-                    log.debug(String.format("Segment %s submitted with size %d and offset %d",
-                        segment, length, offset));
+                else {
+                    // Submit to queue
+                    this.submit(segments, segment, local, throttle, listener, status, offset, length, callback);
+                    if(log.isDebugEnabled()) {
+                        log.debug(String.format("Segment %s submitted with size %d and offset %d",
+                            segment, length, offset));
+                    }
+                    remaining -= length;
+                    offset += length;
                 }
-                remaining -= length;
-                offset += length;
-            }
-        }
-        try {
-            for(Future<StorageObject> futureSegment : segments) {
-                completed.add(futureSegment.get());
             }
+            completed.addAll(segments.await());
         }
-        catch(InterruptedException e) {
-            log.error("Part upload failed with interrupt failure");
+        catch(ConnectionCanceledException e) {
             status.setCanceled();
-            throw new ConnectionCanceledException(e);
-        }
-        catch(ExecutionException e) {
-            log.warn(String.format("Part upload failed with execution failure %s", e.getMessage()));
-            if(e.getCause() instanceof BackgroundException) {
-                throw (BackgroundException) e.getCause();
-            }
-            throw new DefaultExceptionMappingService().map(e.getCause());
+            throw e;
         }
         finally {
-            pool.shutdown(false);
+            segments.cancel();
         }
         // Mark parent status as complete
         status.setComplete();
@@ -192,10 +178,10 @@ public class SwiftLargeObjectUploadFeature extends HttpUploadFeature<StorageObje
         }
     }
 
-    private Future<StorageObject> submit(final ThreadPool pool, final Path segment, final Local local,
+    private void submit(final PartScheduler.Batch<StorageObject> segments, final Path segment, final Local local,
                                          final BandwidthThrottle throttle, final StreamListener listener,
-                                         final TransferStatus overall, final Long offset, final Long length, final ConnectionCallback callback) {
-        return pool.execute(new DefaultRetryCallable<StorageObject>(new BackgroundExceptionCallable<StorageObject>() {
+                                         final TransferStatus overall, final Long offset, final Long length, final ConnectionCallback callback) throws ConnectionCanceledException {
+        segments.submit(length, new DefaultRetryCallable<StorageObject>(new BackgroundExceptionCallable<StorageObject>() {
             @Override
             public StorageObject call() throws BackgroundException {
                 if(overall.isCanceled()) {
@@ -206,7 +192,7 @@ public class SwiftLargeObjectUploadFeature extends HttpUploadFeature<StorageObje
                     .skip(offset);
                 status.setHeader(overall.getHeader());
                 status.setNonces(overall.getNonces());
-                status.setChecksum(writer.checksum(segment).compute(local.getInputStream(), status));
+                status.setChecksum(ChecksumIndex.get().compute(local, writer.checksum(segment), status));
                 status.setSegment(true);
                 return SwiftLargeObjectUploadFeature.super.upload(
                     segment, local, throttle, listener, status, overall, new StreamProgress() {
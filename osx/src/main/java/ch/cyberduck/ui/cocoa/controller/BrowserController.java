@@ -207,7 +207,8 @@ public class BrowserController extends WindowController
      * Caching files listings of previously listed directories
      */
     private final Cache<Path> cache
-        = new ReverseLookupCache<Path>(new PathCache(preferences.getInteger("browser.cache.size")), preferences.getInteger("browser.cache.size"));
+        = new ReverseLookupCache<Path>(new PathCache(preferences.getInteger("browser.cache.size"),
+        preferences.getLong("browser.cache.weight")), preferences.getInteger("browser.cache.size"));
 
     private Scheduler scheduler;
 
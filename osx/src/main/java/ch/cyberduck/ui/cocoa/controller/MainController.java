@@ -66,6 +66,7 @@ import ch.cyberduck.core.importer.FlowBookmarkCollection;
 import ch.cyberduck.core.importer.InterarchyBookmarkCollection;
 import ch.cyberduck.core.importer.ThirdpartyBookmarkCollection;
 import ch.cyberduck.core.importer.Transmit4BookmarkCollection;
+import ch.cyberduck.core.io.ChecksumIndex;
 import ch.cyberduck.core.local.Application;
 import ch.cyberduck.core.local.BrowserLauncherFactory;
 import ch.cyberduck.core.local.DefaultLocalDirectoryFeature;
@@ -1223,6 +1224,8 @@ public class MainController extends BundleController implements NSApplication.De
         this.invalidate();
         // Clear temporary files
         TemporaryFileServiceFactory.get().shutdown();
+        // Write pending records of checksum index
+        ChecksumIndex.get().shutdown();
         //Terminating rendezvous discovery
         RendezvousFactory.instance().quit();
         // Remove notifications from center
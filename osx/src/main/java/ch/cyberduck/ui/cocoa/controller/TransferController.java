@@ -534,7 +534,7 @@ public final class TransferController extends WindowController implements Transf
      *
      * @param transfer Transfer
      */
-    public void add(final Transfer transfer, final TransferBackgroundAction action) {
+    public void add(final Transfer transfer, final TransferCollectionBackgroundAction action) {
         if(collection.size() > preferences.getInteger("queue.size.warn")) {
             final NSAlert alert = NSAlert.alert(
                 TransferToolbarFactory.TransferToolbarItem.cleanup.label(), //title
@@ -556,13 +556,13 @@ public final class TransferController extends WindowController implements Transf
                         clearButtonClicked(null);
                     }
                     add(transfer);
-                    background(action);
+                    action.submit();
                 }
             });
         }
         else {
             this.add(transfer);
-            this.background(action);
+            action.submit();
         }
     }
 
@@ -626,7 +626,7 @@ public final class TransferController extends WindowController implements Transf
         final Cache<Path> cache = new PathCache(preferences.getInteger("transfer.cache.size"));
         final Host source = transfer.getSource();
         final Host destination = transfer.getDestination();
-        final TransferBackgroundAction action = new TransferCollectionBackgroundAction(this,
+        final TransferCollectionBackgroundAction action = new TransferCollectionBackgroundAction(this,
             null == source ? SessionPool.DISCONNECTED : SessionPoolFactory.create(this, cache, source, progress),
             null == destination ? SessionPool.DISCONNECTED : SessionPoolFactory.create(this, cache, destination, progress),
             this, progress, transfer.withCache(cache), options) {
@@ -662,7 +662,8 @@ public final class TransferController extends WindowController implements Transf
             this.add(transfer, action);
         }
         else {
-            this.background(action);
+            // Run when admitted by queue
+            action.submit();
         }
     }
 
@@ -711,6 +712,8 @@ public final class TransferController extends WindowController implements Transf
                         }
                     }
                 }
+                // Drop transfer still waiting in queue
+                TransferQueueFactory.get().release(transfer);
             }
         }
     }
@@ -729,6 +732,8 @@ public final class TransferController extends WindowController implements Transf
                         }
                     }
                 }
+                // Drop transfer still waiting in queue
+                TransferQueueFactory.get().release(transfer);
             }
         }
     }
@@ -798,6 +803,10 @@ public final class TransferController extends WindowController implements Transf
                 remove.add(t);
             }
         }
+        for(Transfer t : remove) {
+            // Never start removed transfer waiting in queue
+            TransferQueueFactory.get().release(t);
+        }
         collection.removeAll(remove);
         collection.save();
     }
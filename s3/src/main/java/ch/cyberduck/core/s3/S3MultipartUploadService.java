@@ -31,15 +31,16 @@ import ch.cyberduck.core.features.Upload;
 import ch.cyberduck.core.features.Write;
 import ch.cyberduck.core.http.HttpUploadFeature;
 import ch.cyberduck.core.io.BandwidthThrottle;
+import ch.cyberduck.core.io.ChecksumIndex;
 import ch.cyberduck.core.io.MD5ChecksumCompute;
 import ch.cyberduck.core.io.StreamListener;
 import ch.cyberduck.core.io.StreamProgress;
 import ch.cyberduck.core.preferences.Preferences;
 import ch.cyberduck.core.preferences.PreferencesFactory;
+import ch.cyberduck.core.threading.AdaptivePartController;
 import ch.cyberduck.core.threading.BackgroundExceptionCallable;
 import ch.cyberduck.core.threading.DefaultRetryCallable;
-import ch.cyberduck.core.threading.DefaultThreadPool;
-import ch.cyberduck.core.threading.ThreadPool;
+import ch.cyberduck.core.threading.PartScheduler;
 import ch.cyberduck.core.transfer.TransferStatus;
 
 import org.apache.commons.lang3.StringUtils;
@@ -58,8 +59,8 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 
 public class S3MultipartUploadService extends HttpUploadFeature<StorageObject, MessageDigest> {
     private static final Logger log = Logger.getLogger(S3MultipartUploadService.class);
@@ -99,7 +100,21 @@ public class S3MultipartUploadService extends HttpUploadFeature<StorageObject, M
     @Override
     public StorageObject upload(final Path file, final Local local, final BandwidthThrottle throttle, final StreamListener listener,
                                 final TransferStatus status, final ConnectionCallback callback) throws BackgroundException {
-        final DefaultThreadPool pool = new DefaultThreadPool("multipart", concurrency);
+        final AdaptivePartController controller;
+        final PartScheduler.Batch<MultipartPart> parts;
+        if(preferences.getBoolean("s3.upload.multipart.adaptive")) {
+            // Tune part size and concurrency from duration of completed parts
+            final int limit = Math.max(concurrency, preferences.getInteger("s3.upload.multipart.adaptive.concurrency"));
+            controller = new AdaptivePartController(partsize,
+                Math.min(partsize, preferences.getLong("s3.upload.multipart.partsize.minimum")),
+                S3DefaultMultipartService.MAXIMUM_PART_SIZE, concurrency, limit,
+                TimeUnit.SECONDS.toMillis(preferences.getLong("s3.upload.multipart.adaptive.duration.seconds")));
+            parts = PartScheduler.get().batch(limit);
+        }
+        else {
+            controller = null;
+            parts = PartScheduler.get().batch(concurrency);
+        }
         try {
             MultipartUpload multipart = null;
             try {
@@ -131,13 +146,26 @@ public class S3MultipartUploadService extends HttpUploadFeature<StorageObject, M
                 if(status.isAppend() || status.isRetry()) {
                     // Add already completed parts
                     completed.addAll(multipartService.list(multipart));
+                    if(null != controller) {
+                        // Part size may differ from previous attempt. Only skip parts contiguous from first part
+                        completed.sort(new MultipartPart.PartNumberComparator());
+                        for(int i = 0; i < completed.size(); i++) {
+                            if(completed.get(i).getPartNumber() != i + 1) {
+                                completed.subList(i, completed.size()).clear();
+                                break;
+                            }
+                        }
+                    }
                 }
             }
             try {
                 // Full size of file
                 final long size = status.getLength() + status.getOffset();
-                final List<Future<MultipartPart>> parts = new ArrayList<Future<MultipartPart>>();
-                long remaining = status.getLength();
+                // Bytes not in completed parts. May exceed length when completed parts have been discarded
+                long remaining = size;
+                for(MultipartPart c : completed) {
+                    remaining -= c.getSize();
+                }
                 long offset = 0;
                 for(int partNumber = 1; remaining > 0; partNumber++) {
                     boolean skip = false;
@@ -157,30 +185,43 @@ public class S3MultipartUploadService extends HttpUploadFeature<StorageObject, M
                         }
                     }
                     if(!skip) {
-                        // Last part can be less than 5 MB. Adjust part size.
-                        final Long length = Math.min(Math.max((size / S3DefaultMultipartService.MAXIMUM_UPLOAD_PARTS), partsize), remaining);
+                        final Long length;
+                        if(null == controller) {
+                            // Last part can be less than 5 MB. Adjust part size.
+                            length = Math.min(Math.max((size / S3DefaultMultipartService.MAXIMUM_UPLOAD_PARTS), partsize), remaining);
+                        }
+                        else {
+                            try {
+                                controller.acquire();
+                            }
+                            catch(InterruptedException e) {
+                                throw new ConnectionCanceledException(e);
+                            }
+                            // Keep remaining data within maximum number of parts
+                            final long left = S3DefaultMultipartService.MAXIMUM_UPLOAD_PARTS - partNumber + 1;
+                            length = Math.min(Math.max((remaining + left - 1) / left, controller.getPartsize()), remaining);
+                        }
                         // Submit to queue
-                        parts.add(this.submit(pool, file, local, throttle, listener, status, multipart, partNumber, offset, length, callback));
+                        try {
+                            this.submit(parts, controller, file, local, throttle, listener, status, multipart, partNumber, offset, length, callback);
+                        }
+                        catch(BackgroundException | RuntimeException e) {
+                            if(null != controller) {
+                                // Release slot not handed over to part
+                                controller.release();
+                            }
+                            throw e;
+                        }
                         remaining -= length;
                         offset += length;
                     }
                 }
-                for(Future<MultipartPart> future : parts) {
-                    try {
-                        completed.add(future.get());
-                    }
-                    catch(InterruptedException e) {
-                        log.error("Part upload failed with interrupt failure");
-                        status.setCanceled();
-                        throw new ConnectionCanceledException(e);
-                    }
-                    catch(ExecutionException e) {
-                        log.warn(String.format("Part upload failed with execution failure %s", e.getMessage()));
-                        if(e.getCause() instanceof BackgroundException) {
-                            throw (BackgroundException) e.getCause();
-                        }
-                        throw new BackgroundException(e.getCause());
-                    }
+                try {
+                    completed.addAll(parts.await());
+                }
+                catch(ConnectionCanceledException e) {
+                    status.setCanceled();
+                    throw e;
                 }
                 // Combining all the given parts into the final object. Processing of a Complete Multipart Upload request
                 // could take several minutes to complete. Because a request could fail after the initial 200 OK response
@@ -227,7 +268,7 @@ public class S3MultipartUploadService extends HttpUploadFeature<StorageObject, M
             }
             finally {
                 // Cancel future tasks
-                pool.shutdown(false);
+                parts.cancel();
             }
         }
         catch(ServiceException e) {
@@ -235,19 +276,20 @@ public class S3MultipartUploadService extends HttpUploadFeature<StorageObject, M
         }
     }
 
-    private Future<MultipartPart> submit(final ThreadPool pool, final Path file, final Local local,
+    private void submit(final PartScheduler.Batch<MultipartPart> parts, final AdaptivePartController controller, final Path file, final Local local,
                                          final BandwidthThrottle throttle, final StreamListener listener,
                                          final TransferStatus overall, final MultipartUpload multipart,
                                          final int partNumber, final long offset, final long length, final ConnectionCallback callback) throws BackgroundException {
         if(log.isInfoEnabled()) {
             log.info(String.format("Submit part %d of %s to queue with offset %d and length %d", partNumber, file, offset, length));
         }
-        return pool.execute(new DefaultRetryCallable<MultipartPart>(new BackgroundExceptionCallable<MultipartPart>() {
+        final Callable<MultipartPart> part = new DefaultRetryCallable<MultipartPart>(new BackgroundExceptionCallable<MultipartPart>() {
             @Override
             public MultipartPart call() throws BackgroundException {
                 if(overall.isCanceled()) {
                     throw new ConnectionCanceledException();
                 }
+                final long timestamp = System.currentTimeMillis();
                 final Map<String, String> requestParameters = new HashMap<String, String>();
                 requestParameters.put("uploadId", multipart.getUploadId());
                 requestParameters.put("partNumber", String.valueOf(partNumber));
@@ -259,24 +301,36 @@ public class S3MultipartUploadService extends HttpUploadFeature<StorageObject, M
                 status.setNonces(overall.getNonces());
                 switch(session.getSignatureVersion()) {
                     case AWS4HMACSHA256:
-                        status.setChecksum(writer.checksum(file).compute(local.getInputStream(), status));
+                        status.setChecksum(ChecksumIndex.get().compute(local, writer.checksum(file), status));
                         break;
                 }
                 status.setSegment(true);
-                final StorageObject part = S3MultipartUploadService.super.upload(
-                    file, local, throttle, listener, status, overall, new StreamProgress() {
-                        @Override
-                        public void progress(final long bytes) {
-                            status.progress(bytes);
-                            // Discard sent bytes in overall progress if there is an error reply for segment.
-                            overall.progress(bytes);
-                        }
+                final StorageObject part;
+                try {
+                    part = S3MultipartUploadService.super.upload(
+                        file, local, throttle, listener, status, overall, new StreamProgress() {
+                            @Override
+                            public void progress(final long bytes) {
+                                status.progress(bytes);
+                                // Discard sent bytes in overall progress if there is an error reply for segment.
+                                overall.progress(bytes);
+                            }
 
-                        @Override
-                        public void setComplete() {
-                            status.setComplete();
-                        }
-                    }, callback);
+                            @Override
+                            public void setComplete() {
+                                status.setComplete();
+                            }
+                        }, callback);
+                }
+                catch(BackgroundException e) {
+                    if(null != controller) {
+                        controller.failure();
+                    }
+                    throw e;
+                }
+                if(null != controller) {
+                    controller.success(length, System.currentTimeMillis() - timestamp);
+                }
                 if(log.isInfoEnabled()) {
                     log.info(String.format("Received response %s for part number %d", part, partNumber));
                 }
@@ -287,7 +341,23 @@ public class S3MultipartUploadService extends HttpUploadFeature<StorageObject, M
                     part.getContentLength());
 
             }
-        }, overall));
+        }, overall);
+        if(null == controller) {
+            parts.submit(length, part);
+        }
+        else {
+            parts.submit(length, new Callable<MultipartPart>() {
+                @Override
+                public MultipartPart call() throws Exception {
+                    try {
+                        return part.call();
+                    }
+                    finally {
+                        controller.release();
+                    }
+                }
+            });
+        }
     }
 
     @Override
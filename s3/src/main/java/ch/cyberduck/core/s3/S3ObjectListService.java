@@ -29,8 +29,12 @@ import ch.cyberduck.core.PathContainerService;
 import ch.cyberduck.core.PathNormalizer;
 import ch.cyberduck.core.URIEncoder;
 import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.exception.ConnectionCanceledException;
 import ch.cyberduck.core.preferences.Preferences;
 import ch.cyberduck.core.preferences.PreferencesFactory;
+import ch.cyberduck.core.threading.BackgroundExceptionCallable;
+import ch.cyberduck.core.threading.DefaultThreadPool;
+import ch.cyberduck.core.threading.ThreadPool;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.log4j.Logger;
@@ -38,7 +42,12 @@ import org.jets3t.service.ServiceException;
 import org.jets3t.service.StorageObjectsChunk;
 import org.jets3t.service.model.StorageObject;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 public class S3ObjectListService implements ListService {
     private static final Logger log = Logger.getLogger(S3ObjectListService.class);
@@ -71,76 +80,176 @@ public class S3ObjectListService implements ListService {
     public AttributedList<Path> list(final Path directory, final ListProgressListener listener, final String delimiter, final int chunksize) throws BackgroundException {
         try {
             final String prefix = this.createPrefix(directory);
-            // If this optional, Unicode string parameter is included with your request,
-            // then keys that contain the same string between the prefix and the first
-            // occurrence of the delimiter will be rolled up into a single result
-            // element in the CommonPrefixes collection. These rolled-up keys are
-            // not returned elsewhere in the response.
-            final Path bucket = containerService.getContainer(directory);
+            if(null == delimiter) {
+                final int concurrency = preferences.getInteger("s3.listing.concurrency");
+                if(concurrency > 1) {
+                    return this.list(directory, listener, prefix, chunksize, concurrency);
+                }
+            }
             final AttributedList<Path> children = new AttributedList<Path>();
-            // Null if listing is complete
-            String priorLastKey = null;
-            do {
-                // Read directory listing in chunks. List results are always returned
-                // in lexicographic (alphabetical) order.
-                final StorageObjectsChunk chunk = session.getClient().listObjectsChunked(
-                        PathNormalizer.name(URIEncoder.encode(bucket.getName())), prefix, delimiter,
-                        chunksize, priorLastKey);
-
-                final StorageObject[] objects = chunk.getObjects();
-                for(StorageObject object : objects) {
-                    final String key = PathNormalizer.normalize(object.getKey());
-                    if(String.valueOf(Path.DELIMITER).equals(key)) {
-                        log.warn(String.format("Skipping prefix %s", key));
-                        continue;
-                    }
-                    if(new Path(bucket, key, EnumSet.of(Path.Type.directory)).equals(directory)) {
-                        continue;
-                    }
-                    final EnumSet<AbstractPath.Type> types = object.getKey().endsWith(String.valueOf(Path.DELIMITER))
-                            ? EnumSet.of(Path.Type.directory) : EnumSet.of(Path.Type.file);
-                    final Path file;
-                    final PathAttributes attr = attributes.toAttributes(object);
-                    // Copy bucket location
-                    attr.setRegion(bucket.attributes().getRegion());
-                    if(null == delimiter) {
-                        file = new Path(String.format("%s%s", bucket.getAbsolute(), key), types, attr);
-                    }
-                    else {
-                        file = new Path(directory, PathNormalizer.name(key), types, attr);
-                    }
-                    children.add(file);
+            this.list(directory, listener, prefix, delimiter, chunksize, children);
+            return children;
+        }
+        catch(ServiceException e) {
+            throw new S3ExceptionMappingService().map("Listing directory {0} failed", e, directory);
+        }
+    }
+
+    /**
+     * Recursive listing partitioned by common prefixes of the first level below the directory listed concurrently
+     *
+     * @param concurrency Number of concurrent requests
+     */
+    private AttributedList<Path> list(final Path directory, final ListProgressListener listener, final String prefix,
+                                      final int chunksize, final int concurrency) throws BackgroundException, ServiceException {
+        final Path bucket = containerService.getContainer(directory);
+        final AttributedList<Path> children = new AttributedList<Path>();
+        final List<String> partitions = new ArrayList<String>();
+        // Null if listing is complete
+        String priorLastKey = null;
+        do {
+            final StorageObjectsChunk chunk = session.getClient().listObjectsChunked(
+                PathNormalizer.name(URIEncoder.encode(bucket.getName())), prefix, String.valueOf(Path.DELIMITER),
+                chunksize, priorLastKey);
+            for(StorageObject object : chunk.getObjects()) {
+                final Path file = this.toPath(directory, bucket, object, null);
+                if(null == file) {
+                    continue;
                 }
-                final String[] prefixes = chunk.getCommonPrefixes();
-                for(String common : prefixes) {
-                    if(String.valueOf(Path.DELIMITER).equals(common)) {
-                        log.warn(String.format("Skipping prefix %s", common));
-                        continue;
-                    }
-                    final String key = PathNormalizer.normalize(common);
-                    if(new Path(bucket, key, EnumSet.of(Path.Type.directory)).equals(directory)) {
-                        continue;
-                    }
-                    final Path file;
-                    final PathAttributes attributes = new PathAttributes();
-                    if(null == delimiter) {
-                        file = new Path(String.format("%s%s", bucket.getAbsolute(), key), EnumSet.of(Path.Type.directory, Path.Type.placeholder), attributes);
+                children.add(file);
+            }
+            // Keys below common prefixes are listed recursively
+            Collections.addAll(partitions, chunk.getCommonPrefixes());
+            priorLastKey = chunk.getPriorLastKey();
+            listener.chunk(directory, children);
+        }
+        while(priorLastKey != null);
+        if(partitions.isEmpty()) {
+            return children;
+        }
+        if(log.isInfoEnabled()) {
+            log.info(String.format("List %d prefixes in %s with concurrency %d", partitions.size(), directory, concurrency));
+        }
+        final ThreadPool pool = new DefaultThreadPool("listing", Math.min(concurrency, partitions.size()));
+        try {
+            final List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for(String partition : partitions) {
+                futures.add(pool.execute(new BackgroundExceptionCallable<Void>() {
+                    @Override
+                    public Void call() throws BackgroundException {
+                        try {
+                            S3ObjectListService.this.list(directory, listener, partition, null, chunksize, children);
+                        }
+                        catch(ServiceException e) {
+                            throw new S3ExceptionMappingService().map("Listing directory {0} failed", e, directory);
+                        }
+                        return null;
                     }
-                    else {
-                        file = new Path(directory, PathNormalizer.name(key), EnumSet.of(Path.Type.directory, Path.Type.placeholder), attributes);
+                }));
+            }
+            for(Future<Void> future : futures) {
+                try {
+                    future.get();
+                }
+                catch(InterruptedException e) {
+                    throw new ConnectionCanceledException(e);
+                }
+                catch(ExecutionException e) {
+                    if(e.getCause() instanceof BackgroundException) {
+                        throw (BackgroundException) e.getCause();
                     }
-                    attributes.setRegion(bucket.attributes().getRegion());
-                    children.add(file);
+                    throw new BackgroundException(e.getCause());
+                }
+            }
+        }
+        finally {
+            // Cancel pending requests
+            pool.shutdown(false);
+        }
+        return children;
+    }
+
+    /**
+     * Add all keys with prefix to children
+     *
+     * @param children Shared with concurrent listings of other prefixes
+     */
+    private void list(final Path directory, final ListProgressListener listener, final String prefix, final String delimiter,
+                      final int chunksize, final AttributedList<Path> children) throws BackgroundException, ServiceException {
+        // If this optional, Unicode string parameter is included with your request,
+        // then keys that contain the same string between the prefix and the first
+        // occurrence of the delimiter will be rolled up into a single result
+        // element in the CommonPrefixes collection. These rolled-up keys are
+        // not returned elsewhere in the response.
+        final Path bucket = containerService.getContainer(directory);
+        // Null if listing is complete
+        String priorLastKey = null;
+        do {
+            // Read directory listing in chunks. List results are always returned
+            // in lexicographic (alphabetical) order.
+            final StorageObjectsChunk chunk = session.getClient().listObjectsChunked(
+                    PathNormalizer.name(URIEncoder.encode(bucket.getName())), prefix, delimiter,
+                    chunksize, priorLastKey);
+            final List<Path> page = new ArrayList<Path>();
+            final StorageObject[] objects = chunk.getObjects();
+            for(StorageObject object : objects) {
+                final Path file = this.toPath(directory, bucket, object, delimiter);
+                if(null == file) {
+                    continue;
+                }
+                page.add(file);
+            }
+            final String[] prefixes = chunk.getCommonPrefixes();
+            for(String common : prefixes) {
+                if(String.valueOf(Path.DELIMITER).equals(common)) {
+                    log.warn(String.format("Skipping prefix %s", common));
+                    continue;
+                }
+                final String key = PathNormalizer.normalize(common);
+                if(new Path(bucket, key, EnumSet.of(Path.Type.directory)).equals(directory)) {
+                    continue;
                 }
-                priorLastKey = chunk.getPriorLastKey();
+                final Path file;
+                final PathAttributes attributes = new PathAttributes();
+                if(null == delimiter) {
+                    file = new Path(String.format("%s%s", bucket.getAbsolute(), key), EnumSet.of(Path.Type.directory, Path.Type.placeholder), attributes);
+                }
+                else {
+                    file = new Path(directory, PathNormalizer.name(key), EnumSet.of(Path.Type.directory, Path.Type.placeholder), attributes);
+                }
+                attributes.setRegion(bucket.attributes().getRegion());
+                page.add(file);
+            }
+            priorLastKey = chunk.getPriorLastKey();
+            synchronized(children) {
+                children.addAll(page);
                 listener.chunk(directory, children);
             }
-            while(priorLastKey != null);
-            return children;
         }
-        catch(ServiceException e) {
-            throw new S3ExceptionMappingService().map("Listing directory {0} failed", e, directory);
+        while(priorLastKey != null);
+    }
+
+    /**
+     * @return Null if key is skipped
+     */
+    private Path toPath(final Path directory, final Path bucket, final StorageObject object, final String delimiter) {
+        final String key = PathNormalizer.normalize(object.getKey());
+        if(String.valueOf(Path.DELIMITER).equals(key)) {
+            log.warn(String.format("Skipping prefix %s", key));
+            return null;
+        }
+        if(new Path(bucket, key, EnumSet.of(Path.Type.directory)).equals(directory)) {
+            return null;
+        }
+        final EnumSet<AbstractPath.Type> types = object.getKey().endsWith(String.valueOf(Path.DELIMITER))
+                ? EnumSet.of(Path.Type.directory) : EnumSet.of(Path.Type.file);
+        final PathAttributes attr = attributes.toAttributes(object);
+        // Copy bucket location
+        attr.setRegion(bucket.attributes().getRegion());
+        if(null == delimiter) {
+            return new Path(String.format("%s%s", bucket.getAbsolute(), key), types, attr);
         }
+        return new Path(directory, PathNormalizer.name(key), types, attr);
     }
 
     protected String createPrefix(final Path directory) {
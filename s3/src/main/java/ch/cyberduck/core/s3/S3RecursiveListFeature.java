@@ -0,0 +1,45 @@
+package ch.cyberduck.core.s3;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.AttributedList;
+import ch.cyberduck.core.ListProgressListener;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.features.RecursiveList;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+
+public class S3RecursiveListFeature implements RecursiveList {
+
+    private final S3Session session;
+
+    public S3RecursiveListFeature(final S3Session session) {
+        this.session = session;
+    }
+
+    @Override
+    public AttributedList<Path> list(final Path directory, final ListProgressListener listener) throws BackgroundException {
+        // List all keys with prefix omitting the delimiter
+        return new S3ObjectListService(session).list(directory, listener, null,
+            PreferencesFactory.get().getInteger("s3.listing.chunksize"));
+    }
+
+    @Override
+    public boolean isSupported(final Path directory) {
+        // Buckets are listed with a separate request
+        return !directory.isRoot();
+    }
+}
@@ -379,6 +379,9 @@ public class S3Session extends HttpSession<RequestEntityRestStorageService> {
         if(type == Search.class) {
             return (T) new S3SearchFeature(this);
         }
+        if(type == RecursiveList.class) {
+            return (T) new S3RecursiveListFeature(this);
+        }
         if(type == IdProvider.class) {
             return (T) new S3VersionIdProvider(this);
         }
@@ -17,6 +17,7 @@ import ch.cyberduck.core.features.Delete;
 import ch.cyberduck.core.io.BandwidthThrottle;
 import ch.cyberduck.core.io.DisabledStreamListener;
 import ch.cyberduck.core.kms.KMSEncryptionFeature;
+import ch.cyberduck.core.preferences.PreferencesFactory;
 import ch.cyberduck.core.proxy.Proxy;
 import ch.cyberduck.core.transfer.TransferStatus;
 import ch.cyberduck.test.IntegrationTest;
@@ -25,6 +26,7 @@ import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.input.CountingInputStream;
 import org.apache.commons.lang3.RandomUtils;
 import org.apache.commons.text.RandomStringGenerator;
+import org.jets3t.service.model.MultipartUpload;
 import org.jets3t.service.model.S3Object;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
@@ -32,6 +34,7 @@ import org.junit.experimental.categories.Category;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.Map;
@@ -336,4 +339,50 @@ public class S3MultipartUploadServiceTest {
         local.delete();
         session.close();
     }
+
+    @Test
+    public void testAppendAdaptiveWithMissingPart() throws Exception {
+        final S3Session session = new S3Session(
+                new Host(new S3Protocol(), new S3Protocol().getDefaultHostname(),
+                        new Credentials(
+                                System.getProperties().getProperty("s3.key"), System.getProperties().getProperty("s3.secret")
+                        )));
+        session.open(Proxy.DIRECT, new DisabledHostKeyCallback(), new DisabledLoginCallback());
+        session.login(Proxy.DIRECT, new DisabledPasswordStore(), new DisabledLoginCallback(), new DisabledCancelCallback());
+        final Path container = new Path("test-us-east-1-cyberduck", EnumSet.of(Path.Type.directory, Path.Type.volume));
+        final String name = UUID.randomUUID().toString();
+        final Path test = new Path(container, name, EnumSet.of(Path.Type.file));
+        final int partsize = 5 * 1024 * 1024;
+        final byte[] content = RandomUtils.nextBytes(4 * partsize);
+        final Local local = new Local(System.getProperty("java.io.tmpdir"), name);
+        IOUtils.write(content, local.getOutputStream(false));
+        // Previous attempt completed parts 1, 2 and 4 but not 3
+        final MultipartUpload multipart = session.getClient().multipartStartUpload(container.getName(), new S3Object(name));
+        for(int partNumber : new int[]{1, 2, 4}) {
+            session.getClient().multipartUploadPart(multipart, partNumber, new S3Object(name,
+                Arrays.copyOfRange(content, (partNumber - 1) * partsize, partNumber * partsize)));
+        }
+        PreferencesFactory.get().setProperty("s3.upload.multipart.adaptive", true);
+        try {
+            // Offset includes all completed parts
+            final TransferStatus append = new TransferStatus().append(true).length(partsize).skip(3L * partsize);
+            new S3MultipartUploadService(session, new S3WriteFeature(session, new S3DisabledMultipartService()), (long) partsize, 2).upload(
+                    test, local, new BandwidthThrottle(BandwidthThrottle.UNLIMITED),
+                    new DisabledStreamListener(), append,
+                    new DisabledConnectionCallback());
+            assertTrue(append.isComplete());
+        }
+        finally {
+            PreferencesFactory.get().deleteProperty("s3.upload.multipart.adaptive");
+        }
+        assertEquals(content.length, new S3AttributesFinderFeature(session).find(test).getSize());
+        final byte[] buffer = new byte[content.length];
+        final InputStream in = new S3ReadFeature(session).read(test, new TransferStatus(), new DisabledConnectionCallback());
+        IOUtils.readFully(in, buffer);
+        in.close();
+        assertArrayEquals(content, buffer);
+        new S3DefaultDeleteFeature(session).delete(Collections.singletonList(test), new DisabledLoginCallback(), new Delete.DisabledCallback());
+        local.delete();
+        session.close();
+    }
 }
@@ -46,6 +46,7 @@ import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
 import java.security.cert.X509Certificate;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.List;
@@ -98,6 +99,33 @@ public class S3ObjectListServiceTest {
         session.close();
     }
 
+    @Test
+    public void testListRecursiveConcurrent() throws Exception {
+        final S3Session session = new S3Session(
+                new Host(new S3Protocol(), new S3Protocol().getDefaultHostname(),
+                        new Credentials(
+                                System.getProperties().getProperty("s3.key"), System.getProperties().getProperty("s3.secret")
+                        )));
+        session.open(Proxy.DIRECT, new DisabledHostKeyCallback(), new DisabledLoginCallback());
+        session.login(Proxy.DIRECT, new DisabledPasswordStore(), new DisabledLoginCallback(), new DisabledCancelCallback());
+        final Path bucket = new Path("test-us-east-1-cyberduck", EnumSet.of(Path.Type.directory, Path.Type.volume));
+        final Path directory = new S3DirectoryFeature(session, new S3WriteFeature(session)).mkdir(new Path(bucket, new AlphanumericRandomStringService().random(), EnumSet.of(Path.Type.directory)), null, new TransferStatus());
+        final Path a = new S3DirectoryFeature(session, new S3WriteFeature(session)).mkdir(new Path(directory, "a", EnumSet.of(Path.Type.directory)), null, new TransferStatus());
+        final Path b = new S3TouchFeature(session).touch(new Path(new Path(directory, "b", EnumSet.of(Path.Type.directory)), "f", EnumSet.of(Path.Type.file)), new TransferStatus());
+        final Path c = new S3TouchFeature(session).touch(new Path(directory, "c", EnumSet.of(Path.Type.file)), new TransferStatus());
+        PreferencesFactory.get().setProperty("s3.listing.concurrency", 1);
+        final AttributedList<Path> serial = new S3ObjectListService(session).list(directory, new DisabledListProgressListener(), null, 1);
+        PreferencesFactory.get().setProperty("s3.listing.concurrency", 10);
+        final AttributedList<Path> concurrent = new S3ObjectListService(session).list(directory, new DisabledListProgressListener(), null, 1);
+        assertEquals(3, serial.size());
+        assertEquals(serial.size(), concurrent.size());
+        assertTrue(concurrent.contains(a));
+        assertTrue(concurrent.contains(b));
+        assertTrue(concurrent.contains(c));
+        new S3DefaultDeleteFeature(session).delete(Arrays.asList(b, c, a, directory), new DisabledLoginCallback(), new Delete.DisabledCallback());
+        session.close();
+    }
+
     @Test
     public void tetsEmptyPlaceholder() throws Exception {
         final S3Session session = new S3Session(
@@ -23,10 +23,14 @@ import ch.cyberduck.core.Permission;
 import ch.cyberduck.core.exception.BackgroundException;
 import ch.cyberduck.core.exception.NotfoundException;
 import ch.cyberduck.core.features.AttributesFinder;
+import ch.cyberduck.core.preferences.PreferencesFactory;
 
 import java.io.IOException;
+import java.util.List;
 
 import net.schmizz.sshj.sftp.FileAttributes;
+import net.schmizz.sshj.sftp.PacketType;
+import net.schmizz.sshj.sftp.SFTPEngine;
 
 public class SFTPAttributesFinderFeature implements AttributesFinder {
 
@@ -73,6 +77,23 @@ public class SFTPAttributesFinderFeature implements AttributesFinder {
         }
     }
 
+    /**
+     * Stat multiple files with requests pipelined on the channel
+     *
+     * @param paths  Absolute paths
+     * @param follow Follow symbolic links
+     * @return Attributes or error status for each path in order
+     */
+    List<SFTPPipeline.Result<FileAttributes>> stat(final List<String> paths, final boolean follow) throws IOException {
+        final SFTPEngine sftp = session.sftp();
+        return new SFTPPipeline(PreferencesFactory.get().getInteger("sftp.stat.maxunconfirmed")).execute(paths,
+            SFTPPipeline.sender(sftp, path -> sftp.newRequest(follow ? PacketType.STAT : PacketType.LSTAT).putString(path)),
+            response -> {
+                response.ensurePacketTypeIs(PacketType.ATTRS);
+                return response.readFileAttributes();
+            });
+    }
+
     public PathAttributes toAttributes(final FileAttributes stat) {
         final PathAttributes attributes = new PathAttributes();
         switch(stat.getType()) {
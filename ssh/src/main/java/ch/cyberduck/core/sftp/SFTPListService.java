@@ -28,16 +28,23 @@ import ch.cyberduck.core.exception.AccessDeniedException;
 import ch.cyberduck.core.exception.BackgroundException;
 import ch.cyberduck.core.exception.InteroperabilityException;
 import ch.cyberduck.core.exception.NotfoundException;
+import ch.cyberduck.core.preferences.PreferencesFactory;
 
 import org.apache.log4j.Logger;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.EnumSet;
+import java.util.List;
 
+import net.schmizz.sshj.sftp.FileAttributes;
 import net.schmizz.sshj.sftp.FileMode;
+import net.schmizz.sshj.sftp.PacketType;
 import net.schmizz.sshj.sftp.RemoteDirectory;
 import net.schmizz.sshj.sftp.RemoteResourceFilter;
 import net.schmizz.sshj.sftp.RemoteResourceInfo;
+import net.schmizz.sshj.sftp.SFTPEngine;
 import net.schmizz.sshj.sftp.SFTPException;
 
 public class SFTPListService implements ListService {
@@ -55,6 +62,7 @@ public class SFTPListService implements ListService {
     public AttributedList<Path> list(final Path directory, final ListProgressListener listener) throws BackgroundException {
         try {
             final AttributedList<Path> children = new AttributedList<Path>();
+            final List<Path> links = new ArrayList<Path>();
             final RemoteDirectory handle = session.sftp().openDir(directory.getAbsolute());
             for(RemoteResourceInfo f : handle.scan(new RemoteResourceFilter() {
                 @Override
@@ -74,12 +82,20 @@ public class SFTPListService implements ListService {
                     type.add(Path.Type.symboliclink);
                 }
                 final Path file = new Path(directory, f.getName(), type, attr);
-                if(this.post(file)) {
+                if(file.isSymbolicLink()) {
+                    // Resolve after scan in a single pipelined batch
+                    links.add(file);
+                }
+                else {
                     children.add(file);
                     listener.chunk(directory, children);
                 }
             }
             handle.close();
+            if(!links.isEmpty()) {
+                children.addAll(this.post(links));
+                listener.chunk(directory, children);
+            }
             return children;
         }
         catch(IOException e) {
@@ -93,52 +109,95 @@ public class SFTPListService implements ListService {
         return this;
     }
 
-    protected boolean post(final Path file) throws BackgroundException {
-        if(file.isSymbolicLink()) {
-            final Path target;
+    /**
+     * Resolve targets of symbolic links with readlink and stat requests pipelined on the channel
+     *
+     * @param links Symbolic links in directory
+     * @return Symbolic links with target set. Links that cannot be read are omitted.
+     */
+    protected List<Path> post(final List<Path> links) throws BackgroundException {
+        final SFTPEngine sftp = session.sftp();
+        final List<SFTPPipeline.Result<String>> names;
+        try {
+            names = new SFTPPipeline(PreferencesFactory.get().getInteger("sftp.stat.maxunconfirmed")).execute(links,
+                SFTPPipeline.sender(sftp, file -> sftp.newRequest(PacketType.READLINK).putString(file.getAbsolute())),
+                response -> {
+                    response.ensurePacketTypeIs(PacketType.NAME);
+                    if(response.readUInt32AsInt() != 1) {
+                        throw new SFTPException("Unexpected data in READLINK response");
+                    }
+                    return response.readString();
+                });
+        }
+        catch(IOException e) {
+            log.warn(String.format("Failure to read symbolic links %s. %s", links, e.getMessage()));
+            return Collections.emptyList();
+        }
+        final List<Path> resolved = new ArrayList<Path>(links.size());
+        final List<Path> targets = new ArrayList<Path>(links.size());
+        for(int i = 0; i < links.size(); i++) {
+            final Path file = links.get(i);
+            final String link;
+            try {
+                link = names.get(i).get();
+            }
+            catch(SFTPException e) {
+                log.warn(String.format("Failure to read symbolic link of %s. %s", file, e.getMessage()));
+                continue;
+            }
+            if(link.startsWith(String.valueOf(Path.DELIMITER))) {
+                targets.add(new Path(PathNormalizer.normalize(link), EnumSet.of(Path.Type.file)));
+            }
+            else {
+                targets.add(new Path(PathNormalizer.normalize(String.format("%s/%s", file.getParent().getAbsolute(), link)), EnumSet.of(Path.Type.file)));
+            }
+            resolved.add(file);
+        }
+        final List<String> paths = new ArrayList<String>(targets.size());
+        for(Path target : targets) {
+            paths.add(target.getAbsolute());
+        }
+        final List<SFTPPipeline.Result<FileAttributes>> stats;
+        try {
+            stats = attributes.stat(paths, true);
+        }
+        catch(IOException e) {
+            log.warn(String.format("Failure to read symbolic link targets %s. %s", targets, e.getMessage()));
+            return Collections.emptyList();
+        }
+        for(int i = 0; i < resolved.size(); i++) {
+            final Path file = resolved.get(i);
+            final Path target = targets.get(i);
             Path.Type type;
             try {
-                final String link = session.sftp().readLink(file.getAbsolute());
-                if(link.startsWith(String.valueOf(Path.DELIMITER))) {
-                    target = new Path(PathNormalizer.normalize(link), EnumSet.of(Path.Type.file));
+                if(stats.get(i).get().getType().equals(FileMode.Type.DIRECTORY)) {
+                    type = Path.Type.directory;
                 }
                 else {
-                    target = new Path(PathNormalizer.normalize(String.format("%s/%s", file.getParent().getAbsolute(), link)), EnumSet.of(Path.Type.file));
-                }
-                try {
-                    if(session.sftp().stat(target.getAbsolute()).getType().equals(FileMode.Type.DIRECTORY)) {
-                        type = Path.Type.directory;
-                    }
-                    else {
-                        type = Path.Type.file;
-                    }
-                }
-                catch(SFTPException e) {
-                    final BackgroundException reason = new SFTPExceptionMappingService().map(e);
-                    if(reason instanceof NotfoundException) {
-                        log.warn(String.format("Cannot find symbolic link target of %s. %s", file, reason.toString()));
-                    }
-                    else if(reason instanceof AccessDeniedException) {
-                        log.warn(String.format("Cannot find symbolic link target of %s. %s", file, reason.toString()));
-                    }
-                    else if(reason instanceof InteroperabilityException) {
-                        log.warn(String.format("Cannot find symbolic link target of %s. %s", file, reason.toString()));
-                    }
-                    else {
-                        log.warn(String.format("Unknown failure reading symbolic link target of %s. %s", file, reason.toString()));
-                        throw reason;
-                    }
                     type = Path.Type.file;
                 }
-                file.setType(EnumSet.of(Path.Type.symboliclink, type));
-                target.setType(EnumSet.of(type));
-                file.setSymlinkTarget(target);
             }
-            catch(IOException e) {
-                log.warn(String.format("Failure to read symbolic link of %s. %s", file, e.getMessage()));
-                return false;
+            catch(SFTPException e) {
+                final BackgroundException reason = new SFTPExceptionMappingService().map(e);
+                if(reason instanceof NotfoundException) {
+                    log.warn(String.format("Cannot find symbolic link target of %s. %s", file, reason.toString()));
+                }
+                else if(reason instanceof AccessDeniedException) {
+                    log.warn(String.format("Cannot find symbolic link target of %s. %s", file, reason.toString()));
+                }
+                else if(reason instanceof InteroperabilityException) {
+                    log.warn(String.format("Cannot find symbolic link target of %s. %s", file, reason.toString()));
+                }
+                else {
+                    log.warn(String.format("Unknown failure reading symbolic link target of %s. %s", file, reason.toString()));
+                    throw reason;
+                }
+                type = Path.Type.file;
             }
+            file.setType(EnumSet.of(Path.Type.symboliclink, type));
+            target.setType(EnumSet.of(type));
+            file.setSymlinkTarget(target);
         }
-        return true;
+        return resolved;
     }
 }
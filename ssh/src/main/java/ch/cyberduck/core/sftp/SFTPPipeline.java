@@ -0,0 +1,128 @@
+package ch.cyberduck.core.sftp;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import net.schmizz.concurrent.Promise;
+import net.schmizz.sshj.sftp.Request;
+import net.schmizz.sshj.sftp.Response;
+import net.schmizz.sshj.sftp.SFTPEngine;
+import net.schmizz.sshj.sftp.SFTPException;
+
+/**
+ * Send requests without waiting for the reply of previous requests keeping a bounded number of requests
+ * outstanding. Replies are matched by request id.
+ */
+final class SFTPPipeline {
+
+    /**
+     * Maximum number of requests without reply
+     */
+    private final int window;
+
+    SFTPPipeline(final int window) {
+        this.window = Math.max(1, window);
+    }
+
+    interface Sender<R, P> {
+        /**
+         * @param input Input for request
+         * @return Pending reply
+         */
+        Reply<P> send(R input) throws IOException;
+    }
+
+    interface Reply<P> {
+        /**
+         * Wait for reply
+         */
+        P retrieve() throws IOException;
+    }
+
+    interface Reader<P, T> {
+        T read(P response) throws IOException;
+    }
+
+    interface Factory<R> {
+        Request create(R input) throws IOException;
+    }
+
+    /**
+     * @param sftp    Channel
+     * @param factory Create request for input
+     * @return Send requests on channel waiting for replies with timeout of channel
+     */
+    static <R> Sender<R, Response> sender(final SFTPEngine sftp, final Factory<R> factory) {
+        return input -> {
+            final Promise<Response, SFTPException> promise = sftp.request(factory.create(input));
+            return () -> promise.retrieve(sftp.getTimeoutMs(), TimeUnit.MILLISECONDS);
+        };
+    }
+
+    /**
+     * @param inputs Input for each request
+     * @param sender Send request for input
+     * @param reader Read reply
+     * @return Replies in order of inputs
+     * @throws IOException Failure sending request or waiting for reply
+     */
+    <R, P, T> List<Result<T>> execute(final List<R> inputs, final Sender<R, P> sender, final Reader<P, T> reader) throws IOException {
+        final List<Result<T>> results = new ArrayList<Result<T>>(inputs.size());
+        final Deque<Reply<P>> outstanding = new ArrayDeque<Reply<P>>();
+        int next = 0;
+        while(results.size() < inputs.size()) {
+            while(next < inputs.size() && outstanding.size() < window) {
+                outstanding.add(sender.send(inputs.get(next++)));
+            }
+            final P response = outstanding.poll().retrieve();
+            try {
+                results.add(new Result<T>(reader.read(response), null));
+            }
+            catch(SFTPException e) {
+                // Error status for single request
+                results.add(new Result<T>(null, e));
+            }
+        }
+        return results;
+    }
+
+    static final class Result<T> {
+        private final T value;
+        private final SFTPException failure;
+
+        private Result(final T value, final SFTPException failure) {
+            this.value = value;
+            this.failure = failure;
+        }
+
+        /**
+         * @return Reply
+         * @throws SFTPException Error status returned for request
+         */
+        T get() throws SFTPException {
+            if(null != failure) {
+                throw failure;
+            }
+            return value;
+        }
+    }
+}
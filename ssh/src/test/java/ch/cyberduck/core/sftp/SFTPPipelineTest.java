@@ -0,0 +1,113 @@
+package ch.cyberduck.core.sftp;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.schmizz.sshj.sftp.SFTPException;
+
+import static org.junit.Assert.*;
+
+public class SFTPPipelineTest {
+
+    @Test
+    public void testOrder() throws Exception {
+        final List<Integer> inputs = Arrays.asList(1, 2, 3, 4, 5, 6, 7);
+        final List<Integer> sent = new ArrayList<Integer>();
+        final List<SFTPPipeline.Result<String>> results = new SFTPPipeline(3).<Integer, Integer, String>execute(inputs,
+            input -> {
+                sent.add(input);
+                return () -> input;
+            },
+            response -> String.valueOf(response));
+        assertEquals(inputs, sent);
+        assertEquals(inputs.size(), results.size());
+        for(int i = 0; i < inputs.size(); i++) {
+            assertEquals(String.valueOf(inputs.get(i)), results.get(i).get());
+        }
+    }
+
+    @Test
+    public void testWindow() throws Exception {
+        final AtomicInteger outstanding = new AtomicInteger();
+        final AtomicInteger maximum = new AtomicInteger();
+        new SFTPPipeline(3).<Integer, Integer, Integer>execute(Arrays.asList(1, 2, 3, 4, 5, 6, 7),
+            input -> {
+                maximum.set(Math.max(maximum.get(), outstanding.incrementAndGet()));
+                return () -> {
+                    outstanding.decrementAndGet();
+                    return input;
+                };
+            },
+            response -> response);
+        assertEquals(3, maximum.get());
+        assertEquals(0, outstanding.get());
+    }
+
+    @Test
+    public void testWindowMinimum() throws Exception {
+        final AtomicInteger outstanding = new AtomicInteger();
+        new SFTPPipeline(0).<Integer, Integer, Integer>execute(Arrays.asList(1, 2, 3),
+            input -> {
+                assertEquals(1, outstanding.incrementAndGet());
+                return () -> {
+                    outstanding.decrementAndGet();
+                    return input;
+                };
+            },
+            response -> response);
+    }
+
+    @Test
+    public void testFailureSingleRequest() throws Exception {
+        final List<SFTPPipeline.Result<Integer>> results = new SFTPPipeline(2).<Integer, Integer, Integer>execute(Arrays.asList(1, 2, 3),
+            input -> () -> input,
+            response -> {
+                if(response == 2) {
+                    throw new SFTPException("f");
+                }
+                return response;
+            });
+        assertEquals(3, results.size());
+        assertEquals(1, results.get(0).get(), 0);
+        try {
+            results.get(1).get();
+            fail();
+        }
+        catch(SFTPException e) {
+            assertEquals("f", e.getMessage());
+        }
+        assertEquals(3, results.get(2).get(), 0);
+    }
+
+    @Test(expected = IOException.class)
+    public void testFailureReply() throws Exception {
+        new SFTPPipeline(2).<Integer, Integer, Integer>execute(Arrays.asList(1, 2, 3),
+            input -> () -> {
+                if(input == 2) {
+                    throw new IOException("t");
+                }
+                return input;
+            },
+            response -> response);
+    }
+}
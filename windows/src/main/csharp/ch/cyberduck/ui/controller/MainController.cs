@@ -892,6 +892,8 @@ namespace Ch.Cyberduck.Ui.Controller
         {
             // Clear temporary files
             TemporaryFileServiceFactory.get().shutdown();
+            // Write pending records of checksum index
+            ch.cyberduck.core.io.ChecksumIndex.get().shutdown();
             try
             {
                 RendezvousFactory.instance().quit();
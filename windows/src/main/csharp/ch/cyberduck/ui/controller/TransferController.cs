@@ -545,6 +545,8 @@ namespace Ch.Cyberduck.Ui.Controller
                             }
                         }
                     }
+                    // Drop transfer still waiting in queue
+                    TransferQueueFactory.get().release(transfer);
                 }
             }
         }
@@ -632,7 +634,8 @@ namespace Ch.Cyberduck.Ui.Controller
             ProgressController progressController;
             _transferMap.TryGetValue(transfer, out progressController);
             PathCache cache = new PathCache(_preferences.getInteger("transfer.cache.size"));
-            background(new TransferBackgroundAction(this, transfer.withCache(cache), options, callback, cache, progressController));
+            // Run when admitted by queue
+            new TransferBackgroundAction(this, transfer.withCache(cache), options, callback, cache, progressController).submit();
         }
 
         public void TaskbarOverlayIcon(Icon icon, string description)